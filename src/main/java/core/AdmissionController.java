@@ -0,0 +1,280 @@
+package core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pressure-aware admission of parallel browser tests (adaptive.*, opt-in)
+ * The limit starts at adaptive.max.concurrency. Every adaptive.interval.ms the controller reads CPU, memory and I/O
+ * pressure (/proc/pressure/*, avg10) and MemAvailable: above a high watermark the concurrency limit drops by one,
+ * below half of every watermark it grows back by one while tests are waiting, always within
+ * adaptive.min/max.concurrency. A test is admitted when fewer than limit tests run and free memory is above
+ * adaptive.min.free.mb (a test is always admitted when none runs). A test's slot is held until its browser has quit,
+ * including a quit that DriverReaper finishes in the background.
+ * The TestNG thread-count stays the upper bound; the limit and load of every interval form the concurrency timeline.
+ */
+public final class AdmissionController {
+    private static final Logger logger = LogManager.getLogger(AdmissionController.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition admitted = lock.newCondition();
+    private static final List<Sample> timeline = new ArrayList<>();
+    private static final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> false);
+    private static ScheduledExecutorService controller;
+    private static int limit;
+    private static int running;
+    private static int waiting;
+    private static int adjustments;
+    private static long waitMsTotal;
+    private static volatile Load load = Load.NONE;
+
+    private AdmissionController() {}
+
+    /**
+     * Wait until the current thread may start a test; does nothing when the thread was already admitted
+     */
+    public static void acquire() {
+        if (!ConfigReader.isAdaptiveConcurrencyEnabled() || holding.get()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.lock();
+        try {
+            startController();
+            waiting++;
+            try {
+                while (running > 0 && (running >= limit || !load.hasMemoryHeadroom())) {
+                    // Re-checked on every release and limit change, and at least once a second for memory
+                    admitted.await(1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting--;
+            }
+            running++;
+            long waitedMs = System.currentTimeMillis() - start;
+            waitMsTotal += waitedMs;
+            if (waitedMs > 1000) {
+                logger.debug("Admitted after {} ms ({} running, limit {})", waitedMs, running, limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+        holding.set(true);
+    }
+
+    /**
+     * The current thread's test finished; admits the next waiting test
+     */
+    public static void release() {
+        if (!holding.get()) {
+            return;
+        }
+        holding.set(false);
+        releaseSlot();
+    }
+
+    /**
+     * Hand the current thread's slot to whoever closes its browser (DriverReaper)
+     * The slot stays taken until the returned callback runs, so browsers still quitting count against the limit.
+     * @return releases the slot; does nothing when the thread held none
+     */
+    public static Runnable handOff() {
+        if (!holding.get()) {
+            return () -> { };
+        }
+        holding.set(false);
+        return AdmissionController::releaseSlot;
+    }
+
+    private static void releaseSlot() {
+        lock.lock();
+        try {
+            running--;
+            admitted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void startController() {
+        if (controller != null) {
+            return;
+        }
+        // Start at full parallelism and back off under pressure
+        limit = ConfigReader.getAdaptiveMaxConcurrency();
+        load = Load.read();
+        controller = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "admission-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = ConfigReader.getAdaptiveIntervalMs();
+        controller.scheduleWithFixedDelay(AdmissionController::adjust, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Adaptive concurrency: limit {} (bounds {}..{})", limit,
+                ConfigReader.getAdaptiveMinConcurrency(), ConfigReader.getAdaptiveMaxConcurrency());
+    }
+
+    private static void adjust() {
+        Load current = Load.read();
+        load = current;
+        lock.lock();
+        try {
+            int previous = limit;
+            if (current.isOverloaded()) {
+                limit = Math.max(ConfigReader.getAdaptiveMinConcurrency(), limit - 1);
+            } else if (current.isCalm() && waiting > 0 && running >= limit) {
+                limit = Math.min(ConfigReader.getAdaptiveMaxConcurrency(), limit + 1);
+            }
+            if (limit != previous) {
+                adjustments++;
+                logger.info("Concurrency limit {} -> {} (cpu {}%, memory {}%, io {}%, {} MB free)", previous, limit,
+                        current.cpu, current.memory, current.io, current.memAvailableMb);
+                EventLog.emit("concurrency_limit", "from", previous, "to", limit, "running", running);
+            }
+            timeline.add(new Sample(System.currentTimeMillis(), limit, running, waiting, current));
+            admitted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Summary of the run (limit range, time-weighted averages, admission wait) with the full timeline
+     */
+    public static ObjectNode summary() {
+        lock.lock();
+        try {
+            ObjectNode root = mapper.createObjectNode();
+            if (timeline.isEmpty()) {
+                return root;
+            }
+            int minLimit = Integer.MAX_VALUE;
+            int maxLimit = 0;
+            double limitSum = 0;
+            double runningSum = 0;
+            for (Sample sample : timeline) {
+                minLimit = Math.min(minLimit, sample.limit);
+                maxLimit = Math.max(maxLimit, sample.limit);
+                limitSum += sample.limit;
+                runningSum += sample.running;
+            }
+            root.put("intervals", timeline.size());
+            root.put("minLimit", minLimit);
+            root.put("maxLimit", maxLimit);
+            root.put("avgLimit", Math.round(limitSum / timeline.size() * 10) / 10.0);
+            root.put("avgRunning", Math.round(runningSum / timeline.size() * 10) / 10.0);
+            root.put("adjustments", adjustments);
+            root.put("admissionWaitMs", waitMsTotal);
+            ArrayNode samples = root.putArray("timeline");
+            for (Sample sample : timeline) {
+                samples.addObject()
+                        .put("ts", sample.timestamp)
+                        .put("limit", sample.limit)
+                        .put("running", sample.running)
+                        .put("waiting", sample.waiting)
+                        .put("cpu", sample.load.cpu)
+                        .put("memory", sample.load.memory)
+                        .put("io", sample.load.io)
+                        .put("memAvailableMb", sample.load.memAvailableMb);
+            }
+            return root;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write summary() to a JSON file; nothing is written when no test went through the controller
+     */
+    public static void writeSummary(Path file) throws IOException {
+        ObjectNode summary = summary();
+        if (summary.size() > 0) {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), summary);
+            logger.info("CONCURRENCY: limit {}..{} (avg {}), avg {} running, {} adjustments, {} ms admission wait",
+                    summary.get("minLimit"), summary.get("maxLimit"), summary.get("avgLimit"),
+                    summary.get("avgRunning"), summary.get("adjustments"), summary.get("admissionWaitMs"));
+        }
+    }
+
+    /**
+     * Pressure (% stalled, avg10) and free memory at one point in time
+     */
+    private static final class Load {
+        static final Load NONE = new Load(0, 0, 0, Long.MAX_VALUE);
+
+        private final double cpu;
+        private final double memory;
+        private final double io;
+        private final long memAvailableMb;
+
+        private Load(double cpu, double memory, double io, long memAvailableMb) {
+            this.cpu = cpu;
+            this.memory = memory;
+            this.io = io;
+            this.memAvailableMb = memAvailableMb;
+        }
+
+        static Load read() {
+            double cpu = ProcFs.pressureAvg10("cpu");
+            if (cpu < 0) {
+                // No PSI: run-queue length per core as a stand-in for CPU pressure
+                double loadAverage = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+                int cores = Runtime.getRuntime().availableProcessors();
+                cpu = loadAverage < 0 ? 0 : Math.round(Math.min(100, Math.max(0, loadAverage - cores) * 100 / cores));
+            }
+            long availableKb = ProcFs.memInfoKb("MemAvailable:");
+            return new Load(cpu, Math.max(0, ProcFs.pressureAvg10("memory")), Math.max(0, ProcFs.pressureAvg10("io")),
+                    availableKb == 0 ? Long.MAX_VALUE : availableKb / 1024);
+        }
+
+        boolean hasMemoryHeadroom() {
+            return memAvailableMb >= ConfigReader.getAdaptiveMinFreeMb();
+        }
+
+        boolean isOverloaded() {
+            return cpu > ConfigReader.getAdaptiveCpuPressureHigh()
+                    || memory > ConfigReader.getAdaptiveMemoryPressureHigh()
+                    || io > ConfigReader.getAdaptiveIoPressureHigh()
+                    || !hasMemoryHeadroom();
+        }
+
+        boolean isCalm() {
+            return cpu < ConfigReader.getAdaptiveCpuPressureHigh() / 2
+                    && memory < ConfigReader.getAdaptiveMemoryPressureHigh() / 2
+                    && io < ConfigReader.getAdaptiveIoPressureHigh() / 2
+                    && memAvailableMb >= 2L * ConfigReader.getAdaptiveMinFreeMb();
+        }
+    }
+
+    private static final class Sample {
+        private final long timestamp;
+        private final int limit;
+        private final int running;
+        private final int waiting;
+        private final Load load;
+
+        private Sample(long timestamp, int limit, int running, int waiting, Load load) {
+            this.timestamp = timestamp;
+            this.limit = limit;
+            this.running = running;
+            this.waiting = waiting;
+            this.load = load;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package core;
+
+import enums.InfrastructureType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Suite-wide circuit breaker per infrastructure type
+ * After circuit.breaker.failure.threshold consecutive failures the breaker opens and calls fail fast
+ * with InfrastructureUnavailableException. After circuit.breaker.half.open.seconds a single probe call
+ * is let through (half-open): success closes the breaker, failure opens it again. A probe that never reports back
+ * (its caller died or swallowed the outcome) is replaced by a new one after another half-open delay.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+    private static final Map<InfrastructureType, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final InfrastructureType type;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long probeStartedAt;
+    private String lastFailure = "";
+
+    private CircuitBreaker(InfrastructureType type) {
+        this.type = type;
+    }
+
+    /**
+     * Get the breaker guarding the given infrastructure
+     */
+    public static CircuitBreaker of(InfrastructureType type) {
+        return breakers.computeIfAbsent(type, CircuitBreaker::new);
+    }
+
+    /**
+     * All breakers created so far, whatever their state, for run summaries
+     */
+    public static Map<InfrastructureType, CircuitBreaker> getAll() {
+        return breakers;
+    }
+
+    /**
+     * Run action through the breaker; any exception or error counts as an infrastructure failure
+     */
+    public <T> T call(Supplier<T> action) {
+        ensureAllowed();
+        try {
+            T result = action.get();
+            recordSuccess();
+            return result;
+        } catch (RuntimeException | Error e) {
+            recordFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Run action through the breaker
+     */
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Fail fast when the breaker is open; lets one probe through once the half-open delay passed
+     */
+    public void ensureAllowed() {
+        if (!ConfigReader.isCircuitBreakerEnabled()) {
+            return;
+        }
+        String reason = null;
+        synchronized (this) {
+            long halfOpenMillis = ConfigReader.getCircuitBreakerHalfOpenSeconds() * 1000L;
+            long now = System.currentTimeMillis();
+            if (state == State.OPEN && now - openedAt >= halfOpenMillis) {
+                state = State.HALF_OPEN;
+                probeStartedAt = now;
+                logger.info("{} circuit half-open, probing recovery", type.getDisplayName());
+            } else if (state == State.HALF_OPEN && now - probeStartedAt >= halfOpenMillis) {
+                probeStartedAt = now;
+                logger.warn("{} circuit probe did not report back, probing again", type.getDisplayName());
+            } else if (state != State.CLOSED) {
+                long retryIn = Math.max(0, ConfigReader.getCircuitBreakerHalfOpenSeconds() - (System.currentTimeMillis() - openedAt) / 1000);
+                reason = String.format("%s unavailable: circuit open after %d consecutive failures (last: %s); next probe in %ds",
+                        type.getDisplayName(), consecutiveFailures, lastFailure, retryIn);
+            }
+        }
+        if (reason != null) {
+            throw new InfrastructureUnavailableException(type, reason);
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("{} circuit closed, infrastructure recovered", type.getDisplayName());
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure(Throwable failure) {
+        consecutiveFailures++;
+        lastFailure = firstLine(failure);
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= ConfigReader.getCircuitBreakerFailureThreshold())) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            logger.error("{} circuit OPEN after {} consecutive failures: {}", type.getDisplayName(), consecutiveFailures, lastFailure);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private static String firstLine(Throwable failure) {
+        String message = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        int newline = message.indexOf('\n');
+        return newline > 0 ? message.substring(0, newline) : message;
+    }
+}
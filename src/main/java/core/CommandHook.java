@@ -0,0 +1,193 @@
+package core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-session hook on the WebDriver commands a driver sends, for the session watchdog and the command profiler
+ * Installed as a Selenium HTTP client filter (applyTo), so it sees every command on the wire to chromedriver, the Grid
+ * or Appium without proxying the driver: drivers keep their concrete class (IOSDriver casts work) and element calls
+ * cost nothing extra. Drivers without HTTP (FakeDriver) report their commands through commandStarted/commandFinished.
+ */
+public final class CommandHook implements Filter {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Map<String, String> COMMANDS = Map.ofEntries(
+            Map.entry("POST /url", "get"),
+            Map.entry("GET /url", "getCurrentUrl"),
+            Map.entry("GET /title", "getTitle"),
+            Map.entry("GET /source", "getPageSource"),
+            Map.entry("POST /back", "back"),
+            Map.entry("POST /forward", "forward"),
+            Map.entry("POST /refresh", "refresh"),
+            Map.entry("POST /element", "findElement"),
+            Map.entry("POST /elements", "findElements"),
+            Map.entry("POST /element/{}/element", "findChildElement"),
+            Map.entry("POST /element/{}/elements", "findChildElements"),
+            Map.entry("POST /element/{}/click", "elementClick"),
+            Map.entry("POST /element/{}/clear", "elementClear"),
+            Map.entry("POST /element/{}/value", "elementSendKeys"),
+            Map.entry("GET /element/{}/text", "getElementText"),
+            Map.entry("GET /element/{}/name", "getElementTagName"),
+            Map.entry("GET /element/{}/attribute/{}", "getElementAttribute"),
+            Map.entry("GET /element/{}/property/{}", "getElementProperty"),
+            Map.entry("GET /element/{}/css/{}", "getElementValueOfCssProperty"),
+            Map.entry("GET /element/{}/rect", "getElementRect"),
+            Map.entry("GET /element/{}/enabled", "isElementEnabled"),
+            Map.entry("GET /element/{}/selected", "isElementSelected"),
+            Map.entry("GET /element/{}/displayed", "isElementDisplayed"),
+            Map.entry("GET /element/{}/screenshot", "elementScreenshot"),
+            Map.entry("GET /screenshot", "getScreenshot"),
+            Map.entry("POST /execute/sync", "executeScript"),
+            Map.entry("POST /execute/async", "executeAsyncScript"),
+            Map.entry("GET /window", "getWindowHandle"),
+            Map.entry("GET /window/handles", "getWindowHandles"),
+            Map.entry("POST /window", "switchToWindow"),
+            Map.entry("DELETE /window", "closeWindow"),
+            Map.entry("POST /window/maximize", "maximizeWindow"),
+            Map.entry("POST /timeouts", "setTimeouts"),
+            Map.entry("GET /cookie", "getCookies"),
+            Map.entry("POST /cookie", "addCookie"),
+            Map.entry("DELETE /cookie", "deleteAllCookies"),
+            Map.entry("DELETE /cookie/{}", "deleteCookie"),
+            Map.entry("POST /frame", "switchToFrame"),
+            Map.entry("POST /actions", "performActions"));
+    // Path segments followed by an id or name that is not part of the command
+    private static final List<String> ID_PARENTS = List.of("element", "shadow", "attribute", "property", "css", "cookie");
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Receives the commands of one session, on the thread that sends them
+     */
+    public interface Listener {
+        default void beforeCommand(String command) {
+        }
+
+        /**
+         * @param locator "using=value" of find commands, otherwise null
+         */
+        default void afterCommand(String command, String locator, long startNanos, long durationNanos, boolean failed) {
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Client config of a session with this hook as its innermost filter
+     */
+    public ClientConfig applyTo(ClientConfig config) {
+        return config.withFilter(this);
+    }
+
+    /**
+     * Client factory whose clients all carry this hook (for drivers created from a URL and a factory)
+     */
+    public HttpClient.Factory applyTo(HttpClient.Factory factory) {
+        return config -> factory.createClient(applyTo(config));
+    }
+
+    @Override
+    public HttpHandler apply(HttpHandler next) {
+        return request -> {
+            if (listeners.isEmpty()) {
+                return next.execute(request);
+            }
+            String command = commandName(request);
+            commandStarted(command);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                HttpResponse response = next.execute(request);
+                failed = !response.isSuccessful();
+                return response;
+            } finally {
+                commandFinished(command, command.startsWith("find") ? locator(request) : null, start, failed);
+            }
+        };
+    }
+
+    public void commandStarted(String command) {
+        for (Listener listener : listeners) {
+            listener.beforeCommand(command);
+        }
+    }
+
+    public void commandFinished(String command, String locator, long startNanos, boolean failed) {
+        long duration = System.nanoTime() - startNanos;
+        for (Listener listener : listeners) {
+            listener.afterCommand(command, locator, startNanos, duration, failed);
+        }
+    }
+
+    /**
+     * Locator in wire form ("css selector=#id"), or null for locators that are not sent as such
+     */
+    public static String locator(By by) {
+        if (!(by instanceof By.Remotable)) {
+            return null;
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        return parameters.using() + "=" + parameters.value();
+    }
+
+    /**
+     * Command name of a request: the W3C name for common commands, otherwise method and path without ids
+     */
+    static String commandName(HttpRequest request) {
+        String uri = request.getUri();
+        int query = uri.indexOf('?');
+        String[] segments = (query < 0 ? uri : uri.substring(0, query)).split("/");
+        int session = -1;
+        for (int i = 0; i < segments.length; i++) {
+            if ("session".equals(segments[i])) {
+                session = i;
+                break;
+            }
+        }
+        if (session < 0 || session == segments.length - 1) {
+            return session < 0 ? request.getMethod() + " " + uri : "newSession";
+        }
+        if (session + 2 == segments.length) {
+            return "DELETE".equals(request.getMethod().name()) ? "quit" : "getSession";
+        }
+        StringBuilder key = new StringBuilder(request.getMethod().name()).append(' ');
+        for (int i = session + 2; i < segments.length; i++) {
+            key.append('/').append(segments[i]);
+            if (ID_PARENTS.contains(segments[i]) && i + 1 < segments.length
+                    && !("element".equals(segments[i]) && "active".equals(segments[i + 1]))) {
+                key.append("/{}");
+                i++;
+            }
+        }
+        String name = key.toString();
+        return COMMANDS.getOrDefault(name, name);
+    }
+
+    private static String locator(HttpRequest request) {
+        try {
+            JsonNode body = mapper.readTree(Contents.bytes(request.getContent()));
+            return body.path("using").asText() + "=" + body.path("value").asText();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package core;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * WebDriver/Appium command profiler (opt-in via profiler.enabled)
+ * Records every command of a session (name, locator, duration, thread, step) into a fixed-size buffer. Commands are
+ * seen on the wire through the session's CommandHook, so the driver is not wrapped and element calls are included.
+ * On quit the session is exported as a Chrome trace-event file (open in Perfetto / chrome://tracing),
+ * command counts are added to the test's phase timings and repeated lookups of a locator within one step are reported.
+ */
+public class CommandProfiler implements CommandHook.Listener {
+    private static final Logger logger = LogManager.getLogger(CommandProfiler.class);
+    private static final Map<WebDriver, CommandProfiler> sessions = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicInteger sessionSequence = new AtomicInteger();
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final int sessionId = sessionSequence.incrementAndGet();
+    private final long sessionStartNanos = System.nanoTime();
+    private final CommandHook hook;
+    private final AtomicReferenceArray<Command> buffer;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+
+    private CommandProfiler(CommandHook hook, int capacity) {
+        this.hook = hook;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Start profiling a new session whose commands pass through hook
+     */
+    public static void attach(WebDriver driver, CommandHook hook) {
+        CommandProfiler profiler = new CommandProfiler(hook, ConfigReader.getProfilerBufferSize());
+        hook.addListener(profiler);
+        sessions.put(driver, profiler);
+        logger.debug("Command profiler attached to session #{}", profiler.sessionId);
+    }
+
+    /**
+     * Export and drop the profile of a session (called on quit)
+     */
+    public static void release(WebDriver driver) {
+        CommandProfiler profiler = sessions.remove(driver);
+        if (profiler != null) {
+            profiler.hook.removeListener(profiler);
+            profiler.export();
+        }
+    }
+
+    @Override
+    public void afterCommand(String command, String locator, long startNanos, long durationNanos, boolean failed) {
+        int index = size.getAndIncrement();
+        if (index >= buffer.length()) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        threadNames.putIfAbsent(thread.getId(), thread.getName());
+        buffer.lazySet(index, new Command(command, locator, PhaseTimer.currentStep(), PhaseTimer.currentWaitId(),
+                thread.getId(), startNanos - sessionStartNanos, durationNanos, failed));
+    }
+
+    private List<Command> commands() {
+        int count = Math.min(size.get(), buffer.length());
+        List<Command> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Command command = buffer.get(i);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    private void export() {
+        List<Command> commands = commands();
+        if (commands.isEmpty()) {
+            return;
+        }
+        if (size.get() > buffer.length()) {
+            logger.warn("Command profiler buffer full: {} of {} commands dropped (profiler.buffer.size)",
+                    size.get() - buffer.length(), size.get());
+        }
+        TestTimings timings = PhaseTimer.current();
+        String label = timings != null && timings.getTestName() != null ? timings.getTestName() : "session";
+
+        Map<String, Integer> counts = new TreeMap<>();
+        long totalNanos = 0;
+        for (Command command : commands) {
+            counts.merge(command.name, 1, Integer::sum);
+            totalNanos += command.durationNanos;
+        }
+        if (timings != null) {
+            timings.addCommandCounts(counts);
+        }
+        logger.info("WebDriver commands for {}: {} commands, {} ms in driver calls", label, commands.size(), totalNanos / 1_000_000);
+        reportRedundantLookups(commands);
+
+        File file = new File(ConfigReader.getProfilerOutputDir(),
+                label.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + sessionId + "-trace.json");
+        try {
+            writeTrace(file, label, commands);
+            logger.info("Command trace written to: {}", file.getPath());
+        } catch (IOException e) {
+            logger.warn("Could not write command trace {}: {}", file.getPath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Flag locators resolved again and again within one step; polls of a single wait count as one lookup
+     */
+    private void reportRedundantLookups(List<Command> commands) {
+        Map<String, Set<Long>> lookups = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            if (command.locator == null || !command.name.startsWith("findElement")) {
+                continue;
+            }
+            long lookup = command.waitId != 0 ? command.waitId : -(i + 1);
+            lookups.computeIfAbsent(command.step + " | " + command.locator, k -> new HashSet<>()).add(lookup);
+        }
+        int threshold = ConfigReader.getProfilerRedundantThreshold();
+        lookups.forEach((key, ids) -> {
+            if (ids.size() >= threshold) {
+                logger.warn("Redundant lookup: {} resolved {} times in step [{}]",
+                        key.substring(key.indexOf(" | ") + 3), ids.size(), key.substring(0, key.indexOf(" | ")));
+            }
+        });
+    }
+
+    private void writeTrace(File file, String label, List<Command> commands) throws IOException {
+        file.getParentFile().mkdirs();
+        long pid = ProcessHandle.current().pid();
+        try (JsonGenerator json = jsonFactory.createGenerator(file, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("traceEvents");
+            json.writeStartObject();
+            json.writeStringField("name", "process_name");
+            json.writeStringField("ph", "M");
+            json.writeNumberField("pid", pid);
+            json.writeObjectFieldStart("args");
+            json.writeStringField("name", label);
+            json.writeEndObject();
+            json.writeEndObject();
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", "thread_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", thread.getKey());
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", thread.getValue());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            for (Command command : commands) {
+                json.writeStartObject();
+                json.writeStringField("name", command.name);
+                json.writeStringField("cat", command.failed ? "webdriver,error" : "webdriver");
+                json.writeStringField("ph", "X");
+                json.writeNumberField("ts", command.startNanos / 1000);
+                json.writeNumberField("dur", command.durationNanos / 1000);
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", command.threadId);
+                json.writeObjectFieldStart("args");
+                if (command.locator != null) {
+                    json.writeStringField("locator", command.locator);
+                }
+                if (command.step != null) {
+                    json.writeStringField("step", command.step);
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeEndObject();
+        }
+    }
+
+    private static class Command {
+        private final String name;
+        private final String locator;
+        private final String step;
+        private final long waitId;
+        private final long threadId;
+        private final long startNanos;
+        private final long durationNanos;
+        private final boolean failed;
+
+        Command(String name, String locator, String step, long waitId, long threadId,
+                long startNanos, long durationNanos, boolean failed) {
+            this.name = name;
+            this.locator = locator;
+            this.step = step;
+            this.waitId = waitId;
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.failed = failed;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package core;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 /**
@@ -89,6 +90,271 @@ public class ConfigReader {
         return Integer.parseInt(getProperty("explicit.wait", "20"));
     }
 
+    public static boolean isElementCacheEnabled() {
+        return Boolean.parseBoolean(System.getProperty("element.cache.enabled", getProperty("element.cache.enabled", "false")));
+    }
+
+    public static String getAppVersion() {
+        return getProperty("app.version", "default");
+    }
+
+    public static String getLocatorStatsFile() {
+        return getProperty("locator.stats.file", "reports/locator-stats.properties");
+    }
+
+    // Test scheduling settings
+    public static boolean isLongestFirstScheduling() {
+        return Boolean.parseBoolean(getProperty("schedule.longest.first", "true"));
+    }
+
+    public static long getScheduleDefaultEstimateMs() {
+        return Long.parseLong(getProperty("schedule.default.estimate.ms", "60000"));
+    }
+
+    public static String getTestDurationHistoryFile() {
+        return getProperty("test.duration.history.file", "reports/test-durations.properties");
+    }
+
+    // Sharding settings (system properties take precedence, e.g. -Dshard.index=0 -Dshard.count=3)
+    public static int getShardIndex() {
+        return Integer.parseInt(System.getProperty("shard.index", getProperty("shard.index", "0")));
+    }
+
+    public static int getShardCount() {
+        return Integer.parseInt(System.getProperty("shard.count", getProperty("shard.count", "1")));
+    }
+
+    public static double getShardBalanceSlack() {
+        return Double.parseDouble(getProperty("shard.balance.slack", "0.05"));
+    }
+
+    // Circuit breaker settings (fail fast when Grid/Appium/target/IMAP is down)
+    public static boolean isCircuitBreakerEnabled() {
+        return Boolean.parseBoolean(getProperty("circuit.breaker.enabled", "true"));
+    }
+
+    public static int getCircuitBreakerFailureThreshold() {
+        return Integer.parseInt(getProperty("circuit.breaker.failure.threshold", "3"));
+    }
+
+    public static int getCircuitBreakerHalfOpenSeconds() {
+        return Integer.parseInt(getProperty("circuit.breaker.half.open.seconds", "60"));
+    }
+
+    // Phase timing report settings
+    public static String getTimingsReportDir() {
+        return System.getProperty("timings.report.dir", getProperty("timings.report.dir", "reports/timings"));
+    }
+
+    // WebDriver command profiler settings
+    public static boolean isProfilerEnabled() {
+        return Boolean.parseBoolean(System.getProperty("profiler.enabled", getProperty("profiler.enabled", "false")));
+    }
+
+    public static int getProfilerBufferSize() {
+        return Integer.parseInt(getProperty("profiler.buffer.size", "50000"));
+    }
+
+    public static int getProfilerRedundantThreshold() {
+        return Integer.parseInt(getProperty("profiler.redundant.threshold", "3"));
+    }
+
+    public static String getProfilerOutputDir() {
+        return getProperty("profiler.output.dir", "reports/profiler");
+    }
+
+    // Live metrics endpoint settings (Prometheus text format)
+    public static boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("metrics.enabled", getProperty("metrics.enabled", "false")));
+    }
+
+    public static int getMetricsPort() {
+        return Integer.parseInt(System.getProperty("metrics.port", getProperty("metrics.port", "9464")));
+    }
+
+    public static String getMetricsBind() {
+        return getProperty("metrics.bind", "127.0.0.1");
+    }
+
+    // Memory-mapped JSON-lines event log settings
+    public static boolean isEventLogEnabled() {
+        return Boolean.parseBoolean(getProperty("event.log.enabled", "true"));
+    }
+
+    public static String getEventLogFile() {
+        return System.getProperty("event.log.file", getProperty("event.log.file", "reports/events.jsonl"));
+    }
+
+    public static int getEventLogSizeMb() {
+        return Integer.parseInt(getProperty("event.log.size.mb", "64"));
+    }
+
+    // Content-addressed attachment store settings
+    public static boolean isAttachmentStoreEnabled() {
+        return Boolean.parseBoolean(getProperty("attachment.store.enabled", "true"));
+    }
+
+    public static String getAttachmentStoreDir() {
+        return getProperty("attachment.store.dir", "reports/attachment-store");
+    }
+
+    public static int getAttachmentStoreRetentionDays() {
+        return Integer.parseInt(getProperty("attachment.store.retention.days", "14"));
+    }
+
+    public static boolean isAttachmentStoreAllureRetentionEnabled() {
+        return Boolean.parseBoolean(getProperty("attachment.store.retention.allure.results", "false"));
+    }
+
+    // Streaming HTML report settings
+    public static boolean isExtentReportEnabled() {
+        return Boolean.parseBoolean(getProperty("extent.report.enabled", "true"));
+    }
+
+    public static String getExtentReportPath() {
+        return System.getProperty("extent.report.path", getProperty("extent.report.path", "reports/extent-report.html"));
+    }
+
+    // Encrypted session snapshot settings
+    public static boolean isSessionSnapshotEnabled() {
+        return Boolean.parseBoolean(getProperty("session.snapshot.enabled", "true"));
+    }
+
+    public static String getSessionSnapshotDir() {
+        return getProperty("session.snapshot.dir", ".session-snapshots");
+    }
+
+    public static int getSessionSnapshotTtlMinutes() {
+        return Integer.parseInt(getProperty("session.snapshot.ttl.minutes", "720"));
+    }
+
+    public static int getSessionSnapshotVerifySeconds() {
+        return Integer.parseInt(getProperty("session.snapshot.verify.seconds", "5"));
+    }
+
+    public static String getSessionSnapshotKey() {
+        String sys = System.getProperty("session.snapshot.key");
+        if (sys != null && !sys.isBlank()) {
+            return sys;
+        }
+        return getProperty("session.snapshot.key", "");
+    }
+
+    // Generated key location when session.snapshot.key is empty; outside the snapshot dir by default
+    public static String getSessionSnapshotKeyFile() {
+        String file = getProperty("session.snapshot.key.file", "");
+        return file.isBlank() ? Paths.get(System.getProperty("user.home"), ".booking-tests", "snapshot.key").toString() : file;
+    }
+
+    // Driver mode: "process" (one Chrome per test) or "context" (isolated contexts in one shared Chrome)
+    public static String getDriverMode() {
+        String sys = System.getProperty("driver.mode");
+        if (sys != null && !sys.isBlank()) {
+            return sys;
+        }
+        return getProperty("driver.mode", "process");
+    }
+
+    public static boolean isBrowserContextMode() {
+        return "context".equalsIgnoreCase(getDriverMode());
+    }
+
+    // Background driver teardown settings
+    public static boolean isDriverReaperEnabled() {
+        return Boolean.parseBoolean(getProperty("driver.reaper.enabled", "true"));
+    }
+
+    public static int getDriverReaperThreads() {
+        return Integer.parseInt(getProperty("driver.reaper.threads", "2"));
+    }
+
+    public static int getDriverReaperMaxPending() {
+        return Integer.parseInt(getProperty("driver.reaper.max.pending", "4"));
+    }
+
+    public static int getDriverReaperDrainSeconds() {
+        return Integer.parseInt(getProperty("driver.reaper.drain.seconds", "60"));
+    }
+
+    // Session watchdog settings
+    public static boolean isWatchdogEnabled() {
+        return Boolean.parseBoolean(System.getProperty("watchdog.enabled", getProperty("watchdog.enabled", "true")));
+    }
+
+    public static int getWatchdogHungSeconds() {
+        return Integer.parseInt(getProperty("watchdog.hung.seconds", "180"));
+    }
+
+    public static int getWatchdogIntervalSeconds() {
+        return Integer.parseInt(getProperty("watchdog.interval.seconds", "15"));
+    }
+
+    public static int getWatchdogKillGraceSeconds() {
+        return Integer.parseInt(getProperty("watchdog.kill.grace.seconds", "10"));
+    }
+
+    // Virtual thread execution (JDK 21+) of I/O-bound <test> tags, see listeners.VirtualThreadExecutorFactory
+    public static boolean isVirtualThreadsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("virtual.threads.enabled", getProperty("virtual.threads.enabled", "false")));
+    }
+
+    public static String getVirtualThreadGroup() {
+        return System.getProperty("virtual.threads.group", getProperty("virtual.threads.group", "virtual"));
+    }
+
+    public static int getVirtualThreadMaxConcurrency() {
+        return Integer.parseInt(System.getProperty("virtual.threads.max.concurrency",
+                getProperty("virtual.threads.max.concurrency", "1000")));
+    }
+
+    // Browser resource accounting settings
+    public static boolean isResourceSamplingEnabled() {
+        return Boolean.parseBoolean(getProperty("resources.enabled", "true"));
+    }
+
+    public static long getResourceSampleIntervalMs() {
+        return Long.parseLong(getProperty("resources.sample.interval.ms", "1000"));
+    }
+
+    public static int getResourceRecycleRssMb() {
+        return Integer.parseInt(getProperty("resources.recycle.rss.mb", "0"));
+    }
+
+    // Adaptive parallelism settings (system properties take precedence, e.g. -Dadaptive.max.concurrency=8)
+    public static boolean isAdaptiveConcurrencyEnabled() {
+        return Boolean.parseBoolean(System.getProperty("adaptive.enabled", getProperty("adaptive.enabled", "false")));
+    }
+
+    public static int getAdaptiveMinConcurrency() {
+        int min = Integer.parseInt(System.getProperty("adaptive.min.concurrency", getProperty("adaptive.min.concurrency", "1")));
+        return Math.max(1, min);
+    }
+
+    public static int getAdaptiveMaxConcurrency() {
+        int max = Integer.parseInt(System.getProperty("adaptive.max.concurrency", getProperty("adaptive.max.concurrency", "4")));
+        return Math.max(getAdaptiveMinConcurrency(), max);
+    }
+
+    public static long getAdaptiveIntervalMs() {
+        return Long.parseLong(getProperty("adaptive.interval.ms", "2000"));
+    }
+
+    public static double getAdaptiveCpuPressureHigh() {
+        return Double.parseDouble(getProperty("adaptive.cpu.pressure.high", "40"));
+    }
+
+    public static double getAdaptiveMemoryPressureHigh() {
+        return Double.parseDouble(getProperty("adaptive.memory.pressure.high", "10"));
+    }
+
+    public static double getAdaptiveIoPressureHigh() {
+        return Double.parseDouble(getProperty("adaptive.io.pressure.high", "30"));
+    }
+
+    public static long getAdaptiveMinFreeMb() {
+        return Long.parseLong(getProperty("adaptive.min.free.mb", "1024"));
+    }
+
     public static String getEnvironment() {
         return getProperty("environment", "test");
     }
@@ -101,6 +367,113 @@ public class ConfigReader {
         return getProperty("hub.url", "http://localhost:4444/wd/hub");
     }
 
+    // Grid slot dispatch settings
+    public static boolean isGridDispatchEnabled() {
+        return Boolean.parseBoolean(getProperty("grid.dispatch.enabled", "true"));
+    }
+
+    public static String getGridStatusUrl() {
+        String url = System.getProperty("grid.status.url", getProperty("grid.status.url", ""));
+        if (url.isBlank()) {
+            String hub = getHubUrl();
+            url = (hub.endsWith("/") ? hub : hub + "/") + "status";
+        }
+        return url;
+    }
+
+    public static long getGridStatusPollMs() {
+        return Long.parseLong(getProperty("grid.status.poll.ms", "500"));
+    }
+
+    public static int getGridSlotWaitSeconds() {
+        return Integer.parseInt(getProperty("grid.slot.wait.seconds", "600"));
+    }
+
+    // HTTP transport settings (RemoteWebDriver/IOSDriver)
+    public static boolean isHttpPoolEnabled() {
+        return Boolean.parseBoolean(System.getProperty("http.pool.enabled", getProperty("http.pool.enabled", "true")));
+    }
+
+    // 0 = sized from the suite's parallel sessions (HttpPoolListener)
+    public static int getHttpPoolMaxPerRoute() {
+        return Integer.parseInt(System.getProperty("http.pool.max.per.route", getProperty("http.pool.max.per.route", "0")));
+    }
+
+    public static int getHttpPoolMaxTotal() {
+        return Integer.parseInt(getProperty("http.pool.max.total", "64"));
+    }
+
+    public static int getHttpPoolIdleSeconds() {
+        return Integer.parseInt(getProperty("http.pool.idle.seconds", "20"));
+    }
+
+    public static int getHttpConnectTimeoutSeconds() {
+        return Integer.parseInt(getProperty("http.connect.timeout.seconds", "10"));
+    }
+
+    public static int getHttpPoolLeaseTimeoutSeconds() {
+        return Integer.parseInt(System.getProperty("http.pool.lease.timeout.seconds",
+                getProperty("http.pool.lease.timeout.seconds", "60")));
+    }
+
+    public static int getHttpNewSessionTimeoutSeconds() {
+        return Integer.parseInt(getProperty("http.new.session.timeout.seconds", "300"));
+    }
+
+    public static int getHttpCommandTimeoutSeconds() {
+        return Integer.parseInt(getProperty("http.command.timeout.seconds", "180"));
+    }
+
+    public static int getHttpQuitTimeoutSeconds() {
+        return Integer.parseInt(getProperty("http.quit.timeout.seconds", "30"));
+    }
+
+    // Fake driver settings (in-process scripted WebDriver, e.g. -Dfake.driver.enabled=true)
+    public static boolean isFakeDriverEnabled() {
+        return Boolean.parseBoolean(System.getProperty("fake.driver.enabled", getProperty("fake.driver.enabled", "false")));
+    }
+
+    public static boolean isFakeWireEnabled() {
+        return Boolean.parseBoolean(System.getProperty("fake.driver.wire", getProperty("fake.driver.wire", "false")));
+    }
+
+    public static String getFakeDomFile(String platform) {
+        String key = "fake.dom." + platform.toLowerCase();
+        return System.getProperty(key, getProperty(key, "src/main/resources/fake/" + platform.toLowerCase() + "-login.json"));
+    }
+
+    public static String getFakeLatencyDistribution() {
+        return System.getProperty("fake.latency.distribution", getProperty("fake.latency.distribution", "lognormal")).toLowerCase();
+    }
+
+    public static double getFakeLatencyMedianMs() {
+        return Double.parseDouble(System.getProperty("fake.latency.median.ms", getProperty("fake.latency.median.ms", "3")));
+    }
+
+    public static double getFakeLatencyP99Ms() {
+        return Double.parseDouble(System.getProperty("fake.latency.p99.ms", getProperty("fake.latency.p99.ms", "25")));
+    }
+
+    public static long getFakeElementDelayMs() {
+        return Long.parseLong(System.getProperty("fake.element.delay.ms", getProperty("fake.element.delay.ms", "200")));
+    }
+
+    public static double getFakeFailureRate() {
+        return Double.parseDouble(System.getProperty("fake.failure.rate", getProperty("fake.failure.rate", "0")));
+    }
+
+    public static double getFakeStaleRate() {
+        return Double.parseDouble(System.getProperty("fake.stale.rate", getProperty("fake.stale.rate", "0")));
+    }
+
+    public static long getFakeSeed() {
+        return Long.parseLong(System.getProperty("fake.seed", getProperty("fake.seed", "42")));
+    }
+
+    public static long getFakeEmailDelayMs() {
+        return Long.parseLong(System.getProperty("fake.email.delay.ms", getProperty("fake.email.delay.ms", "500")));
+    }
+
     // Email/Gmail settings
     public static boolean isEmailVerificationEnabled() {
         return Boolean.parseBoolean(getProperty("email.verification.enabled", "false"));
@@ -156,6 +529,24 @@ public class ConfigReader {
         return Integer.parseInt(getProperty("email.timeout.seconds", "120"));
     }
 
+    // Upper bound of concurrent IMAP sessions (Gmail allows ~15 per account)
+    public static int getEmailMaxConnections() {
+        return Integer.parseInt(System.getProperty("email.imap.max.connections", getProperty("email.imap.max.connections", "10")));
+    }
+
+    public static String getEmailImapHost() {
+        return System.getProperty("email.imap.host", getProperty("email.imap.host", "imap.gmail.com"));
+    }
+
+    public static int getEmailImapPort() {
+        return Integer.parseInt(System.getProperty("email.imap.port", getProperty("email.imap.port", "993")));
+    }
+
+    // false: plain IMAP (local stand-ins only)
+    public static boolean isEmailImapSsl() {
+        return Boolean.parseBoolean(System.getProperty("email.imap.ssl", getProperty("email.imap.ssl", "true")));
+    }
+
     // Login email (platform-specific override, falls back to global -> email.account)
     public static String getLoginEmail() {
         String platform = getPlatform();
@@ -1,21 +1,30 @@
 package core;
 
 import enums.BrowserType;
+import enums.InfrastructureType;
 import enums.PlatformType;
+import enums.TimingPhase;
+import fake.FakeDriver;
+import fake.FakeWireServer;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.ios.IOSDriver;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Collections;
 
 /**
  * Factory class for WebDriver management with local and remote execution support
@@ -35,55 +44,137 @@ public class DriverFactory {
      * Initialize WebDriver based on configuration
      */
     public static void initializeDriver() {
+        boolean gridSlot = GridSlotDispatcher.isActive() && !ConfigReader.isFakeDriverEnabled()
+                && PlatformType.fromString(ConfigReader.getPlatform()) == PlatformType.WEB;
+        if (!gridSlot) {
+            PhaseTimer.time(TimingPhase.DRIVER, DriverFactory::startDriver);
+            return;
+        }
+        // Time in the slot queue is reported as its own phase, not as session start
+        String browser = ConfigReader.getBrowser();
+        PhaseTimer.time(TimingPhase.GRID_QUEUE, () -> GridSlotDispatcher.acquire(browser));
+        try {
+            PhaseTimer.time(TimingPhase.DRIVER, DriverFactory::startDriver);
+        } finally {
+            GridSlotDispatcher.settle(browser);
+        }
+    }
+
+    private static void startDriver() {
         PlatformType platformType = PlatformType.fromString(ConfigReader.getPlatform());
+        // Sees every command of the new session on the wire, for the watchdog and profiler
+        CommandHook hook = new CommandHook();
         WebDriver driver;
 
         switch (platformType) {
             case WEB:
                 BrowserType browserType = BrowserType.fromString(ConfigReader.getBrowser());
-                if (ConfigReader.isRemoteExecution()) {
-                    driver = createRemoteDriver(browserType);
+                if (ConfigReader.isFakeDriverEnabled()) {
+                    // Hermetic run: scripted in-process driver, no infrastructure to guard with a breaker
+                    driver = createFakeDriver(platformType, hook);
+                } else if (ConfigReader.isRemoteExecution()) {
+                    driver = CircuitBreaker.of(InfrastructureType.SELENIUM_GRID).call(() -> createRemoteDriver(browserType, hook));
+                } else if (ConfigReader.isBrowserContextMode() && browserType == BrowserType.CHROME) {
+                    // Isolated context in the shared Chrome instead of a new browser process
+                    driver = CircuitBreaker.of(InfrastructureType.LOCAL_BROWSER).call(() -> SharedBrowser.newContext(hook));
                 } else {
-                    driver = createLocalDriver(browserType);
+                    driver = CircuitBreaker.of(InfrastructureType.LOCAL_BROWSER).call(() -> createLocalDriver(browserType, hook));
                 }
-                // Anti-detection: hide navigator.webdriver via CDP on Chrome
-                try {
-                    if (driver instanceof org.openqa.selenium.chrome.ChromeDriver) {
-                        java.util.Map<String, Object> params = new java.util.HashMap<>();
-                        params.put("source", "Object.defineProperty(navigator, 'webdriver', {get: () => undefined})");
-                        ((org.openqa.selenium.chrome.ChromeDriver) driver)
-                                .executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
-                    }
-                } catch (Exception ignored) {
-                }
-                // Maximize window for web
-                driver.manage().window().maximize();
                 break;
             
             case IOS:
-                driver = createIOSDriver();
+                driver = ConfigReader.isFakeDriverEnabled() ? createFakeDriver(platformType, hook)
+                        : CircuitBreaker.of(InfrastructureType.APPIUM_SERVER).call(() -> createIOSDriver(hook));
                 break;
             
             default:
                 throw new IllegalArgumentException("Unsupported platform type: " + platformType);
         }
 
-        // Set implicit wait
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigReader.getImplicitWait()));
+        // The session exists from here on: if preparing it fails, it is quit instead of left open on the Grid/Appium
+        RunMetrics.activeSessions.increment();
+        GridSlotDispatcher.sessionStarted(driver);
+        try {
+            if (platformType == PlatformType.WEB) {
+                prepareWindow(driver);
+            }
+            ResourceSampler.track(driver);
+            SessionWatchdog.watch(driver, hook);
+            if (ConfigReader.isProfilerEnabled()) {
+                CommandProfiler.attach(driver, hook);
+            }
+
+            // Set implicit wait
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigReader.getImplicitWait()));
+        } catch (RuntimeException | Error e) {
+            logger.error("Driver setup failed, quitting the new session: {}", e.getMessage());
+            release(driver);
+            throw e;
+        }
 
         driverThreadLocal.set(driver);
-        logger.info("Driver initialized successfully: Platform={}, Remote={}", 
-                   platformType.getPlatformName(), ConfigReader.isRemoteExecution());
+        logger.info("Driver initialized successfully: Platform={}, Remote={}, Fake={}", 
+                   platformType.getPlatformName(), ConfigReader.isRemoteExecution(), ConfigReader.isFakeDriverEnabled());
+    }
+
+    /**
+     * Anti-detection (hide navigator.webdriver via CDP on Chrome) and a maximized window
+     */
+    private static void prepareWindow(WebDriver driver) {
+        try {
+            if (driver instanceof org.openqa.selenium.chrome.ChromeDriver) {
+                java.util.Map<String, Object> params = new java.util.HashMap<>();
+                params.put("source", "Object.defineProperty(navigator, 'webdriver', {get: () => undefined})");
+                ((org.openqa.selenium.chrome.ChromeDriver) driver)
+                        .executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+            }
+        } catch (Exception ignored) {
+        }
+        // Maximize window for web
+        driver.manage().window().maximize();
+    }
+
+    /**
+     * Restore the account's saved session into the current driver; call before the first navigation
+     * @return false when there is no valid snapshot and a real login is needed
+     */
+    public static boolean restoreSession(String account) {
+        WebDriver driver = driverThreadLocal.get();
+        if (driver == null || PlatformType.fromString(ConfigReader.getPlatform()) != PlatformType.WEB) {
+            return false;
+        }
+        return SessionSnapshot.restore(driver, account);
+    }
+
+    /**
+     * Hermetic session: the scripted FakeDriver in process or, with fake.driver.wire, a real RemoteWebDriver/IOSDriver
+     * client of it over HTTP (FakeWireServer) with the same transport and hook as a Grid or Appium session
+     */
+    private static WebDriver createFakeDriver(PlatformType platformType, CommandHook hook) {
+        if (!ConfigReader.isFakeWireEnabled()) {
+            return new FakeDriver(platformType, hook);
+        }
+        URL url = FakeWireServer.start();
+        HttpClient.Factory factory = hook.applyTo(HttpTransport.factory());
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        if (platformType == PlatformType.IOS) {
+            capabilities.setCapability("platformName", "iOS");
+            capabilities.setCapability("appium:automationName", "XCUITest");
+            return new IOSDriver(url, factory, capabilities);
+        }
+        capabilities.setBrowserName("fake");
+        return new RemoteWebDriver(new HttpCommandExecutor(Collections.emptyMap(), url, factory), capabilities);
     }
 
     /**
      * Create local WebDriver instance
      */
-    private static WebDriver createLocalDriver(BrowserType browserType) {
+    private static WebDriver createLocalDriver(BrowserType browserType, CommandHook hook) {
         switch (browserType) {
             case CHROME:
                 WebDriverManager.chromedriver().setup();
-                return new ChromeDriver(getChromeOptions());
+                return new ChromeDriver(ChromeDriverService.createDefaultService(), getChromeOptions(),
+                        hook.applyTo(ClientConfig.defaultConfig()));
             
             default:
                 throw new IllegalArgumentException("Unsupported browser type: " + browserType);
@@ -93,13 +184,14 @@ public class DriverFactory {
     /**
      * Create remote WebDriver instance for Selenium Grid
      */
-    private static WebDriver createRemoteDriver(BrowserType browserType) {
+    private static WebDriver createRemoteDriver(BrowserType browserType, CommandHook hook) {
         try {
             URL hubUrl = new URL(ConfigReader.getHubUrl());
             
             switch (browserType) {
                 case CHROME:
-                    return new RemoteWebDriver(hubUrl, getChromeOptions());
+                    return new RemoteWebDriver(new HttpCommandExecutor(Collections.emptyMap(), hubUrl,
+                            hook.applyTo(HttpTransport.factory())), getChromeOptions());
                 
                 default:
                     throw new IllegalArgumentException("Unsupported browser type for remote execution: " + browserType);
@@ -110,9 +202,9 @@ public class DriverFactory {
     }
 
     /**
-     * Get Chrome options with common configurations
+     * Get Chrome options with common configurations (also used to launch the shared browser and by benchmarks)
      */
-    private static ChromeOptions getChromeOptions() {
+    public static ChromeOptions getChromeOptions() {
         ChromeOptions options = new ChromeOptions();
         
         if (ConfigReader.isHeadless()) {
@@ -145,7 +237,7 @@ public class DriverFactory {
     /**
      * Create iOS AppiumDriver instance
      */
-    private static AppiumDriver createIOSDriver() {
+    private static AppiumDriver createIOSDriver(CommandHook hook) {
         try {
             DesiredCapabilities capabilities = new DesiredCapabilities();
             
@@ -172,7 +264,7 @@ public class DriverFactory {
             capabilities.setCapability("appium:wdaStartupRetryInterval", 20000);
             
             URL appiumUrl = new URL(ConfigReader.getAppiumServerUrl());
-            return new IOSDriver(appiumUrl, capabilities);
+            return new IOSDriver(appiumUrl, hook.applyTo(HttpTransport.factory()), capabilities);
             
         } catch (MalformedURLException e) {
             throw new RuntimeException("Invalid Appium server URL: " + ConfigReader.getAppiumServerUrl(), e);
@@ -180,19 +272,25 @@ public class DriverFactory {
     }
 
     /**
-     * Quit WebDriver and remove from ThreadLocal
+     * Detach the WebDriver from this thread and hand it to the background reaper (DriverReaper)
+     * The test thread returns immediately; quit errors are logged by the reaper.
      */
     public static void quitDriver() {
         WebDriver driver = driverThreadLocal.get();
         if (driver != null) {
-            try {
-                driver.quit();
-                logger.info("WebDriver closed successfully");
-            } catch (Exception e) {
-                logger.error("Error while closing WebDriver: {}", e.getMessage());
-            } finally {
-                driverThreadLocal.remove();
-            }
+            driverThreadLocal.remove();
+            release(driver);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-thread bookkeeping is released here, the slow quit runs in the background
+     */
+    private static void release(WebDriver driver) {
+        SessionWatchdog.release();
+        ResourceSampler.release();
+        ElementCache.release(driver);
+        CommandProfiler.release(driver);
+        DriverReaper.quit(driver, SharedBrowser.detachCurrentContext(), AdmissionController.handOff());
+    }
+}
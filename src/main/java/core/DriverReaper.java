@@ -0,0 +1,156 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Background teardown of driver sessions (driver.reaper.*)
+ * driver.quit() on Chrome or a WDA session takes seconds; the test thread hands the session to the reaper and
+ * continues with the next test. At most driver.reaper.max.pending quits are outstanding: beyond that the handing
+ * thread waits for a free slot, so slow quits cannot pile up browsers. A shutdown hook drains the queue.
+ * The test's admission slot (AdmissionController) is released only once its quit has finished.
+ */
+public final class DriverReaper {
+    private static final Logger logger = LogManager.getLogger(DriverReaper.class);
+    static final String TEMP_PROFILE_PREFIX = "selenium-chrome-profile-";
+    private static final AtomicInteger threadIds = new AtomicInteger();
+    private static final Semaphore slots = new Semaphore(ConfigReader.getDriverReaperMaxPending());
+    private static final ExecutorService executor = Executors.newFixedThreadPool(ConfigReader.getDriverReaperThreads(), task -> {
+        Thread thread = new Thread(task, "driver-reaper-" + threadIds.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(ConfigReader.getDriverReaperDrainSeconds()),
+                "driver-reaper-drain"));
+    }
+
+    private DriverReaper() {}
+
+    /**
+     * Quit the session in the background; contextId is the shared-browser context to dispose (null in process mode)
+     * @param onClosed run once the session is closed (AdmissionController.handOff())
+     */
+    static void quit(WebDriver driver, String contextId, Runnable onClosed) {
+        // Resolve the profile now: capabilities are gone once the session has quit
+        Path tempProfile = contextId == null && !ConfigReader.isRemoteExecution() ? tempProfile(driver) : null;
+        Runnable teardown = () -> teardown(driver, contextId, tempProfile, onClosed);
+        if (!ConfigReader.isDriverReaperEnabled()) {
+            teardown.run();
+            return;
+        }
+        try {
+            if (!slots.tryAcquire()) {
+                logger.debug("Driver reaper full ({} pending), waiting for a slot", ConfigReader.getDriverReaperMaxPending());
+                slots.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            teardown.run();
+            return;
+        }
+        RunMetrics.pendingQuits.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    teardown.run();
+                } finally {
+                    RunMetrics.pendingQuits.decrement();
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor already shut down (JVM exiting)
+            RunMetrics.pendingQuits.decrement();
+            slots.release();
+            teardown.run();
+        }
+    }
+
+    private static void teardown(WebDriver driver, String contextId, Path tempProfile, Runnable onClosed) {
+        long start = System.currentTimeMillis();
+        try {
+            driver.quit();
+            logger.info("WebDriver closed successfully ({} ms)", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            RunMetrics.driverQuitErrors.increment();
+            logger.error("Error while closing WebDriver: {}", e.getMessage());
+            EventLog.emit("driver_quit_error", "error", e.getMessage());
+        } finally {
+            if (contextId != null) {
+                SharedBrowser.disposeContext(contextId);
+            }
+            if (tempProfile != null) {
+                deleteQuietly(tempProfile);
+            }
+            GridSlotDispatcher.released(driver);
+            RunMetrics.driverQuit.observe(System.currentTimeMillis() - start);
+            RunMetrics.activeSessions.decrement();
+            onClosed.run();
+        }
+    }
+
+    /**
+     * Wait until all handed-off sessions are closed
+     * @return false when sessions were still closing at the timeout
+     */
+    public static boolean drain(int timeoutSeconds) {
+        int permits = ConfigReader.getDriverReaperMaxPending();
+        try {
+            if (slots.tryAcquire(permits, timeoutSeconds, TimeUnit.SECONDS)) {
+                slots.release(permits);
+                return true;
+            }
+            logger.warn("Driver reaper: {} sessions still closing after {} s", RunMetrics.pendingQuits.sum(), timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * The per-session temp profile from DriverFactory.getChromeOptions(), as reported by chromedriver
+     */
+    @SuppressWarnings("unchecked")
+    static Path tempProfile(WebDriver driver) {
+        if (!(driver instanceof HasCapabilities)) {
+            return null;
+        }
+        try {
+            Object chrome = ((HasCapabilities) driver).getCapabilities().getCapability("chrome");
+            Object dir = chrome instanceof Map ? ((Map<String, Object>) chrome).get("userDataDir") : null;
+            if (dir == null) {
+                return null;
+            }
+            Path profile = Paths.get(dir.toString());
+            // Never touch a profile this framework did not create
+            return profile.getFileName() != null && profile.getFileName().toString().startsWith(TEMP_PROFILE_PREFIX) ? profile : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void deleteQuietly(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.debug("Could not delete temp profile {}: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-session cache of resolved elements (opt-in via element.cache.enabled)
+ * Entries are keyed by locator, parent scope and the current document/screen epoch. A hit costs no round trip:
+ * cached references re-resolve themselves when an action on them fails because the node went stale or was hidden
+ * (a click can change the page without a navigation, an SPA or iOS screen keeps old nodes attached), and a
+ * click or submit through a cached element starts a new epoch.
+ */
+public class ElementCache {
+    private static final Logger logger = LogManager.getLogger(ElementCache.class);
+    private static final Map<WebDriver, ElementCache> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Key, CachedElement> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger documentEpoch = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleRefreshes = new AtomicLong();
+
+    /**
+     * Get the cache bound to the given driver session
+     */
+    public static ElementCache forDriver(WebDriver driver) {
+        return caches.computeIfAbsent(driver, d -> new ElementCache());
+    }
+
+    /**
+     * Drop the cache of a session and log its hit rate (called on quit)
+     */
+    public static void release(WebDriver driver) {
+        ElementCache cache = caches.remove(driver);
+        if (cache != null && cache.hits.get() + cache.misses.get() > 0) {
+            logger.info("Element cache stats: {}", cache.getStats());
+        }
+    }
+
+    /**
+     * Return the cached element for locator in the current document, resolving it on a miss
+     * @param locator element locator
+     * @param resolver lookup used on a miss and for stale re-resolution (usually a wait)
+     */
+    public WebElement get(By locator, Supplier<WebElement> resolver) {
+        return get(null, locator, resolver);
+    }
+
+    /**
+     * Return the cached element for locator under a parent scope (e.g. OTP container)
+     */
+    public WebElement get(SearchContext parent, By locator, Supplier<WebElement> resolver) {
+        Key key = new Key(documentEpoch.get(), locator, parent);
+        CachedElement cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            logger.debug("Element cache hit: {}", locator);
+            return cached;
+        }
+        misses.incrementAndGet();
+        CachedElement created = new CachedElement(locator, resolver, resolver.get());
+        entries.put(key, created);
+        return created;
+    }
+
+    /**
+     * Store an element resolved by a broader lookup (e.g. all OTP boxes at once) under its own locator,
+     * so the next get for that locator is a hit instead of another find round trip
+     * @param locator locator the element is cached under (also used for stale re-resolution)
+     * @param element already resolved element
+     * @param resolver lookup used for stale re-resolution
+     */
+    public WebElement put(By locator, WebElement element, Supplier<WebElement> resolver) {
+        CachedElement created = new CachedElement(locator, resolver, element);
+        entries.put(new Key(documentEpoch.get(), locator, null), created);
+        return created;
+    }
+
+    /**
+     * Mark a document/screen change; entries of the previous document are discarded
+     */
+    public void invalidate() {
+        documentEpoch.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    public String getStats() {
+        return String.format("hits=%d, misses=%d, staleRefreshes=%d, hitRate=%.1f%%",
+                hits.get(), misses.get(), staleRefreshes.get(), getHitRate() * 100);
+    }
+
+    /**
+     * Document epoch, locator and parent scope (compared by identity) of an entry
+     */
+    private static final class Key {
+        private final int epoch;
+        private final By locator;
+        private final SearchContext parent;
+
+        Key(int epoch, By locator, SearchContext parent) {
+            this.epoch = epoch;
+            this.locator = locator;
+            this.parent = parent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return epoch == other.epoch && parent == other.parent && locator.equals(other.locator);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(epoch, locator, System.identityHashCode(parent));
+        }
+    }
+
+    /**
+     * Element reference that re-resolves through its locator when it went stale or its node is no longer interactable
+     */
+    private class CachedElement implements WebElement, WrapsElement {
+        private final By locator;
+        private final Supplier<WebElement> resolver;
+        private volatile WebElement delegate;
+
+        CachedElement(By locator, Supplier<WebElement> resolver, WebElement delegate) {
+            this.locator = locator;
+            this.resolver = resolver;
+            this.delegate = delegate;
+        }
+
+        private <T> T call(java.util.function.Function<WebElement, T> action) {
+            try {
+                return action.apply(delegate);
+            } catch (StaleElementReferenceException | ElementNotInteractableException e) {
+                staleRefreshes.incrementAndGet();
+                logger.debug("Cached element went stale or hidden, re-resolving: {}", locator);
+                delegate = resolver.get();
+                return action.apply(delegate);
+            }
+        }
+
+        private void run(java.util.function.Consumer<WebElement> action) {
+            call(e -> {
+                action.accept(e);
+                return null;
+            });
+        }
+
+        @Override
+        public WebElement getWrappedElement() {
+            return delegate;
+        }
+
+        @Override
+        public void click() {
+            run(WebElement::click);
+            // May have opened another page or screen
+            invalidate();
+        }
+
+        @Override
+        public void submit() {
+            run(WebElement::submit);
+            invalidate();
+        }
+
+        @Override
+        public void sendKeys(CharSequence... keysToSend) {
+            run(e -> e.sendKeys(keysToSend));
+        }
+
+        @Override
+        public void clear() {
+            run(WebElement::clear);
+        }
+
+        @Override
+        public String getTagName() {
+            return call(WebElement::getTagName);
+        }
+
+        @Override
+        public String getDomProperty(String name) {
+            return call(e -> e.getDomProperty(name));
+        }
+
+        @Override
+        public String getDomAttribute(String name) {
+            return call(e -> e.getDomAttribute(name));
+        }
+
+        @Override
+        public String getAttribute(String name) {
+            return call(e -> e.getAttribute(name));
+        }
+
+        @Override
+        public String getAriaRole() {
+            return call(WebElement::getAriaRole);
+        }
+
+        @Override
+        public String getAccessibleName() {
+            return call(WebElement::getAccessibleName);
+        }
+
+        @Override
+        public boolean isSelected() {
+            return call(WebElement::isSelected);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return call(WebElement::isEnabled);
+        }
+
+        @Override
+        public String getText() {
+            return call(WebElement::getText);
+        }
+
+        @Override
+        public List<WebElement> findElements(By by) {
+            return call(e -> e.findElements(by));
+        }
+
+        @Override
+        public WebElement findElement(By by) {
+            return call(e -> e.findElement(by));
+        }
+
+        @Override
+        public boolean isDisplayed() {
+            return call(WebElement::isDisplayed);
+        }
+
+        @Override
+        public Point getLocation() {
+            return call(WebElement::getLocation);
+        }
+
+        @Override
+        public Dimension getSize() {
+            return call(WebElement::getSize);
+        }
+
+        @Override
+        public Rectangle getRect() {
+            return call(WebElement::getRect);
+        }
+
+        @Override
+        public String getCssValue(String propertyName) {
+            return call(e -> e.getCssValue(propertyName));
+        }
+
+        @Override
+        public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+            return call(e -> e.getScreenshotAs(target));
+        }
+
+        @Override
+        public String toString() {
+            return "CachedElement[" + locator + "]";
+        }
+    }
+}
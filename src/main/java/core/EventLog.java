@@ -0,0 +1,214 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Machine-readable run event stream: compact JSON lines appended to a pre-allocated, memory-mapped file
+ * Writers reserve their slot with a single atomic add and copy into the mapping, so an event costs no lock
+ * and no system call. The first byte of a line is written last: readers stop at the first zero byte and
+ * never see half-written lines. The file is truncated to its used length when the suite finishes, after the
+ * writers still copying into their slots are done.
+ */
+public final class EventLog {
+    private static final Logger logger = LogManager.getLogger(EventLog.class);
+    private static final long CLOSED = Long.MAX_VALUE / 2;
+    private static final AtomicLong position = new AtomicLong(CLOSED);
+    // Start of the first slot that did not fit: the log ends there, not at the capacity
+    private static final AtomicLong fullAt = new AtomicLong(CLOSED);
+    private static final LongAdder dropped = new LongAdder();
+    // Writers between reserving a slot and finishing their copy; close() waits for them before truncating
+    private static final LongAdder writers = new LongAdder();
+    private static final long WRITER_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static volatile MappedByteBuffer buffer;
+    private static RandomAccessFile file;
+    private static int openCount;
+
+    private EventLog() {}
+
+    /**
+     * Map a fresh event file (no-op when disabled, on distributed workers or when already open)
+     */
+    public static synchronized void open() {
+        if (openCount++ > 0 || !ConfigReader.isEventLogEnabled() || Boolean.getBoolean("dist.worker")) {
+            return;
+        }
+        File target = new File(ConfigReader.getEventLogFile());
+        long capacity = Math.min(ConfigReader.getEventLogSizeMb() * 1024L * 1024L, Integer.MAX_VALUE);
+        try {
+            if (target.getParentFile() != null) {
+                target.getParentFile().mkdirs();
+            }
+            file = new RandomAccessFile(target, "rw");
+            file.setLength(0);
+            file.setLength(capacity);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            dropped.reset();
+            fullAt.set(CLOSED);
+            position.set(0);
+            logger.info("Event log: {} ({} MB reserved)", target.getPath(), capacity / (1024 * 1024));
+        } catch (IOException e) {
+            logger.warn("Event log disabled, could not map {}: {}", target.getPath(), e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Flush the mapping and truncate the file to the written length
+     */
+    public static synchronized void close() {
+        if (openCount == 0 || --openCount > 0 || buffer == null) {
+            return;
+        }
+        // Writers that reserve from now on land beyond the capacity and are dropped
+        long reserved = position.getAndSet(CLOSED);
+        MappedByteBuffer mapped = buffer;
+        buffer = null;
+        awaitWriters();
+        long end = Math.min(Math.min(reserved, mapped.capacity()), fullAt.get());
+        try {
+            mapped.force();
+            file.getChannel().truncate(end);
+        } catch (IOException e) {
+            logger.warn("Could not truncate event log: {}", e.getMessage());
+        }
+        if (dropped.sum() > 0) {
+            logger.warn("Event log full: {} events dropped (event.log.size.mb)", dropped.sum());
+        }
+        closeQuietly();
+    }
+
+    /**
+     * Wait for writers that reserved a slot before the close to finish copying (a copy takes microseconds)
+     */
+    private static void awaitWriters() {
+        long deadline = System.nanoTime() + WRITER_WAIT_NANOS;
+        while (writers.sum() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                logger.warn("Event log closed while {} events were still being written", writers.sum());
+                return;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private static void closeQuietly() {
+        buffer = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+            file = null;
+        }
+    }
+
+    /**
+     * Remember the test running on this thread; it is added to subsequent events of the thread
+     */
+    public static void setCurrentTest(String testName) {
+        currentTest.set(testName);
+    }
+
+    /**
+     * Append an event; fields are key/value pairs (numbers and booleans are written unquoted)
+     */
+    public static void emit(String type, Object... fields) {
+        if (buffer == null) {
+            return;
+        }
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"ts\":").append(System.currentTimeMillis());
+        json.append(",\"type\":");
+        quote(json, type);
+        json.append(",\"thread\":");
+        quote(json, Thread.currentThread().getName());
+        String test = currentTest.get();
+        if (test != null) {
+            json.append(",\"test\":");
+            quote(json, test);
+        }
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            Object value = fields[i + 1];
+            if (value == null) {
+                continue;
+            }
+            json.append(',');
+            quote(json, String.valueOf(fields[i]));
+            json.append(':');
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                quote(json, value.toString());
+            }
+        }
+        json.append("}\n");
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Registered before the slot is reserved, so close() sees every writer that got a slot below its end
+        writers.increment();
+        try {
+            MappedByteBuffer mapped = buffer;
+            if (mapped == null) {
+                return;
+            }
+            long start = position.getAndAdd(bytes.length);
+            if (start + bytes.length > mapped.capacity()) {
+                if (start < mapped.capacity()) {
+                    fullAt.accumulateAndGet(start, Math::min);
+                }
+                dropped.increment();
+                return;
+            }
+            mapped.put((int) start + 1, bytes, 1, bytes.length - 1);
+            VarHandle.releaseFence();
+            mapped.put((int) start, bytes[0]);
+        } finally {
+            writers.decrement();
+        }
+    }
+
+    private static void quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,84 @@
+package core;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named chain of alternative locators for the same logical element
+ * Alternatives are probed together; the order is ranked by persisted success statistics (see LocatorStats)
+ */
+public class FallbackLocator {
+    private final String name;
+    private final Map<String, By> alternatives = new LinkedHashMap<>();
+
+    public FallbackLocator(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add an alternative; declaration order is used as tie-breaker when no history exists
+     * @param label stable alternative name (used as statistics key)
+     * @param locator locator of the alternative
+     */
+    public FallbackLocator or(String label, By locator) {
+        alternatives.put(label, locator);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, By> getAlternatives() {
+        return Collections.unmodifiableMap(alternatives);
+    }
+
+    /**
+     * Alternative labels ordered by historical success for current platform/app version
+     */
+    public List<String> rankedLabels() {
+        List<String> labels = new ArrayList<>(alternatives.keySet());
+        return LocatorStats.rank(name, labels);
+    }
+
+    @Override
+    public String toString() {
+        return "FallbackLocator[" + name + ": " + alternatives.keySet() + "]";
+    }
+
+    /**
+     * Matched alternative together with the resolved element
+     */
+    public static class Match {
+        private final String chainName;
+        private final String label;
+        private final WebElement element;
+
+        public Match(String chainName, String label, WebElement element) {
+            this.chainName = chainName;
+            this.label = label;
+            this.element = element;
+        }
+
+        /**
+         * Count this alternative as a success of its chain (ranks it higher in later runs)
+         */
+        public void confirm() {
+            LocatorStats.recordSuccess(chainName, label);
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public WebElement getElement() {
+            return element;
+        }
+    }
+}
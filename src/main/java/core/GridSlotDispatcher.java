@@ -0,0 +1,234 @@
+package core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Grid slot dispatch for remote execution (grid.dispatch.*)
+ * Free slots per browser are read from the Grid /status endpoint; test threads wait here in FIFO order per browser
+ * and a new session is only requested when a slot is free, instead of sitting in the Grid's new-session queue.
+ * The waiting thread at the head of a queue polls /status every grid.status.poll.ms. When /status cannot be read,
+ * sessions are requested right away (the Grid circuit breaker then handles an unreachable hub).
+ * A slot belongs to the acquiring thread until a session is created on it (sessionStarted), then to that session:
+ * settle() gives back a slot no session was created on, the session's quit (released) gives back the others.
+ */
+public final class GridSlotDispatcher {
+    private static final Logger logger = LogManager.getLogger(GridSlotDispatcher.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Duration STATUS_TIMEOUT = Duration.ofSeconds(3);
+    private static final HttpClient http = HttpClient.newBuilder().connectTimeout(STATUS_TIMEOUT).build();
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition changed = lock.newCondition();
+    private static final Map<String, BrowserQueue> queues = new HashMap<>();
+    // Slot acquired by this thread that no session was created on yet
+    private static final ThreadLocal<String> heldSlot = new ThreadLocal<>();
+    // Sessions created on a dispatched slot (by identity) and their browser
+    private static final Map<WebDriver, String> dispatched = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Free slots per browser name: the last /status, minus slots handed out and plus slots released since
+    private static Map<String, Integer> freeSlots = new HashMap<>();
+    private static long polledAtNanos;
+    private static boolean polling;
+    private static boolean statusAvailable = true;
+
+    private GridSlotDispatcher() {}
+
+    /**
+     * True when remote sessions go through the dispatcher
+     */
+    public static boolean isActive() {
+        return ConfigReader.isRemoteExecution() && ConfigReader.isGridDispatchEnabled();
+    }
+
+    /**
+     * Wait for a free Grid slot for the browser; every acquire must be followed by settle()
+     * @throws RuntimeException when no slot became free within grid.slot.wait.seconds
+     */
+    public static void acquire(String browser) {
+        String key = browser.toLowerCase(Locale.ROOT);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(ConfigReader.getGridSlotWaitSeconds());
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(ConfigReader.getGridStatusPollMs());
+        Object turn = new Object();
+        lock.lock();
+        try {
+            BrowserQueue queue = queues.computeIfAbsent(key, k -> new BrowserQueue());
+            queue.waiting.add(turn);
+            try {
+                while (true) {
+                    if (queue.waiting.peek() == turn) {
+                        if (!polling && System.nanoTime() - polledAtNanos >= pollNanos) {
+                            poll();
+                            continue;
+                        }
+                        if (!statusAvailable || freeSlots.getOrDefault(key, 0) > 0) {
+                            break;
+                        }
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new RuntimeException("No free Grid slot for " + key + " within "
+                                + ConfigReader.getGridSlotWaitSeconds() + " s (free slots: " + freeSlots + ")");
+                    }
+                    changed.awaitNanos(Math.min(remaining, pollNanos));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a Grid slot", e);
+            } finally {
+                queue.waiting.remove(turn);
+                changed.signalAll();
+            }
+            queue.starting++;
+            freeSlots.merge(key, -1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+        heldSlot.set(key);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        RunMetrics.gridSlotWait.observe(waitedMs);
+        if (waitedMs >= 1000) {
+            logger.info("Grid slot for {} after {} ms in queue", key, waitedMs);
+            EventLog.emit("grid_slot_wait", "browser", key, "waitMs", waitedMs);
+        }
+    }
+
+    /**
+     * A session was created on the slot this thread acquired: the slot now belongs to the session
+     * No-op for threads without a dispatched slot (local, fake and non-dispatched sessions).
+     */
+    public static void sessionStarted(WebDriver driver) {
+        String key = heldSlot.get();
+        if (key != null) {
+            heldSlot.remove();
+            dispatched.put(driver, key);
+        }
+    }
+
+    /**
+     * The session request for an acquired slot finished; a slot no session was created on is given back
+     */
+    public static void settle(String browser) {
+        String key = browser.toLowerCase(Locale.ROOT);
+        boolean unused = heldSlot.get() != null;
+        heldSlot.remove();
+        lock.lock();
+        try {
+            BrowserQueue queue = queues.get(key);
+            if (queue != null && queue.starting > 0) {
+                queue.starting--;
+            }
+            if (unused) {
+                freeSlots.merge(key, 1, Integer::sum);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A session has quit: if it was created on a dispatched slot, the slot is free again without waiting for the
+     * next /status
+     */
+    public static void released(WebDriver driver) {
+        String key = dispatched.remove(driver);
+        if (key == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            freeSlots.merge(key, 1, Integer::sum);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read /status without holding the lock; called with the lock held
+     */
+    private static void poll() {
+        polling = true;
+        lock.unlock();
+        Map<String, Integer> free = null;
+        try {
+            free = readFreeSlots(ConfigReader.getGridStatusUrl());
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Grid status unavailable: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.lock();
+            polling = false;
+        }
+        polledAtNanos = System.nanoTime();
+        if (free == null) {
+            if (statusAvailable) {
+                logger.warn("Grid /status not readable at {}, requesting sessions without slot checks",
+                        ConfigReader.getGridStatusUrl());
+            }
+            statusAvailable = false;
+        } else {
+            statusAvailable = true;
+            // A session still being requested may not show up in /status yet: keep the lower count until it has
+            for (Map.Entry<String, Integer> entry : free.entrySet()) {
+                BrowserQueue queue = queues.get(entry.getKey());
+                if (queue != null && queue.starting > 0) {
+                    entry.setValue(Math.min(entry.getValue(), freeSlots.getOrDefault(entry.getKey(), 0)));
+                }
+            }
+            freeSlots = free;
+        }
+        changed.signalAll();
+    }
+
+    /**
+     * Free slots per browser name of all nodes that are UP (browsers with only busy slots map to 0)
+     */
+    static Map<String, Integer> readFreeSlots(String statusUrl) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(statusUrl)).timeout(STATUS_TIMEOUT).GET().build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + statusUrl);
+        }
+        Map<String, Integer> free = new HashMap<>();
+        for (JsonNode node : mapper.readTree(response.body()).path("value").path("nodes")) {
+            if (!"UP".equalsIgnoreCase(node.path("availability").asText())) {
+                continue;
+            }
+            for (JsonNode slot : node.path("slots")) {
+                String browser = slot.path("stereotype").path("browserName").asText("").toLowerCase(Locale.ROOT);
+                boolean idle = slot.path("session").isMissingNode() || slot.path("session").isNull();
+                free.merge(browser, idle ? 1 : 0, Integer::sum);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Threads waiting for a browser's slots (head is served first) and sessions being requested
+     */
+    private static final class BrowserQueue {
+        private final ArrayDeque<Object> waiting = new ArrayDeque<>();
+        private int starting;
+    }
+}
@@ -0,0 +1,309 @@
+package core;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP transport for RemoteWebDriver (Grid) and IOSDriver (Appium) sessions (http.*)
+ * All sessions send their commands over one pool of keep-alive connections (idle connections are closed after
+ * http.pool.idle.seconds), instead of a new HTTP client with its own connections and threads per session. Each
+ * Grid/Appium server gets http.pool.max.per.route connections, by default one per parallel session plus one per
+ * driver reaper thread, so a command only waits for a connection (up to http.pool.lease.timeout.seconds) when the
+ * pool is undersized. Read timeouts are set per command type: new session, quit and all other commands.
+ * Opened connections, requests and latency per command type are exported through RunMetrics.
+ */
+public final class HttpTransport {
+    private static final Logger logger = LogManager.getLogger(HttpTransport.class);
+    // Set by Apache HttpClient itself (or meaningless once the body is re-encoded)
+    private static final Set<String> SKIPPED_HEADERS = Set.of("content-length", "host", "connection", "transfer-encoding");
+    // Sessions assumed when the suite did not report its parallelism
+    private static final int DEFAULT_PARALLEL_SESSIONS = 16;
+    private static HttpClient.Factory factory;
+    private static PoolingHttpClientConnectionManager connections;
+    private static int parallelSessions;
+
+    private HttpTransport() {}
+
+    /**
+     * Client factory for new driver sessions: the shared pool, or Selenium's default when http.pool.enabled=false
+     */
+    public static synchronized HttpClient.Factory factory() {
+        if (!ConfigReader.isHttpPoolEnabled()) {
+            return HttpClient.Factory.createDefault();
+        }
+        if (factory == null) {
+            CloseableHttpClient pool = createPool();
+            factory = config -> new SessionClient(pool, config);
+            logger.info("Shared HTTP transport: {} connections per server, {} total, idle {} s",
+                    connections.getDefaultMaxPerRoute(), connections.getMaxTotal(), ConfigReader.getHttpPoolIdleSeconds());
+        }
+        return factory;
+    }
+
+    /**
+     * Most sessions this JVM runs at once (the TestNG thread-count); sizes the pool when http.pool.max.per.route=0
+     */
+    public static synchronized void setParallelSessions(int sessions) {
+        parallelSessions = sessions;
+        if (connections != null) {
+            applyLimits();
+        }
+    }
+
+    /**
+     * Connections per server: every session may send a command while the reaper quits earlier sessions
+     */
+    static synchronized int maxPerRoute() {
+        int configured = ConfigReader.getHttpPoolMaxPerRoute();
+        if (configured > 0) {
+            return configured;
+        }
+        int sessions = parallelSessions > 0 ? parallelSessions : DEFAULT_PARALLEL_SESSIONS;
+        return sessions + ConfigReader.getDriverReaperThreads();
+    }
+
+    private static void applyLimits() {
+        int perRoute = maxPerRoute();
+        connections.setDefaultMaxPerRoute(perRoute);
+        connections.setMaxTotal(Math.max(perRoute, ConfigReader.getHttpPoolMaxTotal()));
+    }
+
+    private static CloseableHttpClient createPool() {
+        connections = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", new PlainConnectionSocketFactory() {
+                            @Override
+                            public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host,
+                                                        InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                                        HttpContext context) throws IOException {
+                                Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress,
+                                        localAddress, context);
+                                RunMetrics.httpConnectionsOpened.increment();
+                                return connected;
+                            }
+                        })
+                        .register("https", new SSLConnectionSocketFactory(SSLContexts.createDefault(),
+                                SSLConnectionSocketFactory.getDefaultHostnameVerifier()) {
+                            @Override
+                            public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host,
+                                                        InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                                        HttpContext context) throws IOException {
+                                Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress,
+                                        localAddress, context);
+                                RunMetrics.httpConnectionsOpened.increment();
+                                return connected;
+                            }
+                        })
+                        .build());
+        applyLimits();
+        // A connection idle for a while is checked before reuse, the server may have closed it
+        connections.setValidateAfterInactivity(1000);
+        return HttpClients.custom()
+                .setConnectionManager(connections)
+                .evictIdleConnections(ConfigReader.getHttpPoolIdleSeconds(), TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .disableContentCompression()
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Command type of a WebDriver request, by method and path relative to the server URL
+     */
+    enum CommandType {
+        NEW_SESSION, QUIT, COMMAND;
+
+        static CommandType of(HttpRequest request) {
+            String path = request.getUri().replaceAll("/+$", "");
+            if (request.getMethod() == HttpMethod.POST && path.endsWith("/session")) {
+                return NEW_SESSION;
+            }
+            if (request.getMethod() == HttpMethod.DELETE && path.matches(".*/session/[^/]+")) {
+                return QUIT;
+            }
+            return COMMAND;
+        }
+
+        int timeoutSeconds() {
+            switch (this) {
+                case NEW_SESSION:
+                    return ConfigReader.getHttpNewSessionTimeoutSeconds();
+                case QUIT:
+                    return ConfigReader.getHttpQuitTimeoutSeconds();
+                default:
+                    return ConfigReader.getHttpCommandTimeoutSeconds();
+            }
+        }
+
+        RunMetrics.Histogram histogram() {
+            switch (this) {
+                case NEW_SESSION:
+                    return RunMetrics.httpNewSession;
+                case QUIT:
+                    return RunMetrics.httpQuit;
+                default:
+                    return RunMetrics.httpCommand;
+            }
+        }
+    }
+
+    /**
+     * One driver's view of the shared pool; closing it (on quit) keeps the pooled connections open
+     */
+    private static final class SessionClient implements HttpClient {
+        private final CloseableHttpClient pool;
+        private final ClientConfig config;
+        private final HttpHandler handler;
+        private HttpClient socketClient;
+
+        private SessionClient(CloseableHttpClient pool, ClientConfig config) {
+            this.pool = pool;
+            this.config = config;
+            this.handler = config.filter().andFinally(this::send);
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            return handler.execute(request);
+        }
+
+        @Override
+        public synchronized WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            // WebSockets (BiDi/CDP through the Grid) are not pooled
+            if (socketClient == null) {
+                socketClient = HttpClient.Factory.createDefault().createClient(config);
+            }
+            return socketClient.openSocket(request, listener);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (socketClient != null) {
+                socketClient.close();
+                socketClient = null;
+            }
+        }
+
+        private HttpResponse send(HttpRequest request) {
+            CommandType type = CommandType.of(request);
+            HttpRequestBase outgoing = toApache(request);
+            outgoing.setConfig(RequestConfig.custom()
+                    .setConnectTimeout(ConfigReader.getHttpConnectTimeoutSeconds() * 1000)
+                    .setConnectionRequestTimeout(ConfigReader.getHttpPoolLeaseTimeoutSeconds() * 1000)
+                    .setSocketTimeout(type.timeoutSeconds() * 1000)
+                    .build());
+            long start = System.nanoTime();
+            try (CloseableHttpResponse response = pool.execute(outgoing)) {
+                HttpResponse converted = new HttpResponse().setStatus(response.getStatusLine().getStatusCode());
+                for (Header header : response.getAllHeaders()) {
+                    converted.addHeader(header.getName(), header.getValue());
+                }
+                // Reading the whole body hands the connection back to the pool
+                byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+                converted.setContent(Contents.bytes(body));
+                return converted;
+            } catch (ConnectionPoolTimeoutException e) {
+                // Not a slow server: every pooled connection to it stayed busy (a subclass of ConnectTimeoutException)
+                throw new WebDriverException("No free HTTP connection to " + outgoing.getURI().getAuthority()
+                        + " within http.pool.lease.timeout.seconds=" + ConfigReader.getHttpPoolLeaseTimeoutSeconds()
+                        + " (" + maxPerRoute() + " connections per server, raise http.pool.max.per.route)", e);
+            } catch (SocketTimeoutException | ConnectTimeoutException e) {
+                throw new TimeoutException(type + " request to " + outgoing.getURI() + " timed out", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                RunMetrics.httpRequests.increment();
+                type.histogram().observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+
+        private HttpRequestBase toApache(HttpRequest request) {
+            HttpRequestBase outgoing = newRequest(request.getMethod());
+            outgoing.setURI(resolve(request));
+            request.forEachHeader((name, value) -> {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                    outgoing.addHeader(name, value);
+                }
+            });
+            if (outgoing instanceof HttpEntityEnclosingRequestBase) {
+                ((HttpEntityEnclosingRequestBase) outgoing).setEntity(new ByteArrayEntity(Contents.bytes(request.getContent())));
+            }
+            return outgoing;
+        }
+
+        private URI resolve(HttpRequest request) {
+            String uri = request.getUri();
+            StringBuilder url = new StringBuilder(uri.startsWith("http://") || uri.startsWith("https://")
+                    ? uri : config.baseUri().toString().replaceAll("/$", "") + uri);
+            char separator = uri.contains("?") ? '&' : '?';
+            for (String name : request.getQueryParameterNames()) {
+                for (String value : request.getQueryParameters(name)) {
+                    url.append(separator).append(URLEncoder.encode(name, StandardCharsets.UTF_8))
+                            .append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                    separator = '&';
+                }
+            }
+            return URI.create(url.toString());
+        }
+
+        private static HttpRequestBase newRequest(HttpMethod method) {
+            String name = method.name();
+            if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+                return new HttpEntityEnclosingRequestBase() {
+                    @Override
+                    public String getMethod() {
+                        return name;
+                    }
+                };
+            }
+            return new HttpRequestBase() {
+                @Override
+                public String getMethod() {
+                    return name;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package core;
+
+import enums.InfrastructureType;
+
+/**
+ * Thrown without contacting the infrastructure when its circuit breaker is open
+ */
+public class InfrastructureUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final InfrastructureType type;
+
+    public InfrastructureUnavailableException(InfrastructureType type, String message) {
+        super(message);
+        this.type = type;
+    }
+
+    public InfrastructureType getType() {
+        return type;
+    }
+}
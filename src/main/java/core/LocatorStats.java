@@ -0,0 +1,138 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persisted success statistics for FallbackLocator alternatives
+ * Counts are kept per platform and app version in a properties file (locator.stats.file). Successes of this run are
+ * counted in memory and merged into the file once at suite end (flush), under a file lock so that parallel JVMs add
+ * up their counts instead of overwriting each other's.
+ */
+public final class LocatorStats {
+    private static final Logger logger = LogManager.getLogger(LocatorStats.class);
+    // ReentrantLock instead of synchronized: file I/O under a monitor would pin virtual threads
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Properties stats = new Properties();
+    // Successes recorded since the last flush, by key
+    private static final Map<String, Long> pending = new HashMap<>();
+    private static boolean loaded;
+
+    private LocatorStats() {}
+
+    /**
+     * Order labels by success count (descending), keeping declaration order on ties
+     */
+    public static List<String> rank(String chainName, List<String> labels) {
+        List<String> ranked = new ArrayList<>(labels);
+        ranked.sort(Comparator.comparingLong((String label) -> getSuccessCount(chainName, label)).reversed());
+        return ranked;
+    }
+
+    public static long getSuccessCount(String chainName, String label) {
+        lock.lock();
+        try {
+            ensureLoaded();
+            String key = key(chainName, label);
+            return Long.parseLong(stats.getProperty(key, "0")) + pending.getOrDefault(key, 0L);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that an alternative matched (in memory, persisted by flush)
+     */
+    public static void recordSuccess(String chainName, String label) {
+        lock.lock();
+        try {
+            pending.merge(key(chainName, label), 1L, Long::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add this run's successes to the statistics file (called at suite end)
+     */
+    public static void flush() {
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Path file = Paths.get(ConfigReader.getLocatorStatsFile());
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            // The stats file itself is replaced by a move, so the lock is held on a sibling file
+            try (FileChannel channel = FileChannel.open(dir.resolve(file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                Properties merged = read(file);
+                for (Map.Entry<String, Long> entry : pending.entrySet()) {
+                    long count = Long.parseLong(merged.getProperty(entry.getKey(), "0")) + entry.getValue();
+                    merged.setProperty(entry.getKey(), String.valueOf(count));
+                }
+                Path tmp = Files.createTempFile(dir, "locator-stats", ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    merged.store(out, "Fallback locator success counts (platform.appVersion.chain.alternative)");
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.debug("Merged {} locator statistics into {}", pending.size(), file);
+                stats.clear();
+                stats.putAll(merged);
+                loaded = true;
+                pending.clear();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to persist locator statistics to {}: {}", ConfigReader.getLocatorStatsFile(), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String key(String chainName, String label) {
+        return ConfigReader.getPlatform().toLowerCase() + "." + ConfigReader.getAppVersion() + "." + chainName + "." + label;
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        Path file = Paths.get(ConfigReader.getLocatorStatsFile());
+        stats.putAll(read(file));
+        logger.debug("Loaded {} locator statistics from {}", stats.size(), file);
+    }
+
+    private static Properties read(Path file) {
+        Properties properties = new Properties();
+        if (!Files.exists(file)) {
+            return properties;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warn("Failed to load locator statistics from {}: {}", file, e.getMessage());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,160 @@
+package core;
+
+import enums.TimingPhase;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound phase timer feeding the current test's TestTimings and the live RunMetrics
+ * Framework code wraps driver start, navigation, waits, email and screenshots; test steps are
+ * marked with step(). Nested calls of the same phase are counted once.
+ */
+public final class PhaseTimer {
+    private static final ThreadLocal<TestTimings> current = new ThreadLocal<>();
+    private static final ThreadLocal<Set<TimingPhase>> active = ThreadLocal.withInitial(() -> EnumSet.noneOf(TimingPhase.class));
+    private static final ThreadLocal<String> stepName = new ThreadLocal<>();
+    private static final ThreadLocal<Long> stepStart = new ThreadLocal<>();
+    // [0] = wait sequence of this thread, [1] = id of the running wait (0 outside of waits)
+    private static final ThreadLocal<long[]> waitIds = ThreadLocal.withInitial(() -> new long[2]);
+
+    private PhaseTimer() {}
+
+    /**
+     * Start a new timing record for the test running on this thread
+     */
+    public static TestTimings begin() {
+        TestTimings timings = new TestTimings();
+        current.set(timings);
+        active.get().clear();
+        stepName.remove();
+        return timings;
+    }
+
+    /**
+     * Timing record of the current thread, or null outside of a test
+     */
+    public static TestTimings current() {
+        return current.get();
+    }
+
+    /**
+     * Close the open step and detach the record from this thread
+     */
+    public static TestTimings finish() {
+        endStep();
+        TestTimings timings = current.get();
+        current.remove();
+        active.get().clear();
+        return timings;
+    }
+
+    /**
+     * Start timing a phase; close the returned handle (try-with-resources) to record it
+     */
+    public static Timing start(TimingPhase phase) {
+        if (!active.get().add(phase)) {
+            return Timing.NOOP;
+        }
+        if (phase == TimingPhase.WAIT) {
+            long[] ids = waitIds.get();
+            ids[1] = ++ids[0];
+        }
+        return new Timing(current.get(), phase);
+    }
+
+    /**
+     * Time a phase around an action and return its result
+     */
+    public static <T> T time(TimingPhase phase, Supplier<T> action) {
+        Timing timing = start(phase);
+        try {
+            return action.get();
+        } finally {
+            timing.close();
+        }
+    }
+
+    /**
+     * Time a phase around an action
+     */
+    public static void time(TimingPhase phase, Runnable action) {
+        Timing timing = start(phase);
+        try {
+            action.run();
+        } finally {
+            timing.close();
+        }
+    }
+
+    /**
+     * Mark the beginning of a named step; the previous step ends here
+     */
+    public static void step(String name) {
+        endStep();
+        if (current.get() != null) {
+            stepName.set(name);
+            stepStart.set(System.nanoTime());
+        }
+        EventLog.emit("step_start", "step", name);
+    }
+
+    /**
+     * Name of the step currently open on this thread, or null
+     */
+    public static String currentStep() {
+        return stepName.get();
+    }
+
+    /**
+     * Id of the wait running on this thread (unique per thread), 0 when not inside a wait
+     */
+    public static long currentWaitId() {
+        return waitIds.get()[1];
+    }
+
+    /**
+     * End the currently open step (if any)
+     */
+    public static void endStep() {
+        String name = stepName.get();
+        TestTimings timings = current.get();
+        if (name != null && timings != null) {
+            long durationMs = (System.nanoTime() - stepStart.get()) / 1_000_000;
+            timings.addStep(name, durationMs);
+            EventLog.emit("step_end", "step", name, "durationMs", durationMs);
+        }
+        stepName.remove();
+    }
+
+    /**
+     * Handle of a running phase measurement
+     */
+    public static class Timing implements AutoCloseable {
+        private static final Timing NOOP = new Timing(null, null);
+        private final TestTimings timings;
+        private final TimingPhase phase;
+        private final long startNanos = System.nanoTime();
+
+        private Timing(TestTimings timings, TimingPhase phase) {
+            this.timings = timings;
+            this.phase = phase;
+        }
+
+        @Override
+        public void close() {
+            if (phase != null) {
+                long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+                if (timings != null) {
+                    timings.add(phase, durationMs);
+                }
+                RunMetrics.observePhase(phase, durationMs);
+                active.get().remove(phase);
+                if (phase == TimingPhase.WAIT) {
+                    waitIds.get()[1] = 0;
+                }
+            }
+        }
+    }
+}
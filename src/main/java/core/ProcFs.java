@@ -0,0 +1,228 @@
+package core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linux /proc readers for memory, CPU and command lines of the browser/driver processes
+ * Every reader returns 0 when /proc is unavailable (macOS, Windows) or the process has exited.
+ */
+public final class ProcFs {
+    /** USER_HZ: /proc reports CPU time in ticks of 1/100 s on all mainstream Linux architectures */
+    private static final long TICKS_PER_SECOND = 100;
+
+    private ProcFs() {}
+
+    public static boolean isAvailable() {
+        return Files.isReadable(Paths.get("/proc/self/stat"));
+    }
+
+    /**
+     * Resident set size in kB
+     */
+    public static long rssKb(long pid) {
+        return statusField(pid, "VmRSS:");
+    }
+
+    /**
+     * Proportional set size in kB (shared pages split between their users); RSS on kernels without smaps_rollup
+     */
+    public static long pssKb(long pid) {
+        Path rollup = proc(pid, "smaps_rollup");
+        if (!Files.isReadable(rollup)) {
+            return rssKb(pid);
+        }
+        return field(readLines(rollup), "Pss:");
+    }
+
+    /**
+     * User + system CPU time in ms, including reaped children (a browser's exited renderers and helpers)
+     */
+    public static long cpuMs(long pid) {
+        // utime, stime, cutime, cstime are fields 14-17 of stat, i.e. 11-14 after the state field
+        return statTicks(pid, 11, 14) * 1000 / TICKS_PER_SECOND;
+    }
+
+    /**
+     * User + system CPU time in ms of the process itself, without its children
+     */
+    public static long selfCpuMs(long pid) {
+        return statTicks(pid, 11, 12) * 1000 / TICKS_PER_SECOND;
+    }
+
+    /**
+     * Bytes read from and written to storage ({read, write}); zeros when /proc/<pid>/io is not readable
+     */
+    public static long[] ioBytes(long pid) {
+        List<String> lines = readLines(proc(pid, "io"));
+        return new long[]{field(lines, "read_bytes:"), field(lines, "write_bytes:")};
+    }
+
+    private static long statTicks(long pid, int from, int to) {
+        List<String> lines = readLines(proc(pid, "stat"));
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        // The command name may contain spaces; fields are counted after its closing parenthesis
+        String stat = lines.get(0);
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        long ticks = 0;
+        for (int i = from; i <= to && i < fields.length; i++) {
+            ticks += Long.parseLong(fields[i]);
+        }
+        return ticks;
+    }
+
+    /**
+     * Totals over all live descendants of this JVM
+     */
+    public static Usage descendants() {
+        Usage usage = new Usage();
+        ProcessHandle.current().descendants().forEach(process -> {
+            long pid = process.pid();
+            long cpu = cpuMs(pid);
+            usage.processes++;
+            usage.rssKb += rssKb(pid);
+            usage.pssKb += pssKb(pid);
+            usage.cpuMs += cpu;
+            usage.cpuByPid.put(pid, cpu);
+        });
+        return usage;
+    }
+
+    /**
+     * Share of time (%) over the last 10 s in which some tasks stalled on the resource (cpu, memory, io)
+     * @return -1 when pressure stall information is unavailable (kernel before 4.20, PSI disabled)
+     */
+    public static double pressureAvg10(String resource) {
+        for (String line : readLines(Paths.get("/proc/pressure", resource))) {
+            if (line.startsWith("some ")) {
+                for (String field : line.split(" ")) {
+                    if (field.startsWith("avg10=")) {
+                        return Double.parseDouble(field.substring("avg10=".length()));
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Field of /proc/meminfo in kB (e.g. "MemAvailable:"), 0 when unavailable
+     */
+    public static long memInfoKb(String name) {
+        return field(readLines(Paths.get("/proc/meminfo")), name);
+    }
+
+    /**
+     * Ids of all processes visible in /proc
+     */
+    public static List<Long> pids() {
+        List<Long> pids = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get("/proc"), "[0-9]*")) {
+            for (Path entry : entries) {
+                pids.add(Long.parseLong(entry.getFileName().toString()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return pids;
+    }
+
+    /**
+     * Command line arguments (argv[0] first); empty for kernel threads and exited processes
+     */
+    public static List<String> cmdline(long pid) {
+        try {
+            String raw = new String(Files.readAllBytes(proc(pid, "cmdline")), StandardCharsets.UTF_8);
+            return raw.isEmpty() ? List.of() : Arrays.asList(raw.split("\0"));
+        } catch (IOException | RuntimeException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Real user id of the process, -1 when unknown
+     */
+    public static long uid(long pid) {
+        for (String line : readLines(proc(pid, "status"))) {
+            if (line.startsWith("Uid:")) {
+                return Long.parseLong(line.substring(4).trim().split("\\s+")[0]);
+            }
+        }
+        return -1;
+    }
+
+    private static long statusField(long pid, String name) {
+        return field(readLines(proc(pid, "status")), name);
+    }
+
+    private static long field(List<String> lines, String name) {
+        for (String line : lines) {
+            if (line.startsWith(name)) {
+                return Long.parseLong(line.substring(name.length()).trim().split("\\s+")[0]);
+            }
+        }
+        return 0;
+    }
+
+    private static Path proc(long pid, String file) {
+        return Paths.get("/proc", String.valueOf(pid), file);
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process exited in the meantime
+            return List.of();
+        }
+    }
+
+    /**
+     * Summed usage of a set of processes
+     */
+    public static class Usage {
+        private int processes;
+        private long rssKb;
+        private long pssKb;
+        private long cpuMs;
+        private final Map<Long, Long> cpuByPid = new HashMap<>();
+
+        public int getProcesses() {
+            return processes;
+        }
+
+        public long getRssKb() {
+            return rssKb;
+        }
+
+        public long getPssKb() {
+            return pssKb;
+        }
+
+        public long getCpuMs() {
+            return cpuMs;
+        }
+
+        /**
+         * CPU used since the earlier sample; processes that were already running only count their increase
+         */
+        public long cpuMsSince(Usage earlier) {
+            long delta = 0;
+            for (Map.Entry<Long, Long> entry : cpuByPid.entrySet()) {
+                delta += entry.getValue() - earlier.cpuByPid.getOrDefault(entry.getKey(), 0L);
+            }
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-test browser resource accounting from /proc (resources.*)
+ * Each local Chrome session is mapped to its process tree (chromedriver, Chrome and all its children) through the
+ * temp profile on the Chrome command line. One background thread samples RSS, CPU time and storage I/O of every
+ * tree each resources.sample.interval.ms; collect() returns the usage of the current thread's session since the
+ * previous collect. Sessions above resources.recycle.rss.mb are flagged; the shared Chrome of driver.mode=context is
+ * recycled once its contexts are closed. Linux only.
+ */
+public final class ResourceSampler {
+    private static final Logger logger = LogManager.getLogger(ResourceSampler.class);
+    private static final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Session> currentSession = new ThreadLocal<>();
+    private static ScheduledExecutorService sampler;
+
+    private ResourceSampler() {}
+
+    /**
+     * Start sampling a new session of the current thread; only per-test local Chrome processes can be attributed
+     */
+    static void track(WebDriver driver) {
+        if (!ConfigReader.isResourceSamplingEnabled() || !ProcFs.isAvailable()) {
+            return;
+        }
+        if (ConfigReader.isBrowserContextMode() && !ConfigReader.isRemoteExecution()) {
+            // Contexts share one Chrome: only its total is watched, for recycling
+            startSampler();
+            return;
+        }
+        Path profile = ConfigReader.isRemoteExecution() ? null : DriverReaper.tempProfile(driver);
+        if (profile == null) {
+            return;
+        }
+        Session session = new Session("--user-data-dir=" + profile);
+        sessions.add(session);
+        currentSession.set(session);
+        startSampler();
+    }
+
+    /**
+     * Usage of the current thread's session since it started or since the previous call; null when not sampled
+     */
+    public static ResourceUsage collect() {
+        Session session = currentSession.get();
+        if (session == null) {
+            return null;
+        }
+        // A final sample, so short tests are measured too
+        sample(session, ProcessTree.scan());
+        return session.collect();
+    }
+
+    /**
+     * Stop sampling the session of the current thread (called on quit)
+     */
+    static void release() {
+        Session session = currentSession.get();
+        if (session != null) {
+            currentSession.remove();
+            sessions.remove(session);
+        }
+    }
+
+    private static synchronized void startSampler() {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = ConfigReader.getResourceSampleIntervalMs();
+        sampler.scheduleWithFixedDelay(ResourceSampler::sampleAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static void sampleAll() {
+        // An exception would cancel the scheduled task
+        try {
+            long limitKb = ConfigReader.getResourceRecycleRssMb() * 1024L;
+            long sharedPid = limitKb > 0 ? SharedBrowser.browserPid() : -1;
+            if (sessions.isEmpty() && sharedPid < 0) {
+                return;
+            }
+            ProcessTree tree = ProcessTree.scan();
+            for (Session session : sessions) {
+                sample(session, tree);
+            }
+            if (sharedPid > 0) {
+                long rssKb = 0;
+                for (long pid : tree.withDescendants(sharedPid)) {
+                    rssKb += ProcFs.rssKb(pid);
+                }
+                if (rssKb > limitKb) {
+                    SharedBrowser.requestRecycle(rssKb);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Resource sampling failed: {}", e.getMessage());
+        }
+    }
+
+    private static void sample(Session session, ProcessTree tree) {
+        if (session.root <= 0) {
+            session.root = tree.findRoot(session.profileArgument);
+            if (session.root <= 0) {
+                return;
+            }
+        }
+        List<Long> pids = tree.withDescendants(session.root);
+        long rssKb = 0;
+        Map<Long, Long> cpu = new HashMap<>();
+        Map<Long, long[]> io = new HashMap<>();
+        for (long pid : pids) {
+            long rss = ProcFs.rssKb(pid);
+            if (rss == 0) {
+                // Exited since the scan
+                continue;
+            }
+            rssKb += rss;
+            cpu.put(pid, ProcFs.selfCpuMs(pid));
+            io.put(pid, ProcFs.ioBytes(pid));
+        }
+        if (!cpu.isEmpty()) {
+            session.record(rssKb, cpu, io);
+        }
+    }
+
+    /**
+     * Parent/child relation of all processes, read once per sampling round
+     */
+    private static final class ProcessTree {
+        private final Map<Long, List<Long>> children = new HashMap<>();
+        private final Map<Long, Long> parents = new HashMap<>();
+
+        static ProcessTree scan() {
+            ProcessTree tree = new ProcessTree();
+            ProcessHandle.allProcesses().forEach(process -> process.parent().ifPresent(parent -> {
+                tree.children.computeIfAbsent(parent.pid(), pid -> new ArrayList<>()).add(process.pid());
+                tree.parents.put(process.pid(), parent.pid());
+            }));
+            return tree;
+        }
+
+        List<Long> withDescendants(long root) {
+            List<Long> pids = new ArrayList<>();
+            Deque<Long> pending = new ArrayDeque<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                long pid = pending.poll();
+                pids.add(pid);
+                pending.addAll(children.getOrDefault(pid, List.of()));
+            }
+            return pids;
+        }
+
+        /**
+         * The child of this JVM (chromedriver) above the Chrome started with the profile; 0 when not running yet
+         */
+        long findRoot(String profileArgument) {
+            long jvm = ProcessHandle.current().pid();
+            for (long pid : withDescendants(jvm)) {
+                if (pid != jvm && ProcFs.cmdline(pid).contains(profileArgument)) {
+                    long root = pid;
+                    while (parents.containsKey(root) && parents.get(root) != jvm) {
+                        root = parents.get(root);
+                    }
+                    return root;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Sampled session; the window covers the samples since the previous collect
+     */
+    private static final class Session {
+        private final String profileArgument;
+        private volatile long root;
+        // Latest CPU and I/O counters of every process seen, so exited renderers still count
+        private final Map<Long, Long> cpuByPid = new HashMap<>();
+        private final Map<Long, long[]> ioByPid = new HashMap<>();
+        private long lastCpuMs;
+        private long lastSampleNanos;
+        private boolean overLimit;
+        private int samples;
+        private int peakProcesses;
+        private long peakRssKb;
+        private long rssSumKb;
+        private int peakCpuPercent;
+        private long windowStartNanos = System.nanoTime();
+        private long windowCpuMs;
+        private long windowReadBytes;
+        private long windowWriteBytes;
+
+        private Session(String profileArgument) {
+            this.profileArgument = profileArgument;
+        }
+
+        synchronized void record(long rssKb, Map<Long, Long> cpu, Map<Long, long[]> io) {
+            long now = System.nanoTime();
+            cpuByPid.putAll(cpu);
+            ioByPid.putAll(io);
+            long cpuMs = sum(cpuByPid.values());
+            if (lastSampleNanos == 0) {
+                // Counters start at the first sample: browser startup is part of the session start, not the test
+                windowStartNanos = now;
+                windowCpuMs = cpuMs;
+                long[] bytes = ioTotals();
+                windowReadBytes = bytes[0];
+                windowWriteBytes = bytes[1];
+            } else if (now > lastSampleNanos) {
+                long percent = (cpuMs - lastCpuMs) * 100 * 1_000_000 / (now - lastSampleNanos);
+                peakCpuPercent = (int) Math.max(peakCpuPercent, percent);
+            }
+            lastCpuMs = cpuMs;
+            lastSampleNanos = now;
+            samples++;
+            rssSumKb += rssKb;
+            peakRssKb = Math.max(peakRssKb, rssKb);
+            peakProcesses = Math.max(peakProcesses, cpu.size());
+
+            long limitKb = ConfigReader.getResourceRecycleRssMb() * 1024L;
+            if (limitKb > 0 && rssKb > limitKb && !overLimit) {
+                overLimit = true;
+                RunMetrics.sessionsOverMemory.increment();
+                logger.warn("Browser session above resources.recycle.rss.mb: {} MB in {} processes",
+                        rssKb / 1024, cpu.size());
+            }
+        }
+
+        synchronized ResourceUsage collect() {
+            long now = System.nanoTime();
+            long cpuMs = lastCpuMs - windowCpuMs;
+            long wallMs = Math.max(1, (now - windowStartNanos) / 1_000_000);
+            long[] bytes = ioTotals();
+            long readBytes = bytes[0];
+            long writeBytes = bytes[1];
+            ResourceUsage usage = new ResourceUsage(samples, peakProcesses, peakRssKb,
+                    samples == 0 ? 0 : rssSumKb / samples, cpuMs, (int) (cpuMs * 100 / wallMs), peakCpuPercent,
+                    (readBytes - windowReadBytes) / 1024, (writeBytes - windowWriteBytes) / 1024, overLimit);
+            samples = 0;
+            peakProcesses = 0;
+            peakRssKb = 0;
+            rssSumKb = 0;
+            peakCpuPercent = 0;
+            windowStartNanos = now;
+            windowCpuMs = lastCpuMs;
+            windowReadBytes = readBytes;
+            windowWriteBytes = writeBytes;
+            return usage;
+        }
+
+        private long[] ioTotals() {
+            long[] totals = new long[2];
+            for (long[] bytes : ioByPid.values()) {
+                totals[0] += bytes[0];
+                totals[1] += bytes[1];
+            }
+            return totals;
+        }
+
+        private static long sum(Iterable<Long> values) {
+            long total = 0;
+            for (long value : values) {
+                total += value;
+            }
+            return total;
+        }
+    }
+}
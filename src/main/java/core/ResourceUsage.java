@@ -0,0 +1,90 @@
+package core;
+
+/**
+ * Browser process usage of one test: chromedriver and Chrome with all its children, sampled from /proc
+ * (see ResourceSampler)
+ */
+public class ResourceUsage {
+    private final int samples;
+    private final int peakProcesses;
+    private final long peakRssKb;
+    private final long avgRssKb;
+    private final long cpuMs;
+    private final int avgCpuPercent;
+    private final int peakCpuPercent;
+    private final long ioReadKb;
+    private final long ioWriteKb;
+    private final boolean overLimit;
+
+    ResourceUsage(int samples, int peakProcesses, long peakRssKb, long avgRssKb, long cpuMs, int avgCpuPercent,
+                  int peakCpuPercent, long ioReadKb, long ioWriteKb, boolean overLimit) {
+        this.samples = samples;
+        this.peakProcesses = peakProcesses;
+        this.peakRssKb = peakRssKb;
+        this.avgRssKb = avgRssKb;
+        this.cpuMs = cpuMs;
+        this.avgCpuPercent = avgCpuPercent;
+        this.peakCpuPercent = peakCpuPercent;
+        this.ioReadKb = ioReadKb;
+        this.ioWriteKb = ioWriteKb;
+        this.overLimit = overLimit;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public int getPeakProcesses() {
+        return peakProcesses;
+    }
+
+    public long getPeakRssKb() {
+        return peakRssKb;
+    }
+
+    public long getAvgRssKb() {
+        return avgRssKb;
+    }
+
+    /**
+     * CPU time used by the browser processes during the test
+     */
+    public long getCpuMs() {
+        return cpuMs;
+    }
+
+    /**
+     * CPU time over wall time; above 100 when several cores are busy
+     */
+    public int getAvgCpuPercent() {
+        return avgCpuPercent;
+    }
+
+    /**
+     * Highest CPU use between two consecutive samples
+     */
+    public int getPeakCpuPercent() {
+        return peakCpuPercent;
+    }
+
+    public long getIoReadKb() {
+        return ioReadKb;
+    }
+
+    public long getIoWriteKb() {
+        return ioWriteKb;
+    }
+
+    /**
+     * True when the session went above resources.recycle.rss.mb
+     */
+    public boolean isOverLimit() {
+        return overLimit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rss peak %d MB / avg %d MB, cpu %d ms (avg %d%%, peak %d%%), io r %d kB / w %d kB, %d samples",
+                peakRssKb / 1024, avgRssKb / 1024, cpuMs, avgCpuPercent, peakCpuPercent, ioReadKb, ioWriteKb, samples);
+    }
+}
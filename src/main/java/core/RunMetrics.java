@@ -0,0 +1,183 @@
+package core;
+
+import enums.TimingPhase;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live run metrics (tests, sessions, waits, screenshots, IMAP) rendered in Prometheus text format
+ * All updates are LongAdder increments so instrumented hot paths never block on a lock.
+ */
+public final class RunMetrics {
+    private static final double[] LATENCY_BUCKETS_SECONDS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+
+    public static final LongAdder testsRunning = new LongAdder();
+    public static final LongAdder testsPassed = new LongAdder();
+    public static final LongAdder testsFailed = new LongAdder();
+    public static final LongAdder testsSkipped = new LongAdder();
+    public static final LongAdder activeSessions = new LongAdder();
+    public static final LongAdder screenshotBytes = new LongAdder();
+    public static final LongAdder screenshots = new LongAdder();
+    public static final LongAdder imapPolls = new LongAdder();
+    public static final LongAdder pendingQuits = new LongAdder();
+    public static final LongAdder driverQuitErrors = new LongAdder();
+    public static final LongAdder hungSessionsKilled = new LongAdder();
+    public static final LongAdder orphansReaped = new LongAdder();
+    public static final LongAdder sessionsOverMemory = new LongAdder();
+    public static final LongAdder sharedBrowserRecycles = new LongAdder();
+    public static final LongAdder httpConnectionsOpened = new LongAdder();
+    public static final LongAdder httpRequests = new LongAdder();
+    public static final Histogram sessionStart = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram waitTime = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram otpLatency = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram driverQuit = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram gridSlotWait = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram httpNewSession = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram httpCommand = new Histogram(LATENCY_BUCKETS_SECONDS);
+    public static final Histogram httpQuit = new Histogram(LATENCY_BUCKETS_SECONDS);
+
+    private RunMetrics() {}
+
+    /**
+     * Feed a finished PhaseTimer measurement into the matching histogram
+     */
+    static void observePhase(TimingPhase phase, long durationMs) {
+        switch (phase) {
+            case DRIVER:
+                sessionStart.observe(durationMs);
+                break;
+            case WAIT:
+                waitTime.observe(durationMs);
+                break;
+            case EMAIL:
+                otpLatency.observe(durationMs);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Count a captured screenshot and its size
+     */
+    public static void recordScreenshot(long bytes) {
+        screenshots.increment();
+        screenshotBytes.add(bytes);
+    }
+
+    /**
+     * Requests of the shared transport that did not need a new connection
+     */
+    public static long httpConnectionsReused() {
+        return Math.max(0, httpRequests.sum() - httpConnectionsOpened.sum());
+    }
+
+    /**
+     * Render all metrics in Prometheus text exposition format (version 0.0.4)
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+        gauge(out, "booking_tests_running", "Tests currently executing", testsRunning.sum());
+        out.append("# HELP booking_tests_total Finished tests by status\n# TYPE booking_tests_total counter\n");
+        out.append("booking_tests_total{status=\"passed\"} ").append(testsPassed.sum()).append('\n');
+        out.append("booking_tests_total{status=\"failed\"} ").append(testsFailed.sum()).append('\n');
+        out.append("booking_tests_total{status=\"skipped\"} ").append(testsSkipped.sum()).append('\n');
+        gauge(out, "booking_driver_sessions_active", "Open WebDriver/Appium sessions", activeSessions.sum());
+        sessionStart.render(out, "booking_driver_session_start_seconds", "Time to create a driver session");
+        gridSlotWait.render(out, "booking_grid_slot_wait_seconds", "Time waiting for a free Grid slot before session start");
+        gauge(out, "booking_driver_quits_pending", "Sessions handed to the reaper and still closing", pendingQuits.sum());
+        driverQuit.render(out, "booking_driver_quit_seconds", "Time to quit a driver session (background)");
+        counter(out, "booking_driver_quit_errors_total", "Driver quits that failed", driverQuitErrors.sum());
+        counter(out, "booking_driver_sessions_killed_total", "Hung sessions force-killed by the watchdog", hungSessionsKilled.sum());
+        counter(out, "booking_orphan_processes_reaped_total", "Orphaned browser processes destroyed", orphansReaped.sum());
+        counter(out, "booking_sessions_over_memory_total", "Browser sessions above resources.recycle.rss.mb", sessionsOverMemory.sum());
+        counter(out, "booking_shared_browser_recycles_total", "Shared Chrome restarts for memory", sharedBrowserRecycles.sum());
+        counter(out, "booking_http_connections_opened_total", "Connections opened by the shared Grid/Appium transport",
+                httpConnectionsOpened.sum());
+        counter(out, "booking_http_requests_total", "Requests sent over the shared Grid/Appium transport", httpRequests.sum());
+        counter(out, "booking_http_connections_reused_total", "Requests that went out on an already open pooled connection",
+                httpConnectionsReused());
+        String http = "booking_http_request_seconds";
+        header(out, http, "Grid/Appium HTTP request latency by command type", "histogram");
+        httpNewSession.renderSeries(out, http, "type=\"new_session\",");
+        httpCommand.renderSeries(out, http, "type=\"command\",");
+        httpQuit.renderSeries(out, http, "type=\"quit\",");
+        waitTime.render(out, "booking_wait_seconds", "Time spent in explicit waits");
+        counter(out, "booking_screenshots_total", "Screenshots captured", screenshots.sum());
+        counter(out, "booking_screenshot_bytes_total", "Bytes of captured screenshots", screenshotBytes.sum());
+        counter(out, "booking_imap_polls_total", "IMAP inbox polls", imapPolls.sum());
+        otpLatency.render(out, "booking_otp_latency_seconds", "Time until a verification code was fetched");
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Fixed-bucket latency histogram (observations in ms, exported in seconds)
+     */
+    public static class Histogram {
+        private final double[] bucketsSeconds;
+        private final LongAdder[] counts;
+        private final LongAdder sumMs = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        Histogram(double[] bucketsSeconds) {
+            this.bucketsSeconds = bucketsSeconds;
+            this.counts = new LongAdder[bucketsSeconds.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        public void observe(long durationMs) {
+            double seconds = durationMs / 1000.0;
+            for (int i = 0; i < bucketsSeconds.length; i++) {
+                if (seconds <= bucketsSeconds[i]) {
+                    counts[i].increment();
+                    break;
+                }
+            }
+            sumMs.add(durationMs);
+            count.increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        void render(StringBuilder out, String name, String help) {
+            header(out, name, help, "histogram");
+            renderSeries(out, name, "");
+        }
+
+        /**
+         * Buckets, sum and count without HELP/TYPE; labels is empty or ends with a comma (e.g. type="quit",)
+         */
+        void renderSeries(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < bucketsSeconds.length; i++) {
+                cumulative += counts[i].sum();
+                out.append(name).append("_bucket{").append(labels).append("le=\"").append(bucketsSeconds[i]).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            long total = count.sum();
+            out.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(Math.max(total, cumulative)).append('\n');
+            String series = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+            out.append(name).append("_sum").append(series).append(' ').append(sumMs.sum() / 1000.0).append('\n');
+            out.append(name).append("_count").append(series).append(' ').append(total).append('\n');
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Encrypted per-account snapshot of an authenticated browser session (session.snapshot.*)
+ * Cookies (all domains, including HttpOnly, via CDP), localStorage and sessionStorage are captured after a real
+ * login and written AES-GCM encrypted with an expiry. A new session gets the cookies through CDP and the storage
+ * through a new-document script, so the snapshot is in place before the first navigation. Drivers without CDP
+ * fall back to navigating to the origin and restoring through WebDriver.
+ */
+public final class SessionSnapshot {
+    private static final Logger logger = LogManager.getLogger(SessionSnapshot.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final SecureRandom random = new SecureRandom();
+    private static final byte FORMAT_VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final Set<String> COOKIE_PARAMS = Set.of("name", "value", "domain", "path", "secure", "httpOnly", "sameSite", "expires");
+    private static final String RESTORED_MARKER = "__session_snapshot";
+    private static final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Long> restoredVersion = new ThreadLocal<>();
+    private static SecretKeySpec key;
+
+    private SessionSnapshot() {}
+
+    /**
+     * Save the driver's current session for the account; the driver must be on the logged-in site
+     */
+    @SuppressWarnings("unchecked")
+    public static void capture(WebDriver driver, String account) {
+        if (!ConfigReader.isSessionSnapshotEnabled()) {
+            return;
+        }
+        try {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            long now = System.currentTimeMillis();
+            snapshot.put("account", account);
+            snapshot.put("createdAt", now);
+            snapshot.put("expiresAt", now + Duration.ofMinutes(ConfigReader.getSessionSnapshotTtlMinutes()).toMillis());
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            snapshot.put("origin", js.executeScript("return location.origin;"));
+            snapshot.put("userAgent", js.executeScript("return navigator.userAgent;"));
+            snapshot.put("cookies", captureCookies(driver));
+            snapshot.put("localStorage", js.executeScript("return Object.assign({}, window.localStorage);"));
+            Map<String, Object> session = (Map<String, Object>) js.executeScript("return Object.assign({}, window.sessionStorage);");
+            if (session != null) {
+                session.remove(RESTORED_MARKER);
+            }
+            snapshot.put("sessionStorage", session);
+
+            write(account, mapper.writeValueAsBytes(snapshot));
+            logger.info("Session snapshot saved for {} ({} cookies)", account, ((List<?>) snapshot.get("cookies")).size());
+        } catch (Exception e) {
+            logger.warn("Could not save session snapshot for {}: {}", account, e.getMessage());
+        }
+    }
+
+    /**
+     * Load the account's snapshot into a new session
+     * @return false when there is no usable snapshot (missing, expired, unreadable or from another browser version)
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean restore(WebDriver driver, String account) {
+        restoredVersion.remove();
+        if (!ConfigReader.isSessionSnapshotEnabled()) {
+            return false;
+        }
+        Path file = snapshotFile(account);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        long version;
+        Map<String, Object> snapshot;
+        try {
+            version = Files.getLastModifiedTime(file).toMillis();
+            snapshot = mapper.readValue(read(account, file), new TypeReference<Map<String, Object>>() {});
+        } catch (IOException | GeneralSecurityException e) {
+            // Wrong key, tampered or truncated file
+            logger.warn("Discarding unreadable session snapshot for {}: {}", account, e.getMessage());
+            deleteQuietly(file);
+            return false;
+        }
+        if (System.currentTimeMillis() > ((Number) snapshot.get("expiresAt")).longValue()) {
+            logger.info("Session snapshot for {} expired", account);
+            deleteQuietly(file);
+            return false;
+        }
+        try {
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            if (!String.valueOf(snapshot.get("userAgent")).equals(js.executeScript("return navigator.userAgent;"))) {
+                // Sites tie sessions to the user agent; a browser upgrade makes the snapshot useless
+                logger.info("Session snapshot for {} was taken with another browser version", account);
+                return false;
+            }
+            String origin = (String) snapshot.get("origin");
+            List<Map<String, Object>> cookies = (List<Map<String, Object>>) snapshot.get("cookies");
+            Map<String, Object> local = (Map<String, Object>) snapshot.get("localStorage");
+            Map<String, Object> session = (Map<String, Object>) snapshot.get("sessionStorage");
+            if (driver instanceof HasCdp) {
+                restoreWithCdp((HasCdp) driver, version, origin, cookies, local, session);
+            } else {
+                restoreWithWebDriver(driver, origin, cookies, local, session);
+            }
+            restoredVersion.set(version);
+            logger.info("Session snapshot restored for {} ({} cookies)", account, cookies.size());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not restore session snapshot for {}: {}", account, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Delete the snapshot this thread restored last, unless another thread has replaced it in the meantime
+     */
+    public static void invalidateRestored(String account) {
+        Long version = restoredVersion.get();
+        restoredVersion.remove();
+        Path file = snapshotFile(account);
+        try {
+            if (version != null && Files.exists(file) && Files.getLastModifiedTime(file).toMillis() == version) {
+                Files.delete(file);
+                logger.info("Stale session snapshot for {} removed", account);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not remove session snapshot for {}: {}", account, e.getMessage());
+        }
+    }
+
+    /**
+     * Cheap login check: the given element (e.g. the account avatar) shows up within session.snapshot.verify.seconds
+     */
+    public static boolean isLoggedIn(WebDriver driver, By loggedInMarker) {
+        Duration implicitWait = driver.manage().timeouts().getImplicitWaitTimeout();
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(ConfigReader.getSessionSnapshotVerifySeconds()))
+                    .until(d -> !d.findElements(loggedInMarker).isEmpty());
+            return true;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            driver.manage().timeouts().implicitlyWait(implicitWait);
+        }
+    }
+
+    /**
+     * Per-account lock so parallel tests do one real login and share its snapshot
+     */
+    public static ReentrantLock lockFor(String account) {
+        return locks.computeIfAbsent(account, a -> new ReentrantLock());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> captureCookies(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        if (driver instanceof HasCdp) {
+            Map<String, Object> result = ((HasCdp) driver).executeCdpCommand("Network.getAllCookies", Map.of());
+            for (Map<String, Object> cookie : (List<Map<String, Object>>) result.get("cookies")) {
+                Map<String, Object> param = new LinkedHashMap<>(cookie);
+                param.keySet().retainAll(COOKIE_PARAMS);
+                if (Boolean.TRUE.equals(cookie.get("session"))) {
+                    param.remove("expires");
+                }
+                cookies.add(param);
+            }
+            return cookies;
+        }
+        for (Cookie cookie : driver.manage().getCookies()) {
+            Map<String, Object> param = new LinkedHashMap<>();
+            param.put("name", cookie.getName());
+            param.put("value", cookie.getValue());
+            param.put("domain", cookie.getDomain());
+            param.put("path", cookie.getPath());
+            param.put("secure", cookie.isSecure());
+            param.put("httpOnly", cookie.isHttpOnly());
+            if (cookie.getSameSite() != null) {
+                param.put("sameSite", cookie.getSameSite());
+            }
+            if (cookie.getExpiry() != null) {
+                param.put("expires", cookie.getExpiry().getTime() / 1000.0);
+            }
+            cookies.add(param);
+        }
+        return cookies;
+    }
+
+    private static void restoreWithCdp(HasCdp cdp, long version, String origin, List<Map<String, Object>> cookies,
+                                       Map<String, Object> local, Map<String, Object> session) throws IOException {
+        double nowSeconds = System.currentTimeMillis() / 1000.0;
+        List<Map<String, Object>> valid = new ArrayList<>();
+        for (Map<String, Object> cookie : cookies) {
+            Object expires = cookie.get("expires");
+            if (!(expires instanceof Number) || ((Number) expires).doubleValue() > nowSeconds) {
+                valid.add(cookie);
+            }
+        }
+        cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+        cdp.executeCdpCommand("Network.setCookies", Map.of("cookies", valid));
+        // Storage is per origin and only exists once a document is loaded: seed it from the first document of the
+        // origin; the marker holds the snapshot version so a later restore in the same tab overrides an earlier one
+        String script = "(function(){if(location.origin!==" + mapper.writeValueAsString(origin) + ")return;"
+                + "try{if(sessionStorage.getItem('" + RESTORED_MARKER + "')==='" + version + "')return;"
+                + "var l=" + mapper.writeValueAsString(local) + ",s=" + mapper.writeValueAsString(session) + ";"
+                + "for(var k in l)localStorage.setItem(k,l[k]);for(var k in s)sessionStorage.setItem(k,s[k]);"
+                + "sessionStorage.setItem('" + RESTORED_MARKER + "','" + version + "');}catch(e){}})();";
+        cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", script));
+    }
+
+    private static void restoreWithWebDriver(WebDriver driver, String origin, List<Map<String, Object>> cookies,
+                                             Map<String, Object> local, Map<String, Object> session) {
+        driver.get(origin);
+        driver.manage().deleteAllCookies();
+        for (Map<String, Object> cookie : cookies) {
+            Cookie.Builder builder = new Cookie.Builder((String) cookie.get("name"), (String) cookie.get("value"))
+                    .path((String) cookie.getOrDefault("path", "/"))
+                    .isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+                    .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")));
+            if (cookie.get("domain") != null) {
+                builder.domain((String) cookie.get("domain"));
+            }
+            if (cookie.get("sameSite") != null) {
+                builder.sameSite((String) cookie.get("sameSite"));
+            }
+            if (cookie.get("expires") instanceof Number) {
+                builder.expiresOn(new Date((long) (((Number) cookie.get("expires")).doubleValue() * 1000)));
+            }
+            try {
+                driver.manage().addCookie(builder.build());
+            } catch (Exception e) {
+                // Cookies of other domains cannot be set from this origin without CDP
+                logger.debug("Skipped cookie {}: {}", cookie.get("name"), e.getMessage());
+            }
+        }
+        ((JavascriptExecutor) driver).executeScript(
+                "var l=arguments[0]||{},s=arguments[1]||{};for(var k in l)localStorage.setItem(k,l[k]);"
+                        + "for(var k in s)sessionStorage.setItem(k,s[k]);", local, session);
+    }
+
+    private static Path snapshotFile(String account) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(account.getBytes(StandardCharsets.UTF_8));
+            return Paths.get(ConfigReader.getSessionSnapshotDir(), HexFormat.of().formatHex(hash, 0, 8) + ".snapshot");
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * File layout: version byte, 12-byte IV, AES-GCM ciphertext; the account name is authenticated as AAD
+     */
+    private static void write(String account, byte[] plain) throws IOException, GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(account.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = cipher.doFinal(plain);
+
+        byte[] out = new byte[1 + IV_LENGTH + sealed.length];
+        out[0] = FORMAT_VERSION;
+        System.arraycopy(iv, 0, out, 1, IV_LENGTH);
+        System.arraycopy(sealed, 0, out, 1 + IV_LENGTH, sealed.length);
+
+        Path file = snapshotFile(account);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "snapshot-", ".tmp");
+        Files.write(temp, out);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] read(String account, Path file) throws IOException, GeneralSecurityException {
+        byte[] in = Files.readAllBytes(file);
+        if (in.length <= 1 + IV_LENGTH || in[0] != FORMAT_VERSION) {
+            throw new IOException("unknown snapshot format");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, in, 1, IV_LENGTH));
+        cipher.updateAAD(account.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(in, 1 + IV_LENGTH, in.length - 1 - IV_LENGTH);
+    }
+
+    /**
+     * session.snapshot.key (Base64, 16/24/32 bytes) or a random key generated once into session.snapshot.key.file
+     * The key file lives outside the snapshot directory so the ciphertext and its key are not shipped together;
+     * on CI (CI env variable set) the key must be configured instead.
+     */
+    private static synchronized SecretKeySpec key() throws IOException {
+        if (key != null) {
+            return key;
+        }
+        String configured = ConfigReader.getSessionSnapshotKey();
+        byte[] raw;
+        if (!configured.isBlank()) {
+            raw = Base64.getDecoder().decode(configured.trim());
+        } else if (System.getenv("CI") != null) {
+            throw new IOException("session.snapshot.key must be set on CI (or disable session.snapshot.enabled)");
+        } else {
+            raw = keyFromFile(Paths.get(ConfigReader.getSessionSnapshotKeyFile()));
+        }
+        key = new SecretKeySpec(raw, "AES");
+        return key;
+    }
+
+    /**
+     * Read the key file, creating it owner-only with a new random key when it does not exist yet
+     * Creation is atomic across JVMs (CREATE_NEW); a JVM losing the race reads the winner's key.
+     */
+    private static byte[] keyFromFile(Path keyFile) throws IOException {
+        if (keyFile.getParent() != null) {
+            Files.createDirectories(keyFile.getParent());
+        }
+        boolean posix = keyFile.getFileSystem().supportedFileAttributeViews().contains("posix");
+        byte[] raw = new byte[32];
+        random.nextBytes(raw);
+        try {
+            FileAttribute<?>[] ownerOnly = posix
+                    ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                    : new FileAttribute<?>[0];
+            try (SeekableByteChannel channel = Files.newByteChannel(keyFile,
+                    Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), ownerOnly)) {
+                channel.write(ByteBuffer.wrap(Base64.getEncoder().encode(raw)));
+            }
+            logger.info("Generated session snapshot key in {}", keyFile.toAbsolutePath());
+            return raw;
+        } catch (FileAlreadyExistsException e) {
+            return readKeyFile(keyFile);
+        }
+    }
+
+    private static byte[] readKeyFile(Path keyFile) throws IOException {
+        // Another JVM may have created the file but not written the key yet
+        for (int attempt = 0; ; attempt++) {
+            byte[] raw = Base64.getDecoder().decode(Files.readString(keyFile).trim());
+            if (raw.length == 16 || raw.length == 24 || raw.length == 32 || attempt >= 20) {
+                return raw;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + keyFile, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hung session watchdog and orphaned browser reaper (watchdog.*)
+ * Every session from DriverFactory records the time of its last command; a session that makes no progress for
+ * watchdog.hung.seconds is force-killed: quit (releases the Grid slot / Appium session), its chromedriver and Chrome
+ * processes are destroyed and the test thread is interrupted. reapOrphans() destroys Chrome/chromedriver processes
+ * of our temp profiles that no live test JVM owns (left behind by crashed runs).
+ */
+public final class SessionWatchdog {
+    private static final Logger logger = LogManager.getLogger(SessionWatchdog.class);
+    private static final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Session> currentSession = new ThreadLocal<>();
+    private static final String USER_DATA_DIR = "--user-data-dir=";
+    private static ScheduledExecutorService checker;
+
+    private SessionWatchdog() {}
+
+    /**
+     * Track a new session of the current thread; its progress is every command its hook sees on the wire
+     */
+    static void watch(WebDriver driver, CommandHook hook) {
+        if (!ConfigReader.isWatchdogEnabled()) {
+            return;
+        }
+        // Only a per-test Chrome process may be killed by profile; shared-browser and remote sessions are quit only
+        Path profile = ConfigReader.isRemoteExecution() || ConfigReader.isBrowserContextMode()
+                ? null : DriverReaper.tempProfile(driver);
+        Session session = new Session(driver, hook, Thread.currentThread(), profile);
+        sessions.add(session);
+        currentSession.set(session);
+        hook.addListener(session);
+        startChecker();
+    }
+
+    /**
+     * Stop tracking the session of the current thread (called on quit)
+     */
+    static void release() {
+        Session session = currentSession.get();
+        if (session != null) {
+            currentSession.remove();
+            session.hook.removeListener(session);
+            session.released = true;
+            sessions.remove(session);
+        }
+    }
+
+    /**
+     * Mark progress without a driver command, e.g. while polling the inbox for a verification code
+     */
+    public static void touch() {
+        Session session = currentSession.get();
+        if (session != null) {
+            session.lastProgressNanos = System.nanoTime();
+        }
+    }
+
+    private static synchronized void startChecker() {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int interval = ConfigReader.getWatchdogIntervalSeconds();
+        checker.scheduleWithFixedDelay(SessionWatchdog::check, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static void check() {
+        long hungNanos = TimeUnit.SECONDS.toNanos(ConfigReader.getWatchdogHungSeconds());
+        long now = System.nanoTime();
+        for (Session session : sessions) {
+            if (now - session.lastProgressNanos > hungNanos) {
+                sessions.remove(session);
+                Thread killer = new Thread(() -> kill(session), "session-watchdog-kill");
+                killer.setDaemon(true);
+                killer.start();
+            }
+        }
+    }
+
+    private static void kill(Session session) {
+        long idleSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - session.lastProgressNanos);
+        logger.error("Session of {} made no progress for {} s (last command: {}), killing it",
+                session.ownerName, idleSeconds, session.lastCommand);
+        RunMetrics.hungSessionsKilled.increment();
+        EventLog.emit("session_killed", "owner", session.ownerName, "idle_seconds", idleSeconds,
+                "last_command", session.lastCommand);
+
+        // A hung chromedriver may not answer the quit either: give it a grace period, then kill the processes
+        Thread quit = new Thread(() -> {
+            try {
+                session.driver.quit();
+            } catch (Exception e) {
+                logger.debug("Quit of hung session failed: {}", e.getMessage());
+            }
+        }, "session-watchdog-quit");
+        quit.setDaemon(true);
+        quit.start();
+        try {
+            quit.join(TimeUnit.SECONDS.toMillis(ConfigReader.getWatchdogKillGraceSeconds()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (session.profile != null) {
+            destroyBrowser(session.profile.toString());
+        }
+        // Unblocks a test thread still waiting on the dead session; the test then fails on its next command
+        if (!session.released) {
+            session.owner.interrupt();
+        }
+    }
+
+    /**
+     * Destroy Chrome/chromedriver processes of our temp profiles whose test JVM is gone; call at suite start and end
+     * @return number of browser processes destroyed
+     */
+    public static int reapOrphans() {
+        if (!ConfigReader.isWatchdogEnabled() || !ProcFs.isAvailable()) {
+            return 0;
+        }
+        long uid = ProcFs.uid(ProcessHandle.current().pid());
+        Set<String> profiles = new LinkedHashSet<>();
+        for (long pid : ProcFs.pids()) {
+            String profile = tempProfileArgument(ProcFs.cmdline(pid));
+            // Sessions of this or another running test JVM have the JVM among their ancestors
+            if (profile != null && ProcFs.uid(pid) == uid && !hasJvmAncestor(pid)) {
+                profiles.add(profile);
+            }
+        }
+        int reaped = 0;
+        for (String profile : profiles) {
+            reaped += destroyBrowser(profile);
+            DriverReaper.deleteQuietly(Paths.get(profile));
+        }
+        if (reaped > 0) {
+            logger.warn("Reaped {} orphaned browser processes of {} temp profiles", reaped, profiles.size());
+            RunMetrics.orphansReaped.add(reaped);
+            EventLog.emit("orphans_reaped", "processes", reaped, "profiles", profiles.size());
+        }
+        return reaped;
+    }
+
+    /**
+     * Destroy every process started with the profile, their descendants and the chromedriver that launched them
+     */
+    private static int destroyBrowser(String profile) {
+        Set<ProcessHandle> targets = new LinkedHashSet<>();
+        for (long pid : ProcFs.pids()) {
+            if (!profile.equals(tempProfileArgument(ProcFs.cmdline(pid)))) {
+                continue;
+            }
+            Optional<ProcessHandle> process = ProcessHandle.of(pid);
+            if (process.isEmpty()) {
+                continue;
+            }
+            process.get().parent()
+                    .filter(parent -> isChromedriver(ProcFs.cmdline(parent.pid())))
+                    .ifPresent(targets::add);
+            targets.add(process.get());
+        }
+        Set<ProcessHandle> all = new LinkedHashSet<>();
+        for (ProcessHandle target : targets) {
+            target.descendants().forEach(all::add);
+            all.add(target);
+        }
+        int destroyed = 0;
+        for (ProcessHandle process : all) {
+            if (process.destroyForcibly()) {
+                destroyed++;
+            }
+        }
+        return destroyed;
+    }
+
+    private static String tempProfileArgument(List<String> cmdline) {
+        for (String arg : cmdline) {
+            if (arg.startsWith(USER_DATA_DIR)) {
+                String dir = arg.substring(USER_DATA_DIR.length());
+                Path name = Paths.get(dir).getFileName();
+                return name != null && name.toString().startsWith(DriverReaper.TEMP_PROFILE_PREFIX) ? dir : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isChromedriver(List<String> cmdline) {
+        return !cmdline.isEmpty() && Paths.get(cmdline.get(0)).getFileName().toString().startsWith("chromedriver");
+    }
+
+    private static boolean hasJvmAncestor(long pid) {
+        Optional<ProcessHandle> parent = ProcessHandle.of(pid).flatMap(ProcessHandle::parent);
+        while (parent.isPresent() && parent.get().pid() > 1) {
+            List<String> cmdline = ProcFs.cmdline(parent.get().pid());
+            if (!cmdline.isEmpty() && Paths.get(cmdline.get(0)).getFileName().toString().equals("java")) {
+                return true;
+            }
+            parent = parent.get().parent();
+        }
+        return false;
+    }
+
+    /**
+     * A tracked session; the listener records the start and end of every command as progress
+     */
+    private static final class Session implements CommandHook.Listener {
+        private final WebDriver driver;
+        private final CommandHook hook;
+        private final Thread owner;
+        // Selenium renames the thread while a command is in flight
+        private final String ownerName;
+        private final Path profile;
+        private volatile long lastProgressNanos = System.nanoTime();
+        private volatile String lastCommand = "none";
+        private volatile boolean released;
+
+        private Session(WebDriver driver, CommandHook hook, Thread owner, Path profile) {
+            this.driver = driver;
+            this.hook = hook;
+            this.owner = owner;
+            this.ownerName = owner.getName();
+            this.profile = profile;
+        }
+
+        @Override
+        public void beforeCommand(String command) {
+            lastProgressNanos = System.nanoTime();
+            lastCommand = command;
+        }
+
+        @Override
+        public void afterCommand(String command, String locator, long startNanos, long durationNanos, boolean failed) {
+            lastProgressNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.net.PortProber;
+import org.openqa.selenium.remote.http.ClientConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * One Chrome process per JVM shared by all tests (driver.mode=context)
+ * Every test gets its own browser context (separate cookies, storage and cache) created over the browser's
+ * DevTools endpoint, plus a chromedriver session attached to the running browser (debuggerAddress) and switched
+ * to the context's tab. A single chromedriver server hosts all sessions, so a new test starts no process at all.
+ */
+public final class SharedBrowser {
+    private static final Logger logger = LogManager.getLogger(SharedBrowser.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration RECYCLE_DRAIN_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration RECYCLE_RETRY_DELAY = Duration.ofMinutes(10);
+    private static final ThreadLocal<String> currentContext = new ThreadLocal<>();
+    // Contexts created in the running Chrome
+    private static final Set<String> browserContexts = ConcurrentHashMap.newKeySet();
+    private static Process chrome;
+    private static Path profileDir;
+    private static String debuggerAddress;
+    private static SharedDriverService service;
+    private static volatile CdpConnection browser;
+    private static boolean shutdownHookAdded;
+    // Contexts held by tests, including contexts of a Chrome that has exited since; released when their session quits
+    private static int activeContexts;
+    private static boolean recycleRequested;
+    private static long recycleBlockedUntil;
+
+    private SharedBrowser() {}
+
+    /**
+     * New isolated browser context in the shared Chrome, with a WebDriver session focused on its tab
+     * @param hook command hook of the new session
+     */
+    public static WebDriver newContext(CommandHook hook) {
+        reserveContext();
+        String contextId;
+        try {
+            contextId = (String) browser.send("Target.createBrowserContext", Map.of("disposeOnDetach", true))
+                    .get("browserContextId");
+        } catch (RuntimeException e) {
+            releaseContext();
+            throw e;
+        }
+        try {
+            browserContexts.add(contextId);
+            String targetId = (String) browser.send("Target.createTarget",
+                    Map.of("url", "about:blank", "browserContextId", contextId)).get("targetId");
+            ChromeOptions options = new ChromeOptions();
+            options.setExperimentalOption("debuggerAddress", debuggerAddress);
+            ChromeDriver driver = new ChromeDriver(service, options, hook.applyTo(ClientConfig.defaultConfig()));
+            // chromedriver window handles are DevTools target ids
+            driver.switchTo().window(targetId);
+            currentContext.set(contextId);
+            logger.debug("Browser context {} created", contextId);
+            return driver;
+        } catch (RuntimeException e) {
+            disposeContext(contextId);
+            throw e;
+        }
+    }
+
+    /**
+     * Browser context of the current thread (null when the thread has none), which the thread gives up
+     */
+    public static String detachCurrentContext() {
+        String contextId = currentContext.get();
+        currentContext.remove();
+        return contextId;
+    }
+
+    /**
+     * Dispose a browser context (closes its tabs, drops its cookies and storage)
+     */
+    public static void disposeContext(String contextId) {
+        CdpConnection connection = browser;
+        try {
+            // A context of a Chrome that has exited or been replaced is gone with it
+            if (connection != null && browserContexts.remove(contextId)) {
+                connection.send("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not dispose browser context {}: {}", contextId, e.getMessage());
+        } finally {
+            releaseContext();
+        }
+    }
+
+    /**
+     * Restart the shared Chrome before the next context once all open contexts are closed (see ResourceSampler)
+     */
+    static synchronized void requestRecycle(long rssKb) {
+        if (!recycleRequested && System.currentTimeMillis() >= recycleBlockedUntil) {
+            recycleRequested = true;
+            logger.warn("Shared Chrome uses {} MB, recycling it once its {} open contexts are closed",
+                    rssKb / 1024, activeContexts);
+        }
+    }
+
+    /**
+     * Pid of the running shared Chrome, -1 when it is not running
+     */
+    static synchronized long browserPid() {
+        return chrome != null && chrome.isAlive() ? chrome.pid() : -1;
+    }
+
+    private static synchronized void reserveContext() {
+        if (recycleRequested) {
+            // New contexts wait for the open ones to close, for at most RECYCLE_DRAIN_TIMEOUT
+            long deadline = System.currentTimeMillis() + RECYCLE_DRAIN_TIMEOUT.toMillis();
+            try {
+                while (activeContexts > 0 && System.currentTimeMillis() < deadline) {
+                    SharedBrowser.class.wait(Math.max(1, deadline - System.currentTimeMillis()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (activeContexts == 0) {
+                logger.info("Recycling shared Chrome");
+                RunMetrics.sharedBrowserRecycles.increment();
+                shutdown();
+            } else {
+                // Keep the current Chrome and stop holding new contexts back for a while
+                logger.warn("Shared Chrome not recycled, {} contexts still open after {} s; retrying in {} min",
+                        activeContexts, RECYCLE_DRAIN_TIMEOUT.toSeconds(), RECYCLE_RETRY_DELAY.toMinutes());
+                recycleRequested = false;
+                recycleBlockedUntil = System.currentTimeMillis() + RECYCLE_RETRY_DELAY.toMillis();
+            }
+        }
+        start();
+        activeContexts++;
+    }
+
+    private static synchronized void releaseContext() {
+        activeContexts = Math.max(0, activeContexts - 1);
+        SharedBrowser.class.notifyAll();
+    }
+
+    private static synchronized void start() {
+        if (chrome != null && chrome.isAlive()) {
+            return;
+        }
+        if (chrome != null) {
+            logger.warn("Shared Chrome exited (code {}), starting a new one", chrome.exitValue());
+            shutdown();
+        }
+        WebDriverManager manager = WebDriverManager.chromedriver();
+        manager.setup();
+        Path binary = manager.getBrowserPath()
+                .orElseThrow(() -> new RuntimeException("Chrome binary not found (required for driver.mode=context)"));
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(binary.toString());
+            for (String arg : chromeArguments(DriverFactory.getChromeOptions())) {
+                if (arg.startsWith("--user-data-dir=")) {
+                    profileDir = Paths.get(arg.substring("--user-data-dir=".length()));
+                }
+                command.add(arg);
+            }
+            if (profileDir == null) {
+                profileDir = Files.createTempDirectory("selenium-chrome-profile-");
+                command.add("--user-data-dir=" + profileDir);
+            }
+            command.add("--remote-debugging-port=0");
+            command.add("--no-first-run");
+            command.add("--no-default-browser-check");
+            // chromedriver needs at least one page to attach to; it stays open for the whole run
+            command.add("about:blank");
+            chrome = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            debuggerAddress = "127.0.0.1:" + waitForDevToolsPort();
+            browser = CdpConnection.open(webSocketDebuggerUrl());
+
+            service = new SharedDriverService(new File(manager.getDownloadedDriverPath()), PortProber.findFreePort());
+            service.start();
+            if (!shutdownHookAdded) {
+                // Pending background quits still need the browser
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    DriverReaper.drain(ConfigReader.getDriverReaperDrainSeconds());
+                    shutdown();
+                }, "shared-browser-shutdown"));
+                shutdownHookAdded = true;
+            }
+            logger.info("Shared Chrome started (pid {}, DevTools {})", chrome.pid(), debuggerAddress);
+            logger.warn("driver.mode=context is experimental: it has not been verified against a real Chrome yet");
+        } catch (IOException e) {
+            shutdown();
+            throw new RuntimeException("Could not start shared Chrome: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+            throw new RuntimeException("Interrupted while starting shared Chrome", e);
+        }
+    }
+
+    /**
+     * Stop the chromedriver server and Chrome and delete the profile (also runs as a shutdown hook)
+     */
+    public static synchronized void shutdown() {
+        if (service != null) {
+            service.shutdown();
+            service = null;
+        }
+        if (chrome != null) {
+            chrome.destroy();
+            try {
+                if (!chrome.waitFor(5, TimeUnit.SECONDS)) {
+                    chrome.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            chrome = null;
+        }
+        browser = null;
+        // activeContexts is left alone: tests still holding contexts release them when their sessions quit
+        browserContexts.clear();
+        recycleRequested = false;
+        if (profileDir != null) {
+            try (Stream<Path> files = Files.walk(profileDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException ignored) {
+            }
+            profileDir = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> chromeArguments(ChromeOptions options) {
+        Map<String, Object> chromeOptions = (Map<String, Object>) options.asMap().get(ChromeOptions.CAPABILITY);
+        return chromeOptions == null ? List.of() : (List<String>) chromeOptions.getOrDefault("args", List.of());
+    }
+
+    /**
+     * Chrome writes the port picked for --remote-debugging-port=0 to DevToolsActivePort in the profile
+     */
+    private static int waitForDevToolsPort() throws IOException, InterruptedException {
+        Path portFile = profileDir.resolve("DevToolsActivePort");
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!chrome.isAlive()) {
+                throw new IOException("Chrome exited with code " + chrome.exitValue());
+            }
+            if (Files.exists(portFile)) {
+                List<String> lines = Files.readAllLines(portFile);
+                if (!lines.isEmpty() && !lines.get(0).isBlank()) {
+                    return Integer.parseInt(lines.get(0).trim());
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new IOException("Chrome did not open its DevTools port within " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    private static String webSocketDebuggerUrl() throws IOException, InterruptedException {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://" + debuggerAddress + "/json/version")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).get("webSocketDebuggerUrl").asText();
+    }
+
+    /**
+     * chromedriver server shared by all context sessions; ChromeDriver.quit() stops its service, so stop is deferred
+     */
+    private static final class SharedDriverService extends ChromeDriverService {
+        SharedDriverService(File executable, int port) throws IOException {
+            super(executable, port, Duration.ofSeconds(20), List.of("--port=" + port), Map.of());
+        }
+
+        @Override
+        public void stop() {
+            // Sessions come and go; the server lives until shutdown()
+        }
+
+        void shutdown() {
+            super.stop();
+        }
+    }
+
+    /**
+     * Minimal browser-level DevTools client (request/response only, events are ignored)
+     */
+    private static final class CdpConnection implements WebSocket.Listener {
+        private final AtomicInteger ids = new AtomicInteger();
+        private final Map<Integer, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private final StringBuilder partial = new StringBuilder();
+        private WebSocket socket;
+
+        static CdpConnection open(String url) {
+            CdpConnection connection = new CdpConnection();
+            connection.socket = HttpClient.newHttpClient().newWebSocketBuilder()
+                    .buildAsync(URI.create(url), connection).join();
+            return connection;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> send(String method, Map<String, Object> params) {
+            int id = ids.incrementAndGet();
+            CompletableFuture<JsonNode> reply = new CompletableFuture<>();
+            pending.put(id, reply);
+            try {
+                String message = mapper.writeValueAsString(Map.of("id", id, "method", method, "params", params));
+                synchronized (this) {
+                    socket.sendText(message, true).join();
+                }
+                JsonNode response = reply.get(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+                if (response.has("error")) {
+                    throw new RuntimeException(method + " failed: " + response.get("error").path("message").asText());
+                }
+                return mapper.convertValue(response.path("result"), Map.class);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(method + " interrupted", e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(method + " failed: " + e.getMessage(), e);
+            } finally {
+                pending.remove(id);
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                try {
+                    JsonNode message = mapper.readTree(partial.toString());
+                    if (message.has("id")) {
+                        CompletableFuture<JsonNode> reply = pending.get(message.get("id").asInt());
+                        if (reply != null) {
+                            reply.complete(message);
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.debug("Unreadable DevTools message: {}", e.getMessage());
+                }
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            pending.values().forEach(reply -> reply.completeExceptionally(new IOException("DevTools connection closed")));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            pending.values().forEach(reply -> reply.completeExceptionally(error));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package core;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Log4j2 appender keeping the latest events of the running test in a bounded per-thread ring
+ * Capture is started per test (see listeners.LogBufferListener); the ring is rendered and attached to
+ * the Allure result when the test fails and discarded otherwise. Threads without an active capture are ignored.
+ * Usage in log4j2.xml: &lt;TestLogBuffer name="TestLogBuffer" size="2000"/&gt;
+ */
+@Plugin(name = "TestLogBuffer", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
+public class TestLogAppender extends AbstractAppender {
+    private static final ThreadLocal<Ring> rings = new ThreadLocal<>();
+    private static volatile int capacity = 2000;
+    private static volatile Layout<? extends Serializable> activeLayout = PatternLayout.createDefaultLayout();
+
+    protected TestLogAppender(String name, Filter filter, Layout<? extends Serializable> layout) {
+        super(name, filter, layout, true, Property.EMPTY_ARRAY);
+    }
+
+    @PluginFactory
+    public static TestLogAppender createAppender(@PluginAttribute("name") String name,
+                                                 @PluginAttribute(value = "size", defaultInt = 2000) int size,
+                                                 @PluginElement("Layout") Layout<? extends Serializable> layout,
+                                                 @PluginElement("Filter") Filter filter) {
+        Layout<? extends Serializable> effectiveLayout = layout != null ? layout : PatternLayout.createDefaultLayout();
+        capacity = Math.max(1, size);
+        activeLayout = effectiveLayout;
+        return new TestLogAppender(name, filter, effectiveLayout);
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        Ring ring = rings.get();
+        if (ring != null) {
+            ring.add(event.toImmutable());
+        }
+    }
+
+    /**
+     * Start buffering the current thread's events (drops anything buffered before)
+     */
+    public static void startCapture() {
+        rings.set(new Ring(capacity));
+    }
+
+    public static boolean isCapturing() {
+        return rings.get() != null;
+    }
+
+    /**
+     * Stop buffering and discard the current thread's events
+     */
+    public static void discard() {
+        rings.remove();
+    }
+
+    /**
+     * Render the buffered events of the current thread and stop buffering; null when nothing was captured
+     */
+    public static String drain() {
+        Ring ring = rings.get();
+        rings.remove();
+        if (ring == null || ring.total == 0) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(ring.size() * 120);
+        if (ring.total > ring.events.length) {
+            out.append("... ").append(ring.total - ring.events.length).append(" earlier events dropped\n");
+        }
+        ring.forEach(event -> out.append(new String(activeLayout.toByteArray(event), StandardCharsets.UTF_8)));
+        return out.toString();
+    }
+
+    /**
+     * Fixed-size ring written only by its owning thread
+     */
+    private static class Ring {
+        private final LogEvent[] events;
+        private long total;
+
+        Ring(int capacity) {
+            this.events = new LogEvent[capacity];
+        }
+
+        void add(LogEvent event) {
+            events[(int) (total++ % events.length)] = event;
+        }
+
+        int size() {
+            return (int) Math.min(total, events.length);
+        }
+
+        void forEach(java.util.function.Consumer<LogEvent> action) {
+            long start = total - size();
+            for (long i = start; i < total; i++) {
+                action.accept(events[(int) (i % events.length)]);
+            }
+        }
+    }
+}
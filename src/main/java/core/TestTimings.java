@@ -0,0 +1,129 @@
+package core;
+
+import enums.TimingPhase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Phase timing breakdown of a single test (setup, test body and teardown)
+ * Phases may overlap: step time includes the waits/screenshots done inside that step.
+ */
+public class TestTimings {
+    private final long startMillis = System.currentTimeMillis();
+    private final String threadName = Thread.currentThread().getName();
+    private final Map<TimingPhase, long[]> phases = new EnumMap<>(TimingPhase.class);
+    private final List<Step> steps = new ArrayList<>();
+    private final Map<String, Integer> commandCounts = new TreeMap<>();
+    private String testName;
+    private String status;
+    private long totalMs;
+    private ResourceUsage resources;
+
+    synchronized void add(TimingPhase phase, long durationMs) {
+        long[] totals = phases.computeIfAbsent(phase, p -> new long[2]);
+        totals[0] += durationMs;
+        totals[1]++;
+    }
+
+    synchronized void addStep(String name, long durationMs) {
+        steps.add(new Step(name, durationMs));
+        add(TimingPhase.STEP, durationMs);
+    }
+
+    /**
+     * Total time spent in a phase (ms), 0 when the phase did not occur
+     */
+    public synchronized long getPhaseMs(TimingPhase phase) {
+        long[] totals = phases.get(phase);
+        return totals == null ? 0 : totals[0];
+    }
+
+    public synchronized long getPhaseCount(TimingPhase phase) {
+        long[] totals = phases.get(phase);
+        return totals == null ? 0 : totals[1];
+    }
+
+    public synchronized List<Step> getSteps() {
+        return Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    /**
+     * Add WebDriver command counts of a session used by this test (see CommandProfiler)
+     */
+    public synchronized void addCommandCounts(Map<String, Integer> counts) {
+        counts.forEach((command, count) -> commandCounts.merge(command, count, Integer::sum));
+    }
+
+    public synchronized Map<String, Integer> getCommandCounts() {
+        return new TreeMap<>(commandCounts);
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public void setTestName(String testName) {
+        this.testName = testName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getTotalMs() {
+        return totalMs;
+    }
+
+    public void setTotalMs(long totalMs) {
+        this.totalMs = totalMs;
+    }
+
+    /**
+     * Browser process usage of the test (see ResourceSampler), null when not sampled
+     */
+    public ResourceUsage getResources() {
+        return resources;
+    }
+
+    public void setResources(ResourceUsage resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * Named page-object/test step and its duration
+     */
+    public static class Step {
+        private final String name;
+        private final long durationMs;
+
+        Step(String name, long durationMs) {
+            this.name = name;
+            this.durationMs = durationMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package core;
 
+import enums.TimingPhase;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Helper class for WebDriver waits and element interaction utilities
@@ -28,7 +31,7 @@ public class WaitHelper {
      */
     public WebElement waitForElementToBeVisible(By locator) {
         logger.debug("Waiting for element to be visible: {}", locator);
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.visibilityOfElementLocated(locator)));
     }
 
     /**
@@ -36,7 +39,7 @@ public class WaitHelper {
      */
     public WebElement waitForElementToBeVisible(WebElement element) {
         logger.debug("Waiting for element to be visible: {}", element);
-        return wait.until(ExpectedConditions.visibilityOf(element));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.visibilityOf(element)));
     }
 
     /**
@@ -44,7 +47,7 @@ public class WaitHelper {
      */
     public WebElement waitForElementToBeClickable(By locator) {
         logger.debug("Waiting for element to be clickable: {}", locator);
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.elementToBeClickable(locator)));
     }
 
     /**
@@ -52,7 +55,7 @@ public class WaitHelper {
      */
     public WebElement waitForElementToBeClickable(WebElement element) {
         logger.debug("Waiting for element to be clickable: {}", element);
-        return wait.until(ExpectedConditions.elementToBeClickable(element));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.elementToBeClickable(element)));
     }
 
     /**
@@ -60,7 +63,7 @@ public class WaitHelper {
      */
     public WebElement waitForElementToBePresent(By locator) {
         logger.debug("Waiting for element to be present: {}", locator);
-        return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.presenceOfElementLocated(locator)));
     }
 
     /**
@@ -68,7 +71,7 @@ public class WaitHelper {
      */
     public boolean waitForElementToDisappear(By locator) {
         logger.debug("Waiting for element to disappear: {}", locator);
-        return wait.until(ExpectedConditions.invisibilityOfElementLocated(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.invisibilityOfElementLocated(locator)));
     }
 
     /**
@@ -76,7 +79,7 @@ public class WaitHelper {
      */
     public boolean waitForTextToBePresentInElement(WebElement element, String text) {
         logger.debug("Waiting for text '{}' to be present in element: {}", text, element);
-        return wait.until(ExpectedConditions.textToBePresentInElement(element, text));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.textToBePresentInElement(element, text)));
     }
 
     /**
@@ -84,7 +87,7 @@ public class WaitHelper {
      */
     public boolean waitForTitleToContain(String title) {
         logger.debug("Waiting for title to contain: {}", title);
-        return wait.until(ExpectedConditions.titleContains(title));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.titleContains(title)));
     }
 
     /**
@@ -92,7 +95,7 @@ public class WaitHelper {
      */
     public boolean waitForUrlToContain(String urlPart) {
         logger.debug("Waiting for URL to contain: {}", urlPart);
-        return wait.until(ExpectedConditions.urlContains(urlPart));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.urlContains(urlPart)));
     }
 
     /**
@@ -100,7 +103,7 @@ public class WaitHelper {
      */
     public void waitForAlert() {
         logger.debug("Waiting for alert to be present");
-        wait.until(ExpectedConditions.alertIsPresent());
+        PhaseTimer.time(TimingPhase.WAIT, () -> wait.until(ExpectedConditions.alertIsPresent()));
     }
 
     /**
@@ -108,29 +111,87 @@ public class WaitHelper {
      */
     public <T> T waitForCondition(java.util.function.Function<WebDriver, T> condition, int timeoutSeconds) {
         WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-        return customWait.until(condition);
+        return PhaseTimer.time(TimingPhase.WAIT, () -> customWait.until(condition));
     }
 
     /**
      * Sleep for specified milliseconds (use sparingly)
      */
     public void sleep(long milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.error("Sleep interrupted", e);
-        }
+        PhaseTimer.time(TimingPhase.WAIT, () -> {
+            try {
+                Thread.sleep(milliseconds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Sleep interrupted", e);
+            }
+        });
     }
     
     // Additional wait methods with timeout parameter
     public WebElement waitForElementVisible(By locator, int timeoutSeconds) {
         WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-        return customWait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> customWait.until(ExpectedConditions.visibilityOfElementLocated(locator)));
     }
     
     public WebElement waitForElementClickable(By locator, int timeoutSeconds) {
         WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-        return customWait.until(ExpectedConditions.elementToBeClickable(locator));
+        return PhaseTimer.time(TimingPhase.WAIT, () -> customWait.until(ExpectedConditions.elementToBeClickable(locator)));
+    }
+
+    /**
+     * Wait until any alternative of the chain is visible
+     * All alternatives are probed in each poll (ranked by history), so a stale primary costs no timeout
+     */
+    public FallbackLocator.Match waitForFirstVisible(FallbackLocator chain, int timeoutSeconds) {
+        return waitForFirst(chain, timeoutSeconds, false);
+    }
+
+    /**
+     * Wait until any alternative of the chain is visible and enabled
+     */
+    public FallbackLocator.Match waitForFirstClickable(FallbackLocator chain, int timeoutSeconds) {
+        return waitForFirst(chain, timeoutSeconds, true);
+    }
+
+    /**
+     * Wait until any alternative of the chain is visible, without counting it as a success yet
+     * For a caller that may still reject the match (e.g. too few fields): call Match.confirm() once it was used
+     */
+    public FallbackLocator.Match waitForFirstCandidate(FallbackLocator chain, int timeoutSeconds) {
+        return waitForFirst(chain, timeoutSeconds, false, false);
+    }
+
+    private FallbackLocator.Match waitForFirst(FallbackLocator chain, int timeoutSeconds, boolean clickable) {
+        return waitForFirst(chain, timeoutSeconds, clickable, true);
+    }
+
+    private FallbackLocator.Match waitForFirst(FallbackLocator chain, int timeoutSeconds, boolean clickable, boolean record) {
+        logger.debug("Waiting for any alternative of {}", chain);
+        List<String> ranked = chain.rankedLabels();
+        // Implicit wait would block every missing alternative, so probe with zero wait
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        try {
+            WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds), Duration.ofMillis(250));
+            customWait.withMessage(() -> "None of the alternatives matched: " + chain)
+                    .ignoring(StaleElementReferenceException.class);
+            FallbackLocator.Match match = PhaseTimer.time(TimingPhase.WAIT, () -> customWait.until(d -> {
+                for (String label : ranked) {
+                    for (WebElement element : d.findElements(chain.getAlternatives().get(label))) {
+                        if (element.isDisplayed() && (!clickable || element.isEnabled())) {
+                            return new FallbackLocator.Match(chain.getName(), label, element);
+                        }
+                    }
+                }
+                return null;
+            }));
+            if (record) {
+                match.confirm();
+            }
+            logger.debug("{} matched alternative '{}'", chain.getName(), match.getLabel());
+            return match;
+        } finally {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigReader.getImplicitWait()));
+        }
     }
 }
\ No newline at end of file
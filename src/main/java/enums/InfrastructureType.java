@@ -0,0 +1,22 @@
+package enums;
+
+/**
+ * Enum for external infrastructure guarded by circuit breakers
+ */
+public enum InfrastructureType {
+    LOCAL_BROWSER("Local browser"),
+    SELENIUM_GRID("Selenium Grid"),
+    APPIUM_SERVER("Appium server"),
+    TARGET_SITE("Target site"),
+    EMAIL_IMAP("Email IMAP server");
+
+    private final String displayName;
+
+    InfrastructureType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,26 @@
+package enums;
+
+/**
+ * Enum for phases of a test tracked by PhaseTimer
+ */
+public enum TimingPhase {
+    ADMISSION("admission"),
+    GRID_QUEUE("grid_queue"),
+    DRIVER("driver"),
+    NAVIGATION("navigation"),
+    STEP("step"),
+    WAIT("wait"),
+    EMAIL("email"),
+    SCREENSHOT("screenshot"),
+    TEARDOWN("teardown");
+
+    private final String phaseName;
+
+    TimingPhase(String phaseName) {
+        this.phaseName = phaseName;
+    }
+
+    public String getPhaseName() {
+        return phaseName;
+    }
+}
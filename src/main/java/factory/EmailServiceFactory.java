@@ -0,0 +1,19 @@
+package factory;
+
+import core.ConfigReader;
+import fake.FakeEmailService;
+import interfaces.IEmailService;
+import utils.EmailService;
+
+/**
+ * Factory for the OTP inbox: Gmail over IMAP, or the scripted inbox when the fake driver is selected
+ */
+public class EmailServiceFactory {
+
+    public static IEmailService getEmailService() {
+        if (ConfigReader.isFakeDriverEnabled()) {
+            return new FakeEmailService();
+        }
+        return new EmailService();
+    }
+}
@@ -0,0 +1,226 @@
+package fake;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openqa.selenium.By;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Scripted DOM of the fake driver, read from a JSON file (fake.dom.web / fake.dom.ios)
+ * A script is a set of named screens; each screen lists its elements with the locators that find them
+ * ("using=value" as sent over the wire, e.g. "css selector=#id" or "accessibility id=Email address"), an optional
+ * appearance delay and the screen a click leads to. Scripts are parsed once and shared by all fake sessions.
+ */
+final class FakeDom {
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Map<String, FakeDom> scripts = new ConcurrentHashMap<>();
+    // Characters the W3C command codec escapes in ids and class names it turns into CSS selectors
+    private static final Pattern CSS_ESCAPE = Pattern.compile("([\\s'\"\\\\#.:;,!?+<>=~*^$|%&@`{}\\-/\\[\\]()])");
+
+    /** Base URL of the scripted site; screen paths are relative to it */
+    public String url = "";
+    /** Screen shown after get(url) or, on iOS, right after the app launched */
+    public String start;
+    /** Verification code delivered by FakeEmailService */
+    public String otp = "000000";
+    /** Optional logged-in state: with this cookie set, navigating to the start screen shows session.screen */
+    public Session session;
+    public Map<String, Screen> screens = new LinkedHashMap<>();
+
+    private final Map<String, byte[]> screenshots = new ConcurrentHashMap<>();
+
+    static FakeDom load(String file) {
+        return scripts.computeIfAbsent(file, FakeDom::parse);
+    }
+
+    private static FakeDom parse(String file) {
+        try {
+            FakeDom dom = mapper.readValue(new File(file), FakeDom.class);
+            dom.validate(file);
+            return dom;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fake DOM script could not be read: " + file, e);
+        }
+    }
+
+    private void validate(String file) {
+        if (!screens.containsKey(start)) {
+            throw new IllegalStateException(file + ": unknown start screen " + start);
+        }
+        if (session != null && !screens.containsKey(session.screen)) {
+            throw new IllegalStateException(file + ": unknown session screen " + session.screen);
+        }
+        for (Map.Entry<String, Screen> screen : screens.entrySet()) {
+            screen.getValue().name = screen.getKey();
+            for (Node node : screen.getValue().all()) {
+                node.by.replaceAll(FakeDom::wire);
+                node.descendants = node.collectDescendants();
+                if (node.click != null && !screens.containsKey(node.click)) {
+                    throw new IllegalStateException(file + ": " + screen.getKey() + " links to unknown screen " + node.click);
+                }
+            }
+        }
+    }
+
+    /**
+     * Locator ("using=value") as a W3C client sends it: id, name and class name locators become CSS selectors
+     */
+    static String wire(String locator) {
+        int split = locator.indexOf('=');
+        return split < 0 ? locator : wire(locator.substring(0, split), locator.substring(split + 1));
+    }
+
+    static String wire(String using, String value) {
+        switch (using) {
+            case "id":
+                return "css selector=#" + cssEscape(value);
+            case "class name":
+                return "css selector=." + cssEscape(value);
+            case "name":
+                return "css selector=*[name='" + value + "']";
+            default:
+                return using + "=" + value;
+        }
+    }
+
+    private static String cssEscape(String identifier) {
+        String escaped = CSS_ESCAPE.matcher(identifier).replaceAll("\\\\$1");
+        if (!escaped.isEmpty() && Character.isDigit(escaped.charAt(0))) {
+            escaped = "\\" + (30 + Character.digit(escaped.charAt(0), 10)) + " " + escaped.substring(1);
+        }
+        return escaped;
+    }
+
+    Screen screen(String name) {
+        return screens.get(name);
+    }
+
+    /**
+     * Screen a navigation to url lands on: the screen with the longest matching path, otherwise the start screen
+     */
+    Screen screenFor(String url) {
+        String path = url.startsWith(this.url) ? url.substring(this.url.length()) : url;
+        Screen target = screens.get(start);
+        int matched = 1;
+        for (Screen screen : screens.values()) {
+            if (screen.path != null && screen.path.length() > matched && path.startsWith(screen.path)) {
+                target = screen;
+                matched = screen.path.length();
+            }
+        }
+        return target;
+    }
+
+    /**
+     * PNG of a screen: a solid frame in a colour derived from its name, rendered once per screen
+     */
+    byte[] screenshot(Screen screen, int width, int height) {
+        return screenshots.computeIfAbsent(screen.name + "@" + width, key -> {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(screen.name.hashCode() & 0xFFFFFF));
+            graphics.fillRect(0, 0, width, height);
+            graphics.dispose();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(image, "png", out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        });
+    }
+
+    static final class Session {
+        public String cookie;
+        public String screen;
+    }
+
+    static final class Screen {
+        String name;
+        public String title = "";
+        public String path;
+        /** Cookies the site sets when this screen is shown */
+        public Map<String, String> cookies = Collections.emptyMap();
+        public List<Node> elements = new ArrayList<>();
+        private List<Node> all;
+
+        /**
+         * All elements of the screen, nested ones included (document order)
+         */
+        List<Node> all() {
+            if (all == null) {
+                List<Node> collected = new ArrayList<>();
+                for (Node node : elements) {
+                    node.collect(collected);
+                }
+                all = collected;
+            }
+            return all;
+        }
+    }
+
+    static final class Node {
+        /** Locators that find the element, kept in wire form (see wire) */
+        public List<String> by = new ArrayList<>();
+        public String tag = "div";
+        public String text = "";
+        public Map<String, String> attributes = Collections.emptyMap();
+        /** Appearance delay after the screen was shown, -1: fake.element.delay.ms */
+        public long delayMs = -1;
+        /** Screen shown when the element is clicked */
+        public String click;
+        /** Number of clicks intercepted (ElementClickInterceptedException) before one goes through */
+        public int failClicks;
+        public boolean enabled = true;
+        public List<Node> children = new ArrayList<>();
+        private List<Node> descendants;
+
+        private void collect(List<Node> into) {
+            into.add(this);
+            for (Node child : children) {
+                child.collect(into);
+            }
+        }
+
+        List<Node> descendants() {
+            return descendants;
+        }
+
+        private List<Node> collectDescendants() {
+            List<Node> all = new ArrayList<>();
+            for (Node child : children) {
+                child.collect(all);
+            }
+            return all;
+        }
+
+        boolean matches(By locator) {
+            if (!(locator instanceof By.Remotable)) {
+                return false;
+            }
+            By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+            return by.contains(wire(parameters.using(), String.valueOf(parameters.value())));
+        }
+
+        String describe() {
+            return by.isEmpty() ? tag : by.get(0);
+        }
+    }
+}
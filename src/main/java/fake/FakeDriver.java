@@ -0,0 +1,721 @@
+package fake;
+
+import core.CommandHook;
+import core.ConfigReader;
+import enums.PlatformType;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.logging.Logs;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process WebDriver over a scripted DOM (FakeDom), for hermetic runs and framework overhead benchmarks (fake.*)
+ * Every command costs a latency drawn from fake.latency.distribution (none, fixed or lognormal between
+ * fake.latency.median.ms and fake.latency.p99.ms) and fails with a WebDriverException at fake.failure.rate; element
+ * commands also go stale at fake.stale.rate. Elements appear fake.element.delay.ms after their screen was shown (or
+ * their own delayMs), the implicit wait sleeps until then like a browser polling its DOM. Sessions are seeded from
+ * fake.seed, so latencies and injected failures repeat from run to run.
+ */
+public class FakeDriver implements WebDriver, JavascriptExecutor, TakesScreenshot, HasCapabilities {
+    private static final AtomicInteger sessions = new AtomicInteger();
+    // 2.326 standard deviations: the 99th percentile of a normal distribution
+    private static final double Z_99 = 2.326;
+    // Scripts the framework runs (SessionSnapshot, JS clicks); anything else fails instead of returning null
+    private static final String RESTORE_STORAGE_SCRIPT =
+            "var l=arguments[0]||{},s=arguments[1]||{};for(var k in l)localStorage.setItem(k,l[k]);"
+                    + "for(var k in s)sessionStorage.setItem(k,s[k]);";
+    private static final String CLICK_SCRIPT = "arguments[0].click();";
+
+    private final PlatformType platform;
+    private final FakeDom dom;
+    private final String handle;
+    private final Capabilities capabilities;
+    private final Random random;
+    private final String distribution;
+    private final long medianNanos;
+    private final double sigma;
+    private final long elementDelayMs;
+    private final double failureRate;
+    private final double staleRate;
+    private final CommandHook hook;
+
+    private FakeDom.Screen screen;
+    private long shownAtNanos;
+    private int generation;
+    private String currentUrl = "about:blank";
+    private final Deque<FakeDom.Screen> history = new ArrayDeque<>();
+    private final Map<FakeDom.Node, String> values = new HashMap<>();
+    private final Map<FakeDom.Node, Integer> clicks = new HashMap<>();
+    private final Map<String, Cookie> cookies = new LinkedHashMap<>();
+    private final Map<String, String> localStorage = new LinkedHashMap<>();
+    private final Map<String, String> sessionStorage = new LinkedHashMap<>();
+    private Duration implicitWait = Duration.ZERO;
+    private Duration scriptTimeout = Duration.ofSeconds(30);
+    private Duration pageLoadTimeout = Duration.ofSeconds(300);
+    private volatile boolean quit;
+    private long commands;
+
+    public FakeDriver(PlatformType platform) {
+        this(platform, new CommandHook());
+    }
+
+    /**
+     * @param hook receives every command, like the HTTP client filter of a real session
+     */
+    public FakeDriver(PlatformType platform, CommandHook hook) {
+        this.platform = platform;
+        this.hook = hook;
+        this.dom = FakeDom.load(ConfigReader.getFakeDomFile(platform.getPlatformName()));
+        int session = sessions.incrementAndGet();
+        this.handle = "fake-" + session;
+        long seed = ConfigReader.getFakeSeed();
+        this.random = seed == 0 ? new Random() : new Random(seed + session);
+        this.distribution = ConfigReader.getFakeLatencyDistribution();
+        double medianMs = ConfigReader.getFakeLatencyMedianMs();
+        this.medianNanos = (long) (medianMs * 1_000_000);
+        this.sigma = medianMs > 0 ? Math.log(Math.max(ConfigReader.getFakeLatencyP99Ms(), medianMs) / medianMs) / Z_99 : 0;
+        this.elementDelayMs = ConfigReader.getFakeElementDelayMs();
+        this.failureRate = ConfigReader.getFakeFailureRate();
+        this.staleRate = ConfigReader.getFakeStaleRate();
+        this.capabilities = new ImmutableCapabilities("browserName", "fake",
+                "platformName", platform == PlatformType.IOS ? "iOS" : "linux");
+        if (platform == PlatformType.IOS) {
+            // The app is launched with the session
+            show(dom.screen(dom.start));
+        }
+    }
+
+    /**
+     * Commands sent by this session so far
+     */
+    public synchronized long getCommandCount() {
+        return commands;
+    }
+
+    @Override
+    public void get(String url) {
+        command("get");
+        navigate(url, true);
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        command("getCurrentUrl");
+        synchronized (this) {
+            return currentUrl;
+        }
+    }
+
+    @Override
+    public String getTitle() {
+        command("getTitle");
+        synchronized (this) {
+            return screen == null ? "" : screen.title;
+        }
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        command("findElements", CommandHook.locator(by));
+        return locate(by, null);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        command("findElement", CommandHook.locator(by));
+        return first(by, locate(by, null));
+    }
+
+    @Override
+    public String getPageSource() {
+        command("getPageSource");
+        synchronized (this) {
+            StringBuilder html = new StringBuilder("<html><head><title>")
+                    .append(screen == null ? "" : screen.title).append("</title></head><body>");
+            if (screen != null) {
+                long now = System.nanoTime();
+                for (FakeDom.Node node : screen.all()) {
+                    if (appearsAt(node) <= now) {
+                        html.append('<').append(node.tag).append(" data-by=\"").append(node.describe()).append("\">")
+                                .append(node.text).append("</").append(node.tag).append('>');
+                    }
+                }
+            }
+            return html.append("</body></html>").toString();
+        }
+    }
+
+    @Override
+    public void close() {
+        quit();
+    }
+
+    @Override
+    public void quit() {
+        if (quit) {
+            return;
+        }
+        sleep(latencyNanos());
+        quit = true;
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        command("getWindowHandles");
+        return Set.of(handle);
+    }
+
+    @Override
+    public String getWindowHandle() {
+        command("getWindowHandle");
+        return handle;
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return new FakeTargetLocator();
+    }
+
+    @Override
+    public Navigation navigate() {
+        return new FakeNavigation();
+    }
+
+    @Override
+    public Options manage() {
+        return new FakeOptions();
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        command("executeScript");
+        switch (script.strip()) {
+            case RESTORE_STORAGE_SCRIPT:
+                synchronized (this) {
+                    putAll(localStorage, args.length > 0 ? args[0] : null);
+                    putAll(sessionStorage, args.length > 1 ? args[1] : null);
+                }
+                return null;
+            case CLICK_SCRIPT:
+                if (args.length == 0 || !(args[0] instanceof WebElement)) {
+                    throw new JavascriptException("arguments[0] is not an element");
+                }
+                WebElement element = (WebElement) args[0];
+                (element instanceof WrapsElement ? ((WrapsElement) element).getWrappedElement() : element).click();
+                return null;
+            default:
+                break;
+        }
+        synchronized (this) {
+            switch (script.strip()) {
+                case "return location.origin;":
+                    URI uri = URI.create(currentUrl);
+                    return uri.getScheme() + "://" + uri.getAuthority();
+                case "return navigator.userAgent;":
+                    return "Mozilla/5.0 (X11; Linux x86_64) FakeDriver/1.0";
+                case "return Object.assign({}, window.localStorage);":
+                    return new LinkedHashMap<>(localStorage);
+                case "return Object.assign({}, window.sessionStorage);":
+                    return new LinkedHashMap<>(sessionStorage);
+                case "return document.readyState;":
+                    return "complete";
+                default:
+                    // A script the fake does not know would silently do nothing: fail like a browser would
+                    throw new JavascriptException("Script not supported by the fake driver: " + script);
+            }
+        }
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return executeScript(script, args);
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        command("getScreenshot");
+        return target.convertFromPngBytes(screenshot());
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return capabilities;
+    }
+
+    @Override
+    public String toString() {
+        return "FakeDriver: " + platform.getPlatformName() + " (" + handle + ")";
+    }
+
+    // --- Used by FakeElement ---
+
+    /**
+     * One command on an element: latency, injected failures, then the stale check against the current screen
+     */
+    void elementCommand(FakeElement element, String name) {
+        command(name);
+        if (staleRate > 0 && random.nextDouble() < staleRate) {
+            throw new StaleElementReferenceException("Injected stale element: " + element);
+        }
+        synchronized (this) {
+            if (element.generation != generation) {
+                throw new StaleElementReferenceException("Element is no longer attached to the DOM: " + element);
+            }
+        }
+    }
+
+    List<WebElement> locate(By by, FakeElement parent) {
+        long deadline = System.nanoTime() + implicitWaitNanos();
+        while (true) {
+            long now = System.nanoTime();
+            long next = Long.MAX_VALUE;
+            List<WebElement> found = new ArrayList<>();
+            synchronized (this) {
+                if (screen == null) {
+                    return found;
+                }
+                for (FakeDom.Node node : parent == null ? screen.all() : parent.node.descendants()) {
+                    if (node.matches(by)) {
+                        long appearsAt = appearsAt(node);
+                        if (appearsAt <= now) {
+                            found.add(new FakeElement(this, node, generation));
+                        } else {
+                            next = Math.min(next, appearsAt);
+                        }
+                    }
+                }
+            }
+            // Nothing yet: sleep until the next match appears, within the implicit wait
+            if (!found.isEmpty() || next == Long.MAX_VALUE || now >= deadline) {
+                return found;
+            }
+            if (next > deadline) {
+                sleep(deadline - now);
+                return found;
+            }
+            sleep(next - now);
+        }
+    }
+
+    WebElement first(By by, List<WebElement> found) {
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("Unable to locate element: " + by);
+        }
+        return found.get(0);
+    }
+
+    synchronized void click(FakeDom.Node node) {
+        int clicked = clicks.merge(node, 1, Integer::sum);
+        if (clicked <= node.failClicks) {
+            throw new ElementClickInterceptedException(
+                    "Element " + node.describe() + " is not clickable: another element would receive the click");
+        }
+        if (node.click != null) {
+            history.push(screen);
+            show(dom.screen(node.click));
+        }
+    }
+
+    synchronized String value(FakeDom.Node node) {
+        return values.getOrDefault(node, node.attributes.getOrDefault("value", ""));
+    }
+
+    synchronized void setValue(FakeDom.Node node, String value) {
+        values.put(node, value);
+    }
+
+    synchronized byte[] screenshot() {
+        FakeDom.Screen shown = screen == null ? dom.screen(dom.start) : screen;
+        return platform == PlatformType.IOS ? dom.screenshot(shown, 390, 844) : dom.screenshot(shown, 1280, 800);
+    }
+
+    // --- Session state ---
+
+    private void command(String name) {
+        command(name, null);
+    }
+
+    private void command(String name, String locator) {
+        if (quit) {
+            throw new NoSuchSessionException("Session " + handle + " was quit");
+        }
+        synchronized (this) {
+            commands++;
+        }
+        hook.commandStarted(name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            sleep(latencyNanos());
+            if (failureRate > 0 && random.nextDouble() < failureRate) {
+                throw new WebDriverException("Injected failure: " + name);
+            }
+            failed = false;
+        } finally {
+            hook.commandFinished(name, locator, start, failed);
+        }
+    }
+
+    private synchronized void navigate(String url, boolean remember) {
+        currentUrl = url;
+        FakeDom.Screen target = dom.screenFor(url);
+        if (target.name.equals(dom.start) && dom.session != null && cookies.containsKey(dom.session.cookie)) {
+            target = dom.screen(dom.session.screen);
+        }
+        if (remember && screen != null) {
+            history.push(screen);
+        }
+        show(target);
+    }
+
+    private void show(FakeDom.Screen target) {
+        screen = target;
+        shownAtNanos = System.nanoTime();
+        generation++;
+        values.clear();
+        clicks.clear();
+        if (target.path != null && platform == PlatformType.WEB) {
+            currentUrl = dom.url + target.path;
+        }
+        for (Map.Entry<String, String> cookie : target.cookies.entrySet()) {
+            cookies.put(cookie.getKey(), new Cookie(cookie.getKey(), cookie.getValue()));
+        }
+    }
+
+    private long appearsAt(FakeDom.Node node) {
+        long delayMs = node.delayMs >= 0 ? node.delayMs : elementDelayMs;
+        return shownAtNanos + TimeUnit.MILLISECONDS.toNanos(delayMs);
+    }
+
+    private synchronized long implicitWaitNanos() {
+        return implicitWait.toNanos();
+    }
+
+    private long latencyNanos() {
+        switch (distribution) {
+            case "none":
+                return 0;
+            case "fixed":
+                return medianNanos;
+            default:
+                // Log-normal: median exp(mu), sigma from the configured p99
+                return (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putAll(Map<String, String> storage, Object items) {
+        if (items instanceof Map) {
+            ((Map<Object, Object>) items).forEach((k, v) -> storage.put(String.valueOf(k), String.valueOf(v)));
+        }
+    }
+
+    private final class FakeNavigation implements Navigation {
+        @Override
+        public void back() {
+            command("back");
+            synchronized (FakeDriver.this) {
+                if (!history.isEmpty()) {
+                    show(history.pop());
+                }
+            }
+        }
+
+        @Override
+        public void forward() {
+            command("forward");
+        }
+
+        @Override
+        public void to(String url) {
+            get(url);
+        }
+
+        @Override
+        public void to(URL url) {
+            get(url.toString());
+        }
+
+        @Override
+        public void refresh() {
+            command("refresh");
+            synchronized (FakeDriver.this) {
+                if (screen != null) {
+                    // A reload sees cookies set since the last navigation
+                    navigate(currentUrl, false);
+                }
+            }
+        }
+    }
+
+    private final class FakeOptions implements Options {
+        @Override
+        public void addCookie(Cookie cookie) {
+            command("addCookie");
+            synchronized (FakeDriver.this) {
+                cookies.put(cookie.getName(), cookie);
+            }
+        }
+
+        @Override
+        public void deleteCookieNamed(String name) {
+            command("deleteCookie");
+            synchronized (FakeDriver.this) {
+                cookies.remove(name);
+            }
+        }
+
+        @Override
+        public void deleteCookie(Cookie cookie) {
+            deleteCookieNamed(cookie.getName());
+        }
+
+        @Override
+        public void deleteAllCookies() {
+            command("deleteAllCookies");
+            synchronized (FakeDriver.this) {
+                cookies.clear();
+            }
+        }
+
+        @Override
+        public Set<Cookie> getCookies() {
+            command("getCookies");
+            synchronized (FakeDriver.this) {
+                return new LinkedHashSet<>(cookies.values());
+            }
+        }
+
+        @Override
+        public Cookie getCookieNamed(String name) {
+            command("getCookie");
+            synchronized (FakeDriver.this) {
+                return cookies.get(name);
+            }
+        }
+
+        @Override
+        public Timeouts timeouts() {
+            return new FakeTimeouts();
+        }
+
+        @Override
+        public Window window() {
+            return new FakeWindow();
+        }
+
+        @Override
+        public Logs logs() {
+            throw new UnsupportedCommandException("Logs are not supported by the fake driver");
+        }
+    }
+
+    private final class FakeTimeouts implements Timeouts {
+        @Override
+        @Deprecated
+        public Timeouts implicitlyWait(long time, TimeUnit unit) {
+            return implicitlyWait(Duration.ofNanos(unit.toNanos(time)));
+        }
+
+        @Override
+        public Timeouts implicitlyWait(Duration duration) {
+            command("setTimeouts");
+            synchronized (FakeDriver.this) {
+                implicitWait = duration;
+            }
+            return this;
+        }
+
+        @Override
+        public Duration getImplicitWaitTimeout() {
+            command("getTimeouts");
+            synchronized (FakeDriver.this) {
+                return implicitWait;
+            }
+        }
+
+        @Override
+        @Deprecated
+        public Timeouts setScriptTimeout(long time, TimeUnit unit) {
+            return scriptTimeout(Duration.ofNanos(unit.toNanos(time)));
+        }
+
+        @Override
+        public Timeouts scriptTimeout(Duration duration) {
+            command("setTimeouts");
+            synchronized (FakeDriver.this) {
+                scriptTimeout = duration;
+            }
+            return this;
+        }
+
+        @Override
+        public Duration getScriptTimeout() {
+            synchronized (FakeDriver.this) {
+                return scriptTimeout;
+            }
+        }
+
+        @Override
+        @Deprecated
+        public Timeouts pageLoadTimeout(long time, TimeUnit unit) {
+            return pageLoadTimeout(Duration.ofNanos(unit.toNanos(time)));
+        }
+
+        @Override
+        public Timeouts pageLoadTimeout(Duration duration) {
+            command("setTimeouts");
+            synchronized (FakeDriver.this) {
+                pageLoadTimeout = duration;
+            }
+            return this;
+        }
+
+        @Override
+        public Duration getPageLoadTimeout() {
+            synchronized (FakeDriver.this) {
+                return pageLoadTimeout;
+            }
+        }
+    }
+
+    private final class FakeWindow implements Window {
+        @Override
+        public Dimension getSize() {
+            command("getWindowRect");
+            return platform == PlatformType.IOS ? new Dimension(390, 844) : new Dimension(1280, 800);
+        }
+
+        @Override
+        public void setSize(Dimension targetSize) {
+            command("setWindowRect");
+        }
+
+        @Override
+        public Point getPosition() {
+            command("getWindowRect");
+            return new Point(0, 0);
+        }
+
+        @Override
+        public void setPosition(Point targetPosition) {
+            command("setWindowRect");
+        }
+
+        @Override
+        public void maximize() {
+            command("maximizeWindow");
+        }
+
+        @Override
+        public void minimize() {
+            command("minimizeWindow");
+        }
+
+        @Override
+        public void fullscreen() {
+            command("fullscreenWindow");
+        }
+    }
+
+    /**
+     * One window without frames or alerts: switching stays in it
+     */
+    private final class FakeTargetLocator implements TargetLocator {
+        @Override
+        public WebDriver frame(int index) {
+            command("switchToFrame");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebDriver frame(String nameOrId) {
+            command("switchToFrame");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebDriver frame(WebElement frameElement) {
+            command("switchToFrame");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebDriver parentFrame() {
+            command("switchToParentFrame");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebDriver window(String nameOrHandle) {
+            command("switchToWindow");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebDriver newWindow(WindowType typeHint) {
+            throw new UnsupportedCommandException("New windows are not supported by the fake driver");
+        }
+
+        @Override
+        public WebDriver defaultContent() {
+            command("switchToFrame");
+            return FakeDriver.this;
+        }
+
+        @Override
+        public WebElement activeElement() {
+            throw new NoSuchElementException("No active element in the fake driver");
+        }
+
+        @Override
+        public Alert alert() {
+            command("getAlertText");
+            throw new NoAlertPresentException("No alert in the fake driver");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package fake;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Element of a FakeDriver screen; stale once the driver shows another screen (a new generation)
+ */
+class FakeElement implements WebElement {
+    private final FakeDriver driver;
+    final FakeDom.Node node;
+    final int generation;
+
+    FakeElement(FakeDriver driver, FakeDom.Node node, int generation) {
+        this.driver = driver;
+        this.node = node;
+        this.generation = generation;
+    }
+
+    @Override
+    public void click() {
+        driver.elementCommand(this, "elementClick");
+        if (!node.enabled) {
+            throw new ElementNotInteractableException("Element " + node.describe() + " is disabled");
+        }
+        driver.click(node);
+    }
+
+    @Override
+    public void submit() {
+        click();
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        driver.elementCommand(this, "elementSendKeys");
+        StringBuilder value = new StringBuilder(driver.value(node));
+        for (CharSequence keys : keysToSend) {
+            value.append(keys);
+        }
+        driver.setValue(node, value.toString());
+    }
+
+    @Override
+    public void clear() {
+        driver.elementCommand(this, "elementClear");
+        driver.setValue(node, "");
+    }
+
+    @Override
+    public String getTagName() {
+        driver.elementCommand(this, "getElementTagName");
+        return node.tag;
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        driver.elementCommand(this, "getElementAttribute");
+        return "value".equals(name) ? driver.value(node) : node.attributes.get(name);
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public String getDomProperty(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public boolean isSelected() {
+        driver.elementCommand(this, "isElementSelected");
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        driver.elementCommand(this, "isElementEnabled");
+        return node.enabled;
+    }
+
+    @Override
+    public String getText() {
+        driver.elementCommand(this, "getElementText");
+        return node.text;
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        driver.elementCommand(this, "findChildElements");
+        return driver.locate(by, this);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        driver.elementCommand(this, "findChildElement");
+        return driver.first(by, driver.locate(by, this));
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        // Elements are found only once they have appeared
+        driver.elementCommand(this, "isElementDisplayed");
+        return true;
+    }
+
+    @Override
+    public Point getLocation() {
+        driver.elementCommand(this, "getElementRect");
+        return new Point(0, 0);
+    }
+
+    @Override
+    public Dimension getSize() {
+        driver.elementCommand(this, "getElementRect");
+        return new Dimension(100, 40);
+    }
+
+    @Override
+    public Rectangle getRect() {
+        driver.elementCommand(this, "getElementRect");
+        return new Rectangle(new Point(0, 0), new Dimension(100, 40));
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        driver.elementCommand(this, "getElementValueOfCssProperty");
+        return "";
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        driver.elementCommand(this, "elementScreenshot");
+        return target.convertFromPngBytes(driver.screenshot());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FakeElement)) {
+            return false;
+        }
+        FakeElement other = (FakeElement) o;
+        return driver == other.driver && node == other.node && generation == other.generation;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(driver), System.identityHashCode(node), generation);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + driver + "] -> " + node.describe();
+    }
+}
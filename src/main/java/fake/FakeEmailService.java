@@ -0,0 +1,47 @@
+package fake;
+
+import core.ConfigReader;
+import core.PhaseTimer;
+import enums.TimingPhase;
+import interfaces.IEmailService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Inbox of the fake driver: the OTP of the platform's DOM script arrives fake.email.delay.ms after the request
+ * (instead of the real initial delay and IMAP polling)
+ */
+public class FakeEmailService implements IEmailService {
+    private static final Logger logger = LogManager.getLogger(FakeEmailService.class);
+
+    @Override
+    public String fetchVerificationCode(String emailAccount,
+                                        String appPassword,
+                                        String fromFilter,
+                                        String subjectFilter,
+                                        int timeoutSeconds) {
+        long delayMs = ConfigReader.getFakeEmailDelayMs();
+        if (delayMs > TimeUnit.SECONDS.toMillis(timeoutSeconds)) {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(timeoutSeconds));
+            throw new RuntimeException("Verification code not found within timeout");
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        String code = FakeDom.load(ConfigReader.getFakeDomFile(ConfigReader.getPlatform())).otp;
+        logger.debug("Fake verification code for {} delivered after {} ms", emailAccount, delayMs);
+        return code;
+    }
+
+    @Override
+    public String fetchVerificationCode(String emailAccount,
+                                        String appPassword,
+                                        String fromFilter,
+                                        String subjectFilter,
+                                        int timeoutSeconds,
+                                        int initialDelaySeconds) {
+        return PhaseTimer.time(TimingPhase.EMAIL,
+                () -> fetchVerificationCode(emailAccount, appPassword, fromFilter, subjectFilter, timeoutSeconds));
+    }
+}
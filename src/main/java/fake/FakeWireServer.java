@@ -0,0 +1,443 @@
+package fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.CommandHook;
+import enums.PlatformType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchCookieException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.ErrorCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FakeDriver sessions served over the W3C WebDriver protocol on the loopback interface (fake.driver.wire)
+ * With it a hermetic run drives a real RemoteWebDriver or IOSDriver client through the framework's HTTP transport,
+ * so the parts that only exist on a real session (command hook, connection pool, Appium driver class) are exercised
+ * without a browser or an Appium server. Only the commands the page objects and the framework send are implemented.
+ */
+public final class FakeWireServer {
+    private static final Logger logger = LogManager.getLogger(FakeWireServer.class);
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ErrorCodec errors = ErrorCodec.createDefault();
+    private static final AtomicInteger sessionIds = new AtomicInteger();
+    private static URL url;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private FakeWireServer() {}
+
+    /**
+     * Start the server on first use
+     * @return its URL, the remote end for new sessions
+     */
+    public static synchronized URL start() {
+        if (url == null) {
+            try {
+                HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+                server.setExecutor(Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "fake-wire-server");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+                server.createContext("/", new FakeWireServer()::serve);
+                // The dispatcher thread inherits the daemon flag of the starting thread; it must not keep the JVM up
+                Thread starter = new Thread(server::start, "fake-wire-server-start");
+                starter.setDaemon(true);
+                starter.start();
+                starter.join();
+                url = new URL("http://127.0.0.1:" + server.getAddress().getPort());
+                logger.info("Fake WebDriver endpoint listening on {}", url);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Fake WebDriver endpoint could not be started", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while starting the fake WebDriver endpoint", e);
+            }
+        }
+        return url;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        int status = 200;
+        Map<String, Object> response;
+        try {
+            response = singletonValue(handle(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), read(exchange)));
+        } catch (RuntimeException e) {
+            status = errors.getHttpStatusCode(e);
+            response = errors.encode(e);
+        }
+        byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Object handle(String method, String path, Map<String, Object> body) {
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        if (!"session".equals(segments[0])) {
+            if ("GET".equals(method) && "status".equals(segments[0])) {
+                return Map.of("ready", true, "message", "fake");
+            }
+            throw new UnsupportedCommandException(method + " " + path);
+        }
+        if (segments.length == 1) {
+            return newSession(body);
+        }
+        Session session = sessions.get(segments[1]);
+        if (session == null) {
+            throw new NoSuchSessionException("No active session with id " + segments[1]);
+        }
+        if (segments.length == 2 && "DELETE".equals(method)) {
+            sessions.remove(segments[1]);
+            session.driver.quit();
+            return null;
+        }
+        // Command key without ids ("POST /element/{}/click") and the ids in order
+        StringBuilder key = new StringBuilder(method).append(' ');
+        List<String> ids = new ArrayList<>();
+        for (int i = 2; i < segments.length; i++) {
+            key.append('/').append(segments[i]);
+            if (i + 1 < segments.length && Set.of("element", "attribute", "property", "css", "cookie").contains(segments[i])) {
+                key.append("/{}");
+                ids.add(segments[++i]);
+            }
+        }
+        return session.command(key.toString(), ids, body);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object newSession(Map<String, Object> body) {
+        Map<String, Object> requested = (Map<String, Object>) body.getOrDefault("capabilities", Map.of());
+        Map<String, Object> capabilities = new HashMap<>((Map<String, Object>) requested.getOrDefault("alwaysMatch", Map.of()));
+        List<Map<String, Object>> firstMatch = (List<Map<String, Object>>) requested.getOrDefault("firstMatch", List.of());
+        if (!firstMatch.isEmpty()) {
+            capabilities.putAll(firstMatch.get(0));
+        }
+        PlatformType platform = "ios".equalsIgnoreCase(String.valueOf(capabilities.get("platformName")))
+                ? PlatformType.IOS : PlatformType.WEB;
+        // The client's hook already sees these commands on the wire
+        Session session = new Session(new FakeDriver(platform, new CommandHook()));
+        String id = "fake-wire-" + sessionIds.incrementAndGet();
+        sessions.put(id, session);
+        Map<String, Object> returned = new LinkedHashMap<>(session.driver.getCapabilities().asMap());
+        if (platform == PlatformType.IOS) {
+            returned.put("automationName", "XCUITest");
+        }
+        return Map.of("sessionId", id, "capabilities", returned);
+    }
+
+    private static Map<String, Object> singletonValue(Object value) {
+        Map<String, Object> wrapped = new HashMap<>();
+        wrapped.put("value", value);
+        return wrapped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> read(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            return bytes.length == 0 ? Map.of() : mapper.readValue(bytes, Map.class);
+        }
+    }
+
+    /**
+     * One FakeDriver session and the ids of the elements it handed out
+     */
+    private static final class Session {
+        private final FakeDriver driver;
+        private final Map<String, WebElement> elements = new ConcurrentHashMap<>();
+        private final Map<WebElement, String> elementIds = new ConcurrentHashMap<>();
+        private final AtomicInteger nextElementId = new AtomicInteger();
+
+        private Session(FakeDriver driver) {
+            this.driver = driver;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object command(String key, List<String> ids, Map<String, Object> body) {
+            switch (key) {
+                case "POST /timeouts":
+                    timeouts(body);
+                    return null;
+                case "GET /timeouts":
+                    WebDriver.Timeouts timeouts = driver.manage().timeouts();
+                    return Map.of("implicit", timeouts.getImplicitWaitTimeout().toMillis(),
+                            "pageLoad", timeouts.getPageLoadTimeout().toMillis(),
+                            "script", timeouts.getScriptTimeout().toMillis());
+                case "POST /url":
+                    driver.get(String.valueOf(body.get("url")));
+                    return null;
+                case "GET /url":
+                    return driver.getCurrentUrl();
+                case "GET /title":
+                    return driver.getTitle();
+                case "GET /source":
+                    return driver.getPageSource();
+                case "POST /back":
+                    driver.navigate().back();
+                    return null;
+                case "POST /forward":
+                    driver.navigate().forward();
+                    return null;
+                case "POST /refresh":
+                    driver.navigate().refresh();
+                    return null;
+                case "GET /window":
+                    return driver.getWindowHandle();
+                case "GET /window/handles":
+                    return driver.getWindowHandles();
+                case "POST /window":
+                    driver.switchTo().window(String.valueOf(body.get("handle")));
+                    return null;
+                case "POST /window/maximize":
+                    driver.manage().window().maximize();
+                    return windowRect();
+                case "GET /window/rect":
+                case "POST /window/rect":
+                    return windowRect();
+                case "POST /frame":
+                case "POST /frame/parent":
+                    driver.switchTo().defaultContent();
+                    return null;
+                case "POST /element":
+                    return element(driver.findElement(by(body)));
+                case "POST /elements":
+                    return elements(driver.findElements(by(body)));
+                case "POST /element/{}/element":
+                    return element(element(ids).findElement(by(body)));
+                case "POST /element/{}/elements":
+                    return elements(element(ids).findElements(by(body)));
+                case "POST /element/{}/click":
+                    element(ids).click();
+                    return null;
+                case "POST /element/{}/clear":
+                    element(ids).clear();
+                    return null;
+                case "POST /element/{}/value":
+                    element(ids).sendKeys(String.valueOf(body.get("text")));
+                    return null;
+                case "GET /element/{}/text":
+                    return element(ids).getText();
+                case "GET /element/{}/name":
+                    return element(ids).getTagName();
+                case "GET /element/{}/attribute/{}":
+                    return element(ids).getAttribute(ids.get(1));
+                case "GET /element/{}/property/{}":
+                    return element(ids).getDomProperty(ids.get(1));
+                case "GET /element/{}/css/{}":
+                    return element(ids).getCssValue(ids.get(1));
+                case "GET /element/{}/rect":
+                    return rect(element(ids).getRect());
+                case "GET /element/{}/enabled":
+                    return element(ids).isEnabled();
+                case "GET /element/{}/selected":
+                    return element(ids).isSelected();
+                case "GET /element/{}/displayed":
+                    return element(ids).isDisplayed();
+                case "GET /element/{}/screenshot":
+                    return element(ids).getScreenshotAs(OutputType.BASE64);
+                case "GET /screenshot":
+                    return driver.getScreenshotAs(OutputType.BASE64);
+                case "POST /execute/sync":
+                case "POST /execute/async":
+                    return execute(String.valueOf(body.get("script")), (List<Object>) body.getOrDefault("args", List.of()));
+                case "GET /cookie":
+                    List<Object> cookies = new ArrayList<>();
+                    driver.manage().getCookies().forEach(cookie -> cookies.add(json(cookie)));
+                    return cookies;
+                case "GET /cookie/{}":
+                    Cookie cookie = driver.manage().getCookieNamed(ids.get(0));
+                    if (cookie == null) {
+                        throw new NoSuchCookieException("No cookie named " + ids.get(0));
+                    }
+                    return json(cookie);
+                case "POST /cookie":
+                    driver.manage().addCookie(cookie((Map<String, Object>) body.get("cookie")));
+                    return null;
+                case "DELETE /cookie":
+                    driver.manage().deleteAllCookies();
+                    return null;
+                case "DELETE /cookie/{}":
+                    driver.manage().deleteCookieNamed(ids.get(0));
+                    return null;
+                default:
+                    throw new UnsupportedCommandException("Not supported by the fake WebDriver endpoint: " + key);
+            }
+        }
+
+        private void timeouts(Map<String, Object> body) {
+            WebDriver.Timeouts timeouts = driver.manage().timeouts();
+            if (body.get("implicit") instanceof Number) {
+                timeouts.implicitlyWait(Duration.ofMillis(((Number) body.get("implicit")).longValue()));
+            }
+            if (body.get("pageLoad") instanceof Number) {
+                timeouts.pageLoadTimeout(Duration.ofMillis(((Number) body.get("pageLoad")).longValue()));
+            }
+            if (body.get("script") instanceof Number) {
+                timeouts.scriptTimeout(Duration.ofMillis(((Number) body.get("script")).longValue()));
+            }
+        }
+
+        /**
+         * Selenium sends getAttribute and isDisplayed of W3C sessions as scripts (atoms); those run on the element
+         */
+        private Object execute(String script, List<Object> args) {
+            Object[] decoded = args.stream().map(this::decode).toArray();
+            if (script.startsWith("/* getAttribute */") && decoded.length == 2) {
+                return ((WebElement) decoded[0]).getAttribute(String.valueOf(decoded[1]));
+            }
+            if (script.startsWith("/* isDisplayed */") && decoded.length == 1) {
+                return ((WebElement) decoded[0]).isDisplayed();
+            }
+            return encode(driver.executeScript(script, decoded));
+        }
+
+        private Object element(WebElement element) {
+            String id = elementIds.computeIfAbsent(element, found -> {
+                String newId = "fake-element-" + nextElementId.incrementAndGet();
+                elements.put(newId, found);
+                return newId;
+            });
+            return Map.of(ELEMENT_KEY, id);
+        }
+
+        private List<Object> elements(List<WebElement> found) {
+            List<Object> encoded = new ArrayList<>();
+            found.forEach(element -> encoded.add(element(element)));
+            return encoded;
+        }
+
+        private WebElement element(List<String> ids) {
+            return element(ids.get(0));
+        }
+
+        private WebElement element(String id) {
+            WebElement element = elements.get(id);
+            if (element == null) {
+                throw new NoSuchElementException("Unknown element id " + id);
+            }
+            return element;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object decode(Object arg) {
+            if (arg instanceof Map && ((Map<String, Object>) arg).containsKey(ELEMENT_KEY)) {
+                return element(String.valueOf(((Map<String, Object>) arg).get(ELEMENT_KEY)));
+            }
+            if (arg instanceof List) {
+                return ((List<Object>) arg).stream().map(this::decode).toArray();
+            }
+            return arg;
+        }
+
+        private Object encode(Object result) {
+            if (result instanceof WebElement) {
+                return element((WebElement) result);
+            }
+            if (result instanceof List) {
+                List<Object> encoded = new ArrayList<>();
+                ((List<?>) result).forEach(item -> encoded.add(encode(item)));
+                return encoded;
+            }
+            return result;
+        }
+
+        private Map<String, Object> windowRect() {
+            Dimension size = driver.manage().window().getSize();
+            return rect(new Rectangle(0, 0, size.getHeight(), size.getWidth()));
+        }
+
+        private static Map<String, Object> rect(Rectangle rect) {
+            return Map.of("x", rect.getX(), "y", rect.getY(), "width", rect.getWidth(), "height", rect.getHeight());
+        }
+
+        private static By by(Map<String, Object> body) {
+            return new WireBy(String.valueOf(body.get("using")), String.valueOf(body.get("value")));
+        }
+
+        private static Map<String, Object> json(Cookie cookie) {
+            Map<String, Object> json = new LinkedHashMap<>(cookie.toJson());
+            // The wire format has the expiry in seconds
+            if (cookie.getExpiry() != null) {
+                json.put("expiry", cookie.getExpiry().getTime() / 1000);
+            }
+            return json;
+        }
+
+        private static Cookie cookie(Map<String, Object> json) {
+            Cookie.Builder builder = new Cookie.Builder(String.valueOf(json.get("name")), String.valueOf(json.get("value")));
+            if (json.get("path") != null) {
+                builder.path(String.valueOf(json.get("path")));
+            }
+            if (json.get("domain") != null) {
+                builder.domain(String.valueOf(json.get("domain")));
+            }
+            if (json.get("expiry") instanceof Number) {
+                builder.expiresOn(new Date(((Number) json.get("expiry")).longValue() * 1000));
+            }
+            return builder.isSecure(Boolean.TRUE.equals(json.get("secure")))
+                    .isHttpOnly(Boolean.TRUE.equals(json.get("httpOnly"))).build();
+        }
+    }
+
+    /**
+     * Locator as received ("using" and "value"), matched against the wire form of the fake DOM's locators
+     */
+    private static final class WireBy extends By implements By.Remotable {
+        private final Parameters parameters;
+
+        private WireBy(String using, String value) {
+            this.parameters = new Parameters(using, value);
+        }
+
+        @Override
+        public Parameters getRemoteParameters() {
+            return parameters;
+        }
+
+        @Override
+        public List<WebElement> findElements(SearchContext context) {
+            // FakeDriver and FakeElement match remotable locators against the fake DOM by their wire parameters
+            return context.findElements(this);
+        }
+
+        @Override
+        public String toString() {
+            return "By." + parameters.using() + ": " + parameters.value();
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package pages;
 
+import core.ConfigReader;
+import core.ElementCache;
+import core.EventLog;
+import core.PhaseTimer;
+import core.RunMetrics;
 import core.WaitHelper;
+import enums.TimingPhase;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.apache.logging.log4j.LogManager;
@@ -49,13 +58,66 @@ public abstract class BasePage {
      */
     public abstract boolean isPageLoaded();
 
+    /**
+     * Wait for element visibility, reusing a cached reference when element cache is enabled
+     * @param locator element locator
+     * @param timeoutSeconds wait timeout used on a cache miss or stale reference
+     * @return visible element (cached proxy when cache is enabled)
+     */
+    protected WebElement findVisibleCached(By locator, int timeoutSeconds) {
+        if (!ConfigReader.isElementCacheEnabled()) {
+            return waitHelper.waitForElementVisible(locator, timeoutSeconds);
+        }
+        return ElementCache.forDriver(driver).get(locator, () -> waitHelper.waitForElementVisible(locator, timeoutSeconds));
+    }
+
+    /**
+     * Find child element under parent, reusing a cached reference when element cache is enabled
+     * @param parent parent element (scope of the lookup)
+     * @param locator child locator
+     * @return child element (cached proxy when cache is enabled)
+     */
+    protected WebElement findCached(SearchContext parent, By locator) {
+        if (!ConfigReader.isElementCacheEnabled()) {
+            return parent.findElement(locator);
+        }
+        return ElementCache.forDriver(driver).get(parent, locator, () -> parent.findElement(locator));
+    }
+
+    /**
+     * Cache an element that was resolved by a broader lookup under its own locator
+     * @param locator locator the element is cached under (later findVisibleCached calls hit it)
+     * @param element already resolved element
+     * @param timeoutSeconds wait timeout used when the reference goes stale
+     * @return cached proxy when cache is enabled, otherwise the element itself
+     */
+    protected WebElement cacheElement(By locator, WebElement element, int timeoutSeconds) {
+        if (!ConfigReader.isElementCacheEnabled()) {
+            return element;
+        }
+        return ElementCache.forDriver(driver).put(locator, element, () -> waitHelper.waitForElementVisible(locator, timeoutSeconds));
+    }
+
+    /**
+     * Discard cached elements after a document/screen change
+     */
+    protected void invalidateElementCache() {
+        if (ConfigReader.isElementCacheEnabled()) {
+            ElementCache.forDriver(driver).invalidate();
+        }
+    }
+
     /**
      * Attach current screen as Allure attachment for step evidence
      */
     protected void attachScreenshot(String name) {
         try {
-            byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-            Allure.addAttachment(name, new ByteArrayInputStream(bytes));
+            PhaseTimer.time(TimingPhase.SCREENSHOT, () -> {
+                byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                RunMetrics.recordScreenshot(bytes.length);
+                EventLog.emit("attachment", "name", name, "bytes", bytes.length);
+                Allure.addAttachment(name, new ByteArrayInputStream(bytes));
+            });
         } catch (Exception e) {
             logger.warn("Failed to capture screenshot for '{}': {}", name, e.getMessage());
         }
@@ -15,11 +15,11 @@ public abstract class IOSBasePage extends BasePage {
     protected AppiumDriver appiumDriver;
 
     /**
-     * Constructor - gets AppiumDriver from DriverFactory
+     * Constructor - gets AppiumDriver from DriverFactory (null under the fake driver, use driver for plain commands)
      */
     protected IOSBasePage() {
         super(DriverFactory.getDriver());
-        this.appiumDriver = (AppiumDriver) DriverFactory.getDriver();
+        this.appiumDriver = driver instanceof AppiumDriver ? (AppiumDriver) driver : null;
         logger.debug("IOSBasePage initialized");
     }
 
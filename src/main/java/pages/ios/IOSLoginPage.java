@@ -1,5 +1,7 @@
 package pages.ios;
 
+import core.ConfigReader;
+import core.FallbackLocator;
 import interfaces.ILoginPage;
 import io.appium.java_client.AppiumBy;
 import org.openqa.selenium.By;
@@ -22,12 +24,23 @@ public class IOSLoginPage extends IOSBasePage implements ILoginPage {
     private final By emailFieldLocator = AppiumBy.accessibilityId("Email address");
     private final By emailContinueButton = AppiumBy.accessibilityId("ai_sign_in_email_continue_button");
     // OTP screen
-    private final By otpContainerKey = AppiumBy.accessibilityId("ai_sign_in_otp_field");
-    private final By secureOtpField = AppiumBy.className("XCUIElementTypeSecureTextField");
     private final By verifyEmailButton = AppiumBy.accessibilityId("ai_sign_in_otp_continue_button");
     private final By codeFieldLocator = AppiumBy.iOSNsPredicateString("label == 'Verification code' OR name == 'ai_sign_in_otp_field'");
     private final By submitCodeButtonLocator = AppiumBy.iOSNsPredicateString("type == 'XCUIElementTypeButton' AND (name CONTAINS 'Continue' OR name CONTAINS 'Verify')");
     private final By multiCodeFields = AppiumBy.iOSNsPredicateString("type == 'XCUIElementTypeTextField' AND name BEGINSWITH 'code_'");
+    private final By secureFieldInOtpContainer = AppiumBy.iOSClassChain("**/*[`name == 'ai_sign_in_otp_field'`]/**/XCUIElementTypeSecureTextField");
+    // Ranked fallback chains (see LocatorStats): OTP input and Verify button
+    private final FallbackLocator otpInputChain = new FallbackLocator("ios.otpInput")
+            .or("multiField", multiCodeFields)
+            .or("secureInContainer", secureFieldInOtpContainer)
+            .or("labelPredicate", codeFieldLocator);
+    // Single-field alternatives only, for a screen where multiField matched fewer than 6 boxes
+    private final FallbackLocator singleFieldChain = new FallbackLocator("ios.otpSingleInput")
+            .or("secureInContainer", secureFieldInOtpContainer)
+            .or("labelPredicate", codeFieldLocator);
+    private final FallbackLocator verifyButtonChain = new FallbackLocator("ios.verifyButton")
+            .or("verifyEmailButton", verifyEmailButton)
+            .or("genericSubmit", submitCodeButtonLocator);
     private final By successIndicator = AppiumBy.iOSNsPredicateString("name CONTAINS 'Account' OR name CONTAINS 'Profile' OR label CONTAINS 'Account'");
 
     // Constructor
@@ -105,54 +118,66 @@ public class IOSLoginPage extends IOSBasePage implements ILoginPage {
 
     @Override
     public void enterVerificationCode(String code) {
-        // Strategy 1: fill 6 separate code text fields if present
         try {
-            java.util.List<WebElement> fields = appiumDriver.findElements(multiCodeFields);
-            if (fields != null && fields.size() >= 6) {
+            // Counted as a success only once the branch below has used it
+            FallbackLocator.Match input = waitHelper.waitForFirstCandidate(otpInputChain, 20);
+            java.util.List<WebElement> fields = "multiField".equals(input.getLabel())
+                    ? driver.findElements(multiCodeFields) : java.util.List.of();
+            if (fields.size() >= 6) {
+                // Strategy 1: fill 6 separate code text fields
+                // Boxes resolved by the lookup above are cached under the code_N their name says (not their order in
+                // the hierarchy); the per-box lookups below are cache hits
+                java.util.Map<Integer, WebElement> byIndex = new java.util.HashMap<>();
+                for (WebElement field : fields) {
+                    int index = codeIndex(field.getAttribute("name"));
+                    if (index >= 0) {
+                        byIndex.put(index, cacheElement(codeBox(index), field, 10));
+                    }
+                }
                 char[] chars = code.toCharArray();
                 for (int i = 0; i < Math.min(chars.length, 6); i++) {
-                    WebElement f = fields.get(i);
-                    waitHelper.waitForElementToBeVisible(f);
+                    WebElement f;
+                    if (ConfigReader.isElementCacheEnabled()) {
+                        f = findVisibleCached(codeBox(i), 10);
+                    } else if (byIndex.containsKey(i)) {
+                        f = byIndex.get(i);
+                        waitHelper.waitForElementToBeVisible(f);
+                    } else {
+                        f = waitHelper.waitForElementVisible(codeBox(i), 10);
+                    }
                     f.clear();
                     attachScreenshot("ios_before_type_code_" + i);
                     f.sendKeys(String.valueOf(chars[i]));
                     attachScreenshot("ios_after_type_code_" + i);
                 }
+                input.confirm();
                 logger.info("Entered verification code into 6 iOS fields");
             } else {
-                // Fallback: single secure text field under OTP container
-                try {
-                    WebElement container = waitHelper.waitForElementVisible(otpContainerKey, 10);
-                    WebElement secure = container.findElement(secureOtpField);
-                    secure.clear();
-                    attachScreenshot("ios_before_type_code_secure");
-                    secure.sendKeys(code);
-                    logger.info("Entered verification code in secure field (OTP container)");
-                    attachScreenshot("ios_after_type_code_secure");
-                } catch (Exception inner) {
-                    WebElement codeField = waitHelper.waitForElementVisible(codeFieldLocator, 20);
-                    codeField.clear();
-                    attachScreenshot("ios_before_type_code_single");
-                    codeField.sendKeys(code);
-                    logger.info("Entered verification code in single iOS field by label");
-                    attachScreenshot("ios_after_type_code_single");
+                // Strategy 2/3: single secure field under OTP container or field found by label
+                // (never the whole code into one of fewer than 6 code_ boxes)
+                FallbackLocator.Match single = "multiField".equals(input.getLabel())
+                        ? waitHelper.waitForFirstVisible(singleFieldChain, 5) : input;
+                // The OTP container re-renders its secure field when the keyboard appears: keep a self-healing reference
+                WebElement codeField = "secureInContainer".equals(single.getLabel())
+                        ? cacheElement(secureFieldInOtpContainer, single.getElement(), 10) : single.getElement();
+                codeField.clear();
+                attachScreenshot("ios_before_type_code_" + single.getLabel());
+                codeField.sendKeys(code);
+                if (single == input) {
+                    input.confirm();
                 }
+                logger.info("Entered verification code in single iOS field ({})", single.getLabel());
+                attachScreenshot("ios_after_type_code_" + single.getLabel());
             }
 
             try {
-                WebElement submit = waitHelper.waitForElementClickable(verifyEmailButton, 10);
+                FallbackLocator.Match submit = waitHelper.waitForFirstClickable(verifyButtonChain, 15);
                 attachScreenshot("ios_before_click_verify");
-                submit.click();
-                logger.info("Tapped 'Verify email' button (iOS)");
+                submit.getElement().click();
+                logger.info("Tapped verify button (iOS, {})", submit.getLabel());
                 attachScreenshot("ios_after_click_verify");
             } catch (Exception e) {
-                try {
-                    WebElement submitAlt = waitHelper.waitForElementClickable(submitCodeButtonLocator, 5);
-                    attachScreenshot("ios_before_click_verify_alt");
-                    submitAlt.click();
-                    logger.info("Submitted verification code via generic button (iOS)");
-                    attachScreenshot("ios_after_click_verify_alt");
-                } catch (Exception ignored) {}
+                logger.warn("Verify button not tapped, waiting for login confirmation anyway: {}", e.getMessage());
             }
 
             // Wait for success indicator
@@ -167,4 +192,15 @@ public class IOSLoginPage extends IOSBasePage implements ILoginPage {
             throw new RuntimeException("Verification code field not accessible", e);
         }
     }
+
+    private static By codeBox(int index) {
+        return AppiumBy.iOSNsPredicateString("type == 'XCUIElementTypeTextField' AND name == 'code_" + index + "'");
+    }
+
+    /**
+     * N of a "code_N" field name, -1 for any other name
+     */
+    private static int codeIndex(String name) {
+        return name != null && name.matches("code_\\d+") ? Integer.parseInt(name.substring("code_".length())) : -1;
+    }
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ public abstract class WebBasePage extends BasePage {
      */
     protected void navigateTo(String url) {
         driver.get(url);
+        invalidateElementCache();
         logger.info("Navigated to: {}", url);
     }
 
@@ -35,6 +36,7 @@ public abstract class WebBasePage extends BasePage {
      */
     protected void refreshPage() {
         driver.navigate().refresh();
+        invalidateElementCache();
         logger.info("Page refreshed");
     }
 
@@ -43,6 +45,7 @@ public abstract class WebBasePage extends BasePage {
      */
     protected void goBack() {
         driver.navigate().back();
+        invalidateElementCache();
         logger.info("Navigated back");
     }
 }
\ No newline at end of file
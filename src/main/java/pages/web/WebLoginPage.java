@@ -1,11 +1,13 @@
 package pages.web;
 
+import core.ConfigReader;
 import interfaces.ILoginPage;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+
 /**
  * Web implementation of Login Page for Booking.com
  * Uses Selenium WebDriver for web automation
@@ -75,11 +77,20 @@ public class WebLoginPage extends WebBasePage implements ILoginPage {
     public void enterVerificationCode(String code) {
         try {
             waitHelper.waitForElementVisible(multiCodeInputAny, 10);
+            if (ConfigReader.isElementCacheEnabled()) {
+                // One find for all boxes; each is cached under the code_N its name says (not its DOM position),
+                // so the per-box lookups below are cache hits
+                for (WebElement box : driver.findElements(multiCodeInputAny)) {
+                    int index = codeIndex(box.getDomAttribute("name"));
+                    if (index >= 0) {
+                        cacheElement(codeBox(index), box, 10);
+                    }
+                }
+            }
             char[] chars = code.toCharArray();
             int len = Math.min(chars.length, 6);
             for (int i = 0; i < len; i++) {
-                By field = By.cssSelector("input[name='code_" + i + "']");
-                WebElement input = waitHelper.waitForElementVisible(field, 10);
+                WebElement input = findVisibleCached(codeBox(i), 10);
                 input.clear();
                 attachScreenshot("web_before_type_code_" + i);
                 input.sendKeys(String.valueOf(chars[i]));
@@ -110,4 +121,15 @@ public class WebLoginPage extends WebBasePage implements ILoginPage {
             logger.warn("Account avatar not visible after verification: {}", e.getMessage());
         }
     }
+
+    private static By codeBox(int index) {
+        return By.cssSelector("input[name='code_" + index + "']");
+    }
+
+    /**
+     * N of a "code_N" box name, -1 for any other name
+     */
+    private static int codeIndex(String name) {
+        return name != null && name.matches("code_\\d+") ? Integer.parseInt(name.substring("code_".length())) : -1;
+    }
 }
\ No newline at end of file
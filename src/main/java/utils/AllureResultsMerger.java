@@ -0,0 +1,437 @@
+package utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Merges Allure result directories (web/iOS runs, CI shards) into one results directory
+ * Usage: AllureResultsMerger [--move] [--threads=N] <outputReportsDir> <inputDir>...
+ * An input is a "reports" folder (allure-results/ + test-durations.properties) or an allure-results folder.
+ * Inputs are processed in parallel: result/container JSON is streamed while UUID references are rewritten
+ * (deterministically per input, so inputs can never collide), attachments are hardlinked (or moved with --move)
+ * instead of copied, and executor.json, environment.properties, categories.json and history/ are merged.
+ */
+public final class AllureResultsMerger {
+    private static final Logger logger = LogManager.getLogger(AllureResultsMerger.class);
+    private static final String RESULTS_DIR = "allure-results";
+    private static final String HISTORY_DIR = "history";
+    private static final String DURATIONS_FILE = "test-durations.properties";
+    private static final int HISTORY_LIMIT = 20;
+    private static final Pattern UUID_PREFIX = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path outputResults;
+    private final boolean move;
+    private final AtomicInteger results = new AtomicInteger();
+    private final AtomicInteger containers = new AtomicInteger();
+    private final AtomicInteger attachments = new AtomicInteger();
+    private final AtomicInteger copiedAttachments = new AtomicInteger();
+
+    private AllureResultsMerger(Path outputResults, boolean move) {
+        this.outputResults = outputResults;
+        this.move = move;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean move = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if ("--move".equals(arg)) {
+                move = true;
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.size() < 2) {
+            System.err.println("Usage: AllureResultsMerger [--move] [--threads=N] <outputReportsDir> <inputDir>...");
+            System.exit(2);
+        }
+        List<Path> inputs = paths.subList(1, paths.size()).stream().map(Paths::get).collect(Collectors.toList());
+        merge(Paths.get(paths.get(0)), inputs, move, threads);
+    }
+
+    /**
+     * Merge inputs into output/allure-results (hardlinking attachments) and merge duration history
+     */
+    public static void merge(Path output, List<Path> inputs) throws IOException {
+        merge(output, inputs, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Merge inputs into output/allure-results using the given number of worker threads
+     * @param move move attachments out of the inputs instead of hardlinking them
+     */
+    public static void merge(Path output, List<Path> inputs, boolean move, int threads) throws IOException {
+        long start = System.currentTimeMillis();
+        Path outputResults = output.resolve(RESULTS_DIR);
+        Files.createDirectories(outputResults);
+        List<Path> resultDirs = new ArrayList<>();
+        for (Path input : inputs) {
+            Path dir = Files.isDirectory(input.resolve(RESULTS_DIR)) ? input.resolve(RESULTS_DIR) : input;
+            if (!Files.isDirectory(dir)) {
+                logger.warn("No Allure results in input directory: {}", input);
+                dir = null;
+            } else if (Files.isSameFile(dir, outputResults)) {
+                throw new IllegalArgumentException("Input must not be the output directory: " + input);
+            }
+            resultDirs.add(dir);
+        }
+
+        AllureResultsMerger merger = new AllureResultsMerger(outputResults, move);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            // Walk all inputs in parallel, then process every file as its own task
+            List<Future<List<Path>>> listings = new ArrayList<>();
+            for (Path dir : resultDirs) {
+                listings.add(pool.submit(() -> list(dir)));
+            }
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int index = 0; index < resultDirs.size(); index++) {
+                int inputIndex = index;
+                for (Path file : await(listings.get(index))) {
+                    if (merger.isPerRunFile(file)) {
+                        tasks.add(pool.submit(() -> {
+                            merger.mergeFile(inputIndex, file);
+                            return null;
+                        }));
+                    }
+                }
+            }
+            for (Future<?> task : tasks) {
+                await(task);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Path> dirs = resultDirs.stream().filter(d -> d != null).collect(Collectors.toList());
+        mergeExecutors(dirs, outputResults.resolve("executor.json"));
+        mergeEnvironments(dirs, outputResults.resolve("environment.properties"));
+        mergeCategories(dirs, outputResults.resolve("categories.json"));
+        mergeHistory(dirs, outputResults.resolve(HISTORY_DIR));
+        int durations = mergeDurations(output.resolve(DURATIONS_FILE), inputs);
+
+        logger.info("Merged {} inputs into {} in {} ms: {} results, {} containers, {} attachments ({} copied, rest {}), {} test durations",
+                inputs.size(), outputResults, System.currentTimeMillis() - start, merger.results.get(), merger.containers.get(),
+                merger.attachments.get(), merger.copiedAttachments.get(), move ? "moved" : "hardlinked", durations);
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        if (dir == null) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Merge interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException("Merge failed", e.getCause());
+        }
+    }
+
+    private boolean isPerRunFile(Path file) {
+        String name = file.getFileName().toString();
+        return !name.equals("executor.json") && !name.equals("environment.properties") && !name.equals("categories.json");
+    }
+
+    private void mergeFile(int inputIndex, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Path target = outputResults.resolve(mapName(inputIndex, name));
+        if (name.endsWith("-result.json") || name.endsWith("-container.json")) {
+            rewriteJson(inputIndex, file, target);
+            (name.endsWith("-result.json") ? results : containers).incrementAndGet();
+        } else {
+            transfer(file, target);
+            attachments.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stream-copy a result/container file, rewriting uuid, children and attachment source references
+     */
+    private void rewriteJson(int inputIndex, Path source, Path target) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(source.toFile());
+             JsonGenerator generator = jsonFactory.createGenerator(target.toFile(), JsonEncoding.UTF8)) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() == JsonToken.VALUE_STRING && isReference(parser.getParsingContext())) {
+                    generator.writeString(mapName(inputIndex, parser.getText()));
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+    }
+
+    private static boolean isReference(JsonStreamContext context) {
+        if (context.inObject()) {
+            String field = context.getCurrentName();
+            return "uuid".equals(field) || "source".equals(field);
+        }
+        return context.inArray() && context.getParent() != null && "children".equals(context.getParent().getCurrentName());
+    }
+
+    /**
+     * Map a UUID-prefixed name to a UUID derived from (input, original), keeping the suffix
+     */
+    private static String mapName(int inputIndex, String name) {
+        if (!UUID_PREFIX.matcher(name).find()) {
+            return "input" + inputIndex + "-" + name;
+        }
+        UUID mapped = UUID.nameUUIDFromBytes((inputIndex + ":" + name.substring(0, 36)).getBytes(StandardCharsets.UTF_8));
+        return mapped + name.substring(36);
+    }
+
+    private void transfer(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        if (move) {
+            Files.move(source, target);
+            return;
+        }
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Different file system (or no hardlink support): fall back to a copy
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            copiedAttachments.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keep the executor of the latest build; differing build names are combined
+     */
+    private static void mergeExecutors(List<Path> dirs, Path target) throws IOException {
+        ObjectNode latest = null;
+        Set<String> buildNames = new LinkedHashSet<>();
+        for (Path dir : dirs) {
+            Path file = dir.resolve("executor.json");
+            if (!Files.exists(file)) {
+                continue;
+            }
+            ObjectNode executor = (ObjectNode) mapper.readTree(file.toFile());
+            if (executor.hasNonNull("buildName")) {
+                buildNames.add(executor.get("buildName").asText());
+            }
+            if (latest == null || executor.path("buildOrder").asLong() >= latest.path("buildOrder").asLong()) {
+                latest = executor;
+            }
+        }
+        if (latest != null) {
+            if (buildNames.size() > 1) {
+                latest.put("buildName", String.join(" + ", buildNames));
+            }
+            mapper.writerWithDefaultPrettyPrinter().writeValue(target.toFile(), latest);
+        }
+    }
+
+    /**
+     * Union of environment properties; differing values of a key are listed together (e.g. platform=web, ios)
+     */
+    private static void mergeEnvironments(List<Path> dirs, Path target) throws IOException {
+        Map<String, Set<String>> values = new TreeMap<>();
+        for (Path dir : dirs) {
+            Path file = dir.resolve("environment.properties");
+            if (!Files.exists(file)) {
+                continue;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            properties.stringPropertyNames().forEach(key ->
+                    values.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(properties.getProperty(key)));
+        }
+        if (!values.isEmpty()) {
+            Properties merged = new Properties();
+            values.forEach((key, set) -> merged.setProperty(key, String.join(", ", set)));
+            try (OutputStream out = Files.newOutputStream(target)) {
+                merged.store(out, "Merged Allure environment");
+            }
+        }
+    }
+
+    private static void mergeCategories(List<Path> dirs, Path target) throws IOException {
+        Map<String, JsonNode> categories = new LinkedHashMap<>();
+        for (Path dir : dirs) {
+            Path file = dir.resolve("categories.json");
+            if (Files.exists(file)) {
+                for (JsonNode category : mapper.readTree(file.toFile())) {
+                    categories.putIfAbsent(category.path("name").asText(), category);
+                }
+            }
+        }
+        if (!categories.isEmpty()) {
+            ArrayNode merged = mapper.createArrayNode();
+            categories.values().forEach(merged::add);
+            mapper.writerWithDefaultPrettyPrinter().writeValue(target.toFile(), merged);
+        }
+    }
+
+    /**
+     * Merge history/*.json: history.json per historyId (items deduplicated by uid, newest first),
+     * trend files as the union of their builds (newest build first)
+     */
+    private static void mergeHistory(List<Path> dirs, Path targetDir) throws IOException {
+        Map<String, List<JsonNode>> byName = new TreeMap<>();
+        for (Path dir : dirs) {
+            Path history = dir.resolve(HISTORY_DIR);
+            for (Path file : list(Files.isDirectory(history) ? history : null)) {
+                if (file.getFileName().toString().endsWith(".json")) {
+                    byName.computeIfAbsent(file.getFileName().toString(), k -> new ArrayList<>()).add(mapper.readTree(file.toFile()));
+                }
+            }
+        }
+        if (byName.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(targetDir);
+        for (Map.Entry<String, List<JsonNode>> entry : byName.entrySet()) {
+            JsonNode merged = "history.json".equals(entry.getKey())
+                    ? mergeHistoryItems(entry.getValue())
+                    : mergeTrend(entry.getValue());
+            mapper.writeValue(targetDir.resolve(entry.getKey()).toFile(), merged);
+        }
+    }
+
+    private static JsonNode mergeHistoryItems(List<JsonNode> inputs) {
+        Map<String, Map<String, JsonNode>> items = new TreeMap<>();
+        for (JsonNode history : inputs) {
+            history.fields().forEachRemaining(test -> {
+                Map<String, JsonNode> byUid = items.computeIfAbsent(test.getKey(), k -> new LinkedHashMap<>());
+                for (JsonNode item : test.getValue().path("items")) {
+                    byUid.putIfAbsent(item.path("uid").asText(item.toString()), item);
+                }
+            });
+        }
+        ObjectNode merged = mapper.createObjectNode();
+        items.forEach((historyId, byUid) -> {
+            List<JsonNode> sorted = new ArrayList<>(byUid.values());
+            sorted.sort(Comparator.comparingLong((JsonNode item) -> item.path("time").path("start").asLong()).reversed());
+            List<JsonNode> kept = sorted.subList(0, Math.min(HISTORY_LIMIT, sorted.size()));
+            ObjectNode test = merged.putObject(historyId);
+            ObjectNode statistic = test.putObject("statistic");
+            for (String status : new String[]{"failed", "broken", "skipped", "passed", "unknown"}) {
+                statistic.put(status, kept.stream().filter(i -> status.equals(i.path("status").asText())).count());
+            }
+            statistic.put("total", kept.size());
+            test.putArray("items").addAll(kept);
+        });
+        return merged;
+    }
+
+    private static JsonNode mergeTrend(List<JsonNode> inputs) {
+        Map<String, JsonNode> builds = new LinkedHashMap<>();
+        for (JsonNode trend : inputs) {
+            for (JsonNode build : trend) {
+                builds.putIfAbsent(build.has("buildOrder") ? "order:" + build.get("buildOrder").asText() : build.toString(), build);
+            }
+        }
+        List<JsonNode> sorted = new ArrayList<>(builds.values());
+        sorted.sort(Comparator.comparingLong((JsonNode build) -> build.path("buildOrder").asLong()).reversed());
+        return mapper.createArrayNode().addAll(sorted);
+    }
+
+    /**
+     * Union of input duration files; per test the most recently recorded value wins
+     * Every shard saves its whole history, including tests it did not run, so a newer file is not newer per key.
+     * Values without a recording time (older files) lose to recorded ones and fall back to file modification order.
+     */
+    private static int mergeDurations(Path target, List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            Path file = input.resolve(DURATIONS_FILE);
+            if (Files.exists(file)) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparing(AllureResultsMerger::lastModified));
+        Properties merged = new Properties();
+        for (Path file : files) {
+            try (InputStream in = Files.newInputStream(file)) {
+                Properties shardDurations = new Properties();
+                shardDurations.load(in);
+                for (String key : shardDurations.stringPropertyNames()) {
+                    String value = shardDurations.getProperty(key);
+                    String current = merged.getProperty(key);
+                    if (current == null || recordedAt(value) >= recordedAt(current)) {
+                        merged.setProperty(key, value);
+                    }
+                }
+            }
+        }
+        if (!merged.isEmpty()) {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                merged.store(out, "Merged test durations in ms (class.method=durationMs@recordedAtEpochMs)");
+            }
+        }
+        return merged.size();
+    }
+
+    // Same value format as listeners.TestDurationHistory (test code): "durationMs@recordedAtEpochMs"
+    private static long recordedAt(String value) {
+        int at = value.indexOf('@');
+        try {
+            return at < 0 ? 0L : Long.parseLong(value.substring(at + 1));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
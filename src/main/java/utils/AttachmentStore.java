@@ -0,0 +1,372 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import core.ConfigReader;
+import io.qameta.allure.util.PropertiesUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for screenshots and Allure attachments (attachment.store.*)
+ * Payloads are streamed to a temp file while their SHA-256 is computed, kept once under
+ * store/ab/abcdef..., and the requested target path becomes a hardlink to the stored object
+ * (a copy when the file system cannot link). Identical screenshots therefore cost disk space once.
+ * Allure writes its results untouched through its own lifecycle; its attachment files are moved into the store
+ * afterwards (deduplicateAllureResults), keeping their names so results still reference them.
+ */
+public final class AttachmentStore {
+    private static final Logger logger = LogManager.getLogger(AttachmentStore.class);
+    private static final LongAdder writes = new LongAdder();
+    private static final LongAdder duplicates = new LongAdder();
+    private static final LongAdder logicalBytes = new LongAdder();
+    private static final LongAdder storedBytes = new LongAdder();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private AttachmentStore() {}
+
+    /**
+     * Directory the Allure lifecycle writes to (allure.results.directory)
+     */
+    public static Path allureResultsDir() {
+        return Paths.get(PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results"));
+    }
+
+    /**
+     * Stream content into the store and make target refer to the stored object
+     * @return the stored object
+     */
+    public static Path store(InputStream content, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        if (!ConfigReader.isAttachmentStoreEnabled()) {
+            Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        }
+        Path root = Paths.get(ConfigReader.getAttachmentStoreDir());
+        Files.createDirectories(root);
+
+        Path temp = Files.createTempFile(root, "incoming-", ".tmp");
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+            size = content.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        Path object = root.resolve(hash.substring(0, 2)).resolve(hash);
+
+        writes.increment();
+        logicalBytes.add(size);
+        boolean stored = false;
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            try {
+                Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+                stored = true;
+            } catch (FileAlreadyExistsException e) {
+                // Another thread stored the same content first; its object is as good as ours
+            }
+        }
+        if (stored) {
+            storedBytes.add(size);
+        } else {
+            Files.deleteIfExists(temp);
+            duplicates.increment();
+            // Refresh age so retention keeps payloads that are still being produced
+            Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+        }
+        link(object, target);
+        return object;
+    }
+
+    /**
+     * Move the Allure attachment files written since the given time into the store, each replaced by a link
+     * @return number of attachment files processed
+     */
+    public static int deduplicateAllureResults(Path resultsDir, Instant since) throws IOException {
+        if (!ConfigReader.isAttachmentStoreEnabled() || !Files.isDirectory(resultsDir)) {
+            return 0;
+        }
+        int processed = 0;
+        try (Stream<Path> files = Files.list(resultsDir)) {
+            for (Path file : (Iterable<Path>) files.filter(AttachmentStore::isAllureAttachment)::iterator) {
+                Integer links = linkCount(file);
+                // Already a link into the store (an earlier suite of this run or a previous run)
+                if ((links != null && links > 1) || Files.getLastModifiedTime(file).toInstant().isBefore(since)) {
+                    continue;
+                }
+                deduplicate(file);
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Replace an existing file by a link to its stored object (the file becomes the object when it is new)
+     */
+    private static void deduplicate(Path file) throws IOException {
+        Path root = Paths.get(ConfigReader.getAttachmentStoreDir());
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        Path object = root.resolve(hash.substring(0, 2)).resolve(hash);
+
+        writes.increment();
+        logicalBytes.add(size);
+        boolean stored = false;
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            stored = createObject(file, object);
+        }
+        if (stored) {
+            storedBytes.add(size);
+        } else {
+            duplicates.increment();
+            Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+            link(object, file);
+        }
+    }
+
+    /**
+     * Make file the stored object, false when another thread stored the same content first
+     */
+    private static boolean createObject(Path file, Path object) throws IOException {
+        try {
+            Files.createLink(object, file);
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            try {
+                Files.copy(file, object);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Attachment sources referenced by the Allure results and containers written since the given time whose file
+     * is missing from the results directory; empty when every result still has its attachments
+     */
+    public static List<String> missingAllureAttachments(Path resultsDir, Instant since) throws IOException {
+        List<String> missing = new ArrayList<>();
+        if (!Files.isDirectory(resultsDir)) {
+            return missing;
+        }
+        try (Stream<Path> files = Files.list(resultsDir)) {
+            for (Path file : (Iterable<Path>) files.filter(AttachmentStore::isAllureResult)::iterator) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(since)) {
+                    continue;
+                }
+                for (JsonNode source : mapper.readTree(file.toFile()).findValues("source")) {
+                    if (!Files.exists(resultsDir.resolve(source.asText()))) {
+                        missing.add(file.getFileName() + " -> " + source.asText());
+                    }
+                }
+            }
+        }
+        return missing;
+    }
+
+    private static boolean isAllureAttachment(Path file) {
+        return Files.isRegularFile(file) && file.getFileName().toString().contains("-attachment");
+    }
+
+    private static boolean isAllureResult(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith("-result.json") || name.endsWith("-container.json");
+    }
+
+    private static void link(Path object, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, object);
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            Files.copy(object, target);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Dedup statistics of this run
+     */
+    public static String getRunStats() {
+        long logical = logicalBytes.sum();
+        return String.format("%d attachments, %d duplicates, %d of %d bytes stored (%.1f%% saved)",
+                writes.sum(), duplicates.sum(), storedBytes.sum(), logical,
+                logical == 0 ? 0.0 : 100.0 * (logical - storedBytes.sum()) / logical);
+    }
+
+    /**
+     * Delete screenshots older than the retention period, expired Allure results together with their attachments
+     * (only when allureResultsDir is given), then every expired store object that is no longer linked from anywhere
+     * (every expired object where link counts are unavailable)
+     * @return number of deleted store objects
+     */
+    public static int applyRetention(int retentionDays, List<Path> screenshotDirs, Path allureResultsDir) throws IOException {
+        Instant cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        for (Path dir : screenshotDirs) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+        expireAllureResults(allureResultsDir, cutoff);
+        Path root = Paths.get(ConfigReader.getAttachmentStoreDir());
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> objects = Files.walk(root, 2)) {
+            for (Path object : (Iterable<Path>) objects.filter(Files::isRegularFile)::iterator) {
+                Integer links = linkCount(object);
+                boolean expired = Files.getLastModifiedTime(object).toInstant().isBefore(cutoff);
+                // Recent objects are kept even when unreferenced so the next runs still deduplicate against them
+                if (expired && (links == null || links <= 1 || !isObject(object))) {
+                    Files.deleteIfExists(object);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete Allure results and containers older than the cutoff, and the attachments no remaining one references
+     * Attachment ages are not used: they are links into the store, whose time every duplicate refreshes. Other
+     * files (executor.json, environment.properties, categories.json, ...) are left to Allure/CI cleanup.
+     */
+    private static void expireAllureResults(Path resultsDir, Instant cutoff) throws IOException {
+        if (resultsDir == null || !Files.isDirectory(resultsDir)) {
+            return;
+        }
+        List<Path> expired = new ArrayList<>();
+        Set<String> referenced = new HashSet<>();
+        Set<String> released = new HashSet<>();
+        try (Stream<Path> files = Files.list(resultsDir)) {
+            for (Path file : (Iterable<Path>) files.filter(AttachmentStore::isAllureResult)::iterator) {
+                List<JsonNode> sources;
+                try {
+                    sources = mapper.readTree(file.toFile()).findValues("source");
+                } catch (IOException e) {
+                    // Still being written or damaged: keep it for Allure to report
+                    logger.debug("Skipping unreadable Allure result {}: {}", file, e.getMessage());
+                    continue;
+                }
+                boolean old = Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+                for (JsonNode source : sources) {
+                    (old ? released : referenced).add(source.asText());
+                }
+                if (old) {
+                    expired.add(file);
+                }
+            }
+        }
+        released.removeAll(referenced);
+        for (Path file : expired) {
+            Files.deleteIfExists(file);
+        }
+        for (String source : released) {
+            Path attachment = resultsDir.resolve(source).normalize();
+            if (resultsDir.normalize().equals(attachment.getParent()) && isAllureAttachment(attachment)) {
+                Files.deleteIfExists(attachment);
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("Deleted {} expired Allure results and {} of their attachments", expired.size(), released.size());
+        }
+    }
+
+    /**
+     * Store-wide figures: unique bytes on disk vs. bytes referenced through links
+     */
+    public static Properties report() throws IOException {
+        Path root = Paths.get(ConfigReader.getAttachmentStoreDir());
+        long objects = 0;
+        long uniqueBytes = 0;
+        long referencedBytes = 0;
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> files = Files.walk(root, 2)) {
+                for (Path object : (Iterable<Path>) files.filter(AttachmentStore::isObject)::iterator) {
+                    long size = Files.size(object);
+                    Integer links = linkCount(object);
+                    objects++;
+                    uniqueBytes += size;
+                    referencedBytes += size * Math.max(1, links == null ? 1 : links - 1);
+                }
+            }
+        }
+        Properties report = new Properties();
+        report.setProperty("run.attachments", String.valueOf(writes.sum()));
+        report.setProperty("run.duplicates", String.valueOf(duplicates.sum()));
+        report.setProperty("run.bytes.logical", String.valueOf(logicalBytes.sum()));
+        report.setProperty("run.bytes.stored", String.valueOf(storedBytes.sum()));
+        report.setProperty("store.objects", String.valueOf(objects));
+        report.setProperty("store.bytes.unique", String.valueOf(uniqueBytes));
+        report.setProperty("store.bytes.referenced", String.valueOf(referencedBytes));
+        report.setProperty("store.bytes.saved", String.valueOf(referencedBytes - uniqueBytes));
+        report.setProperty("store.dedup.ratio", uniqueBytes == 0 ? "1.00"
+                : String.format("%.2f", (double) referencedBytes / uniqueBytes));
+        return report;
+    }
+
+    private static boolean isObject(Path file) {
+        // Objects are named by their 64-char SHA-256; temp files and the report are not
+        return Files.isRegularFile(file) && file.getFileName().toString().length() == 64;
+    }
+
+    private static Integer linkCount(Path file) {
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package utils;
 
+import core.CircuitBreaker;
+import core.PhaseTimer;
+import core.RunMetrics;
+import core.SessionWatchdog;
+import enums.InfrastructureType;
+import enums.TimingPhase;
 import interfaces.IEmailService;
 
 import jakarta.mail.*;
@@ -13,6 +19,11 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
@@ -24,6 +35,13 @@ import org.apache.logging.log4j.Logger;
 public class EmailService implements IEmailService {
 
     private static final Logger logger = LogManager.getLogger(EmailService.class);
+    // Caps concurrent IMAP sessions
+    private static final Semaphore imapConnections = new Semaphore(core.ConfigReader.getEmailMaxConnections(), true);
+    // Jakarta Mail does its socket I/O inside synchronized blocks, which pins a virtual thread to its carrier (JDK 21).
+    // Callers on virtual threads (listeners.VirtualThreadExecutorFactory) hand the IMAP session to these platform
+    // threads and park meanwhile, so no carrier is pinned. Platform-thread callers run it inline.
+    private static final ExecutorService imapIo = Executors.newFixedThreadPool(core.ConfigReader.getEmailMaxConnections(),
+            VirtualThreads.platformFactory("imap-io-"));
     // 6 karakter alfasayısal ve TAMAMI harf olmayan (en az 1 rakam içeren) kodlar - capture group ile
     private static final Pattern DEFAULT_CODE_PATTERN = Pattern.compile("\\b(?![A-Z]{6}\\b)([A-Z0-9]{6})\\b", Pattern.CASE_INSENSITIVE);
 
@@ -33,28 +51,58 @@ public class EmailService implements IEmailService {
                                         String fromFilter,
                                         String subjectFilter,
                                         int timeoutSeconds) {
+        return PhaseTimer.time(TimingPhase.EMAIL,
+                () -> pollVerificationCode(emailAccount, appPassword, fromFilter, subjectFilter, timeoutSeconds));
+    }
+
+    private String pollVerificationCode(String emailAccount,
+                                        String appPassword,
+                                        String fromFilter,
+                                        String subjectFilter,
+                                        int timeoutSeconds) {
         logger.info("Email code fetch started (account={}, from='{}', subject='{}', timeout={}s)", maskEmail(emailAccount), fromFilter, subjectFilter, timeoutSeconds);
         long deadline = System.currentTimeMillis() + timeoutSeconds * 1000L;
         MessagingException lastException = null;
 
+        CircuitBreaker breaker = CircuitBreaker.of(InfrastructureType.EMAIL_IMAP);
         while (System.currentTimeMillis() < deadline) {
+            // Fails fast with InfrastructureUnavailableException once IMAP keeps failing
+            breaker.ensureAllowed();
+            // Waiting for the code is progress: keep the watchdog off this session
+            SessionWatchdog.touch();
             try {
                 String code = tryFetch(emailAccount, sanitize(appPassword), fromFilter, subjectFilter);
+                breaker.recordSuccess();
                 if (code != null) {
-                    logger.debug("Verification code found: {}", code);
+                    logger.debug("Verification code found ({} digits)", code.length());
                     return code;
                 }
                 Thread.sleep(3000);
+            } catch (AuthenticationFailedException e) {
+                // Wrong account or app password: retrying cannot help and IMAP itself is not down
+                logger.error("IMAP authentication failed for {}: {}", maskEmail(emailAccount), e.getMessage());
+                throw new RuntimeException("IMAP authentication failed", e);
             } catch (MessagingException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // Aborted by the watchdog or a timeout, not an IMAP outage
+                    break;
+                }
                 lastException = e;
+                breaker.recordFailure(e);
                 logger.warn("Email fetch attempt failed: {}", e.getMessage());
                 sleepQuietly(3000);
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
                 break;
             }
         }
 
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("Interrupted while fetching the verification code");
+        }
         if (lastException != null) {
             logger.error("Verification code could not be fetched from email: {}", lastException.getMessage());
             throw new RuntimeException("Verification code could not be fetched from email", lastException);
@@ -69,27 +117,61 @@ public class EmailService implements IEmailService {
                                         String subjectFilter,
                                         int timeoutSeconds,
                                         int initialDelaySeconds) {
-        if (initialDelaySeconds > 0) {
-            logger.debug("Initial delay before email fetch: {}s", initialDelaySeconds);
-            sleepQuietly(initialDelaySeconds * 1000L);
-        }
-        return fetchVerificationCode(emailAccount, appPassword, fromFilter, subjectFilter, timeoutSeconds);
+        return PhaseTimer.time(TimingPhase.EMAIL, () -> {
+            if (initialDelaySeconds > 0) {
+                logger.debug("Initial delay before email fetch: {}s", initialDelaySeconds);
+                sleepQuietly(initialDelaySeconds * 1000L);
+            }
+            return fetchVerificationCode(emailAccount, appPassword, fromFilter, subjectFilter, timeoutSeconds);
+        });
     }
 
     private String tryFetch(String emailAccount,
                             String appPassword,
                             String fromFilter,
-                            String subjectFilter) throws MessagingException {
+                            String subjectFilter) throws MessagingException, InterruptedException {
+        imapConnections.acquire();
+        Future<String> fetch = null;
+        try {
+            RunMetrics.imapPolls.increment();
+            if (!VirtualThreads.isCurrentVirtual()) {
+                return fetchOnce(emailAccount, appPassword, fromFilter, subjectFilter);
+            }
+            fetch = imapIo.submit(() -> fetchOnce(emailAccount, appPassword, fromFilter, subjectFilter));
+            return fetch.get();
+        } catch (InterruptedException e) {
+            fetch.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MessagingException) {
+                throw (MessagingException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MessagingException("IMAP fetch failed", e);
+        } finally {
+            imapConnections.release();
+        }
+    }
+
+    private String fetchOnce(String emailAccount,
+                             String appPassword,
+                             String fromFilter,
+                             String subjectFilter) throws MessagingException {
+        String protocol = core.ConfigReader.isEmailImapSsl() ? "imaps" : "imap";
+        String host = core.ConfigReader.getEmailImapHost();
+        int port = core.ConfigReader.getEmailImapPort();
         Properties props = new Properties();
-        props.put("mail.store.protocol", "imaps");
-        props.put("mail.imaps.host", "imap.gmail.com");
-        props.put("mail.imaps.port", "993");
-        props.put("mail.imaps.ssl.enable", "true");
+        props.put("mail.store.protocol", protocol);
+        props.put("mail." + protocol + ".host", host);
+        props.put("mail." + protocol + ".port", String.valueOf(port));
+        props.put("mail." + protocol + ".ssl.enable", String.valueOf(core.ConfigReader.isEmailImapSsl()));
 
         Session session = Session.getInstance(props);
-        Store store = session.getStore("imaps");
-        logger.debug("Connecting to IMAP server as {}", maskEmail(emailAccount));
-        store.connect("imap.gmail.com", emailAccount, appPassword);
+        Store store = session.getStore(protocol);
+        logger.debug("Connecting to IMAP server {}:{} as {}", host, port, maskEmail(emailAccount));
+        store.connect(host, port, emailAccount, appPassword);
 
         try (store) {
             Folder inbox = store.getFolder("INBOX");
@@ -152,7 +234,7 @@ public class EmailService implements IEmailService {
                         if (isNewer(received, newestDate)) {
                             newestCode = sm.group(1);
                             newestDate = received;
-                            logger.debug("Candidate code (subject): {} at {}", newestCode, newestDate);
+                            logger.debug("Candidate code (subject) at {}", newestDate);
                         }
                     }
                 }
@@ -164,12 +246,12 @@ public class EmailService implements IEmailService {
                     if (isNewer(received, newestDate)) {
                         newestCode = candidate;
                         newestDate = received;
-                        logger.debug("Candidate code (body): {} at {}", newestCode, newestDate);
+                        logger.debug("Candidate code (body) at {}", newestDate);
                     }
                 }
             }
             if (newestCode != null) {
-                logger.debug("Newest code selected: {} at {}", newestCode, newestDate);
+                logger.debug("Newest code selected at {}", newestDate);
             }
             return newestCode;
         } catch (Exception e) {
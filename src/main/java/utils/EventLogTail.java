@@ -0,0 +1,68 @@
+package utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Follows the run event log (reports/events.jsonl) and prints complete JSON lines as they are written
+ * Usage: EventLogTail [eventLogFile]
+ * The writer pre-allocates the file, so "tail -f" does not work; this reader stops at the first unwritten
+ * (zero) byte and exits once the writer has truncated the file at suite end.
+ */
+public final class EventLogTail {
+    private static final long POLL_MS = 200;
+
+    private EventLogTail() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path path = Paths.get(args.length > 0 ? args[0] : core.ConfigReader.getEventLogFile());
+        while (!Files.exists(path)) {
+            Thread.sleep(POLL_MS);
+        }
+        follow(path, System.out);
+    }
+
+    /**
+     * Print lines until the event log is closed (truncated below its reserved size)
+     */
+    public static void follow(Path path, PrintStream out) throws IOException, InterruptedException {
+        long offset = 0;
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long reserved = channel.size();
+            while (true) {
+                chunk.clear();
+                int read = Math.max(channel.read(chunk, offset), 0);
+                byte[] data = chunk.array();
+                int lineStart = 0;
+                int i = 0;
+                for (; i < read && data[i] != 0; i++) {
+                    if (data[i] == '\n') {
+                        out.println(new String(data, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                        lineStart = i + 1;
+                    }
+                }
+                offset += lineStart;
+                if (lineStart == 0 && i == chunk.capacity()) {
+                    // Line longer than the buffer
+                    chunk = ByteBuffer.allocate(chunk.capacity() * 2);
+                    continue;
+                }
+                long size = channel.size();
+                if (size < reserved && offset >= size) {
+                    return;
+                }
+                if (lineStart == 0) {
+                    Thread.sleep(POLL_MS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access to JDK 21+ virtual threads while the project still compiles for Java 17
+ * Used by EmailService (to keep Jakarta Mail off virtual threads), listeners.VirtualThreadExecutorFactory and the
+ * email benchmark; falls back to platform threads when virtual threads are not available.
+ */
+public final class VirtualThreads {
+    private static final Logger logger = LogManager.getLogger(VirtualThreads.class);
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle IS_VIRTUAL;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle isVirtual = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilder));
+            name = lookup.findVirtual(virtualBuilder, "name", MethodType.methodType(virtualBuilder, String.class, long.class));
+            factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Virtual threads not available on Java {}", Runtime.version());
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {}
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * True when the calling thread is a virtual thread
+     */
+    public static boolean isCurrentVirtual() {
+        try {
+            return IS_VIRTUAL != null && (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Thread factory creating virtual threads (or daemon platform threads before JDK 21)
+     * @param prefix thread name prefix, a counter is appended
+     */
+    public static ThreadFactory factory(String prefix) {
+        if (isSupported()) {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(), prefix, 0L);
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (Throwable e) {
+                logger.warn("Failed to create virtual thread factory, using platform threads: {}", e.getMessage());
+            }
+        }
+        return platformFactory(prefix);
+    }
+
+    /**
+     * Thread factory creating daemon platform threads
+     * @param prefix thread name prefix, a counter is appended
+     */
+    public static ThreadFactory platformFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Unbounded executor on (virtual) threads; idle platform threads are reused on older JDKs
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        return Executors.newCachedThreadPool(factory(prefix));
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import core.DriverFactory;
+import core.DriverReaper;
+import core.ProcFs;
+import core.SharedBrowser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Memory per test and session start time: one Chrome per test (driver.mode=process) vs isolated browser contexts
+ * in one shared Chrome (driver.mode=context)
+ * Opens bench.sessions concurrent sessions per mode through DriverFactory, loads a small page in each and sums the
+ * proportional set size (PSS from /proc/<pid>/smaps_rollup, RSS where unavailable) of every process started by
+ * this JVM: Chrome, its renderers and chromedriver. Linux only; browser settings come from config.properties
+ * (set headless=true on CI).
+ *
+ * System properties: bench.sessions (default 4), bench.modes (default process,context)
+ */
+public class BrowserMemoryBenchmark {
+    private static final String PAGE = "data:text/html,<title>bench</title><h1>Benchmark</h1><input id='username'>";
+
+    public static void main(String[] args) throws Exception {
+        int sessions = Integer.getInteger("bench.sessions", 4);
+        String[] modes = System.getProperty("bench.modes", "process,context").split(",");
+        System.setProperty("platform", "web");
+
+        System.out.printf("%d concurrent sessions per mode%n%n", sessions);
+        System.out.printf("%-10s %10s %14s %14s %16s %16s%n",
+                "mode", "processes", "total (MB)", "per test (MB)", "start p50 (ms)", "start max (ms)");
+        for (String mode : modes) {
+            System.setProperty("driver.mode", mode.trim());
+            run(mode.trim(), sessions);
+            DriverReaper.drain(60);
+            SharedBrowser.shutdown();
+        }
+    }
+
+    private static void run(String mode, int sessions) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        CountDownLatch ready = new CountDownLatch(sessions);
+        CountDownLatch release = new CountDownLatch(1);
+        long[] startMs = new long[sessions];
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                try {
+                    long start = System.nanoTime();
+                    DriverFactory.initializeDriver();
+                    startMs[index] = (System.nanoTime() - start) / 1_000_000;
+                    DriverFactory.getDriver().get(PAGE);
+                } finally {
+                    ready.countDown();
+                }
+                release.await();
+                DriverFactory.quitDriver();
+                return null;
+            }));
+        }
+        ready.await();
+        // Let renderers settle after the first paint
+        Thread.sleep(2000);
+        ProcFs.Usage usage = ProcFs.descendants();
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        Arrays.sort(startMs);
+        double totalMb = usage.getPssKb() / 1024.0;
+        System.out.printf("%-10s %10d %14.1f %14.1f %16d %16d%n", mode, usage.getProcesses(), totalMb, totalMb / sessions,
+                startMs[(sessions - 1) / 2], startMs[sessions - 1]);
+    }
+}
@@ -0,0 +1,297 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import core.CommandHook;
+import core.DriverFactory;
+import core.ProcFs;
+import core.SharedBrowser;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Session start cost of ChromeOptions permutations and DriverFactory strategies
+ * Every trial starts a session, navigates to a local static page until its input is present and quits.
+ * Per trial: session start, time to first navigation, quit time, and RSS/PSS/CPU of the processes started by this
+ * JVM (core.ProcFs, Linux). Trial 1 of each combination is reported as cold (first Chrome launch with the options,
+ * driver resolution, class loading), the remaining trials as warm with min/p50/mean/p95/max/stddev.
+ *
+ * System properties:
+ *   bench.trials (default 5), bench.output (default reports/benchmarks/driver-startup.json)
+ *   bench.variants: comma list of built-in option sets (default: all of factory, headless-new, headless-old,
+ *                   no-dev-shm, no-temp-profile, no-anti-automation, minimal)
+ *   bench.variant.NAME="--arg1 --arg2": additional option set with exactly these arguments
+ *   bench.strategies: process (new chromedriver + Chrome per session) and/or context (SharedBrowser context in one
+ *                     shared Chrome; runs once with the factory options)
+ * Both strategies time the bare launch and quit: no DriverFactory setup (window maximize, CDP script, watchdog,
+ * circuit breaker, background reaper) on either side.
+ */
+public class DriverStartupBenchmark {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String[] METRICS = {"startMs", "firstNavigationMs", "quitMs", "rssMb", "pssMb", "cpuMs"};
+    private static final String PAGE = "<!DOCTYPE html><html><head><title>Sign in</title>"
+            + "<style>body{font-family:sans-serif}</style></head><body><h1>Sign in or create an account</h1>"
+            + "<form><input id=\"username\" type=\"email\"><button type=\"button\">Continue with email</button>"
+            + "</form><script>document.title='Sign in ready';</script></body></html>";
+
+    public static void main(String[] args) throws Exception {
+        int trials = Integer.getInteger("bench.trials", 5);
+        Path output = Paths.get(System.getProperty("bench.output", "reports/benchmarks/driver-startup.json"));
+        List<String> strategies = Arrays.asList(System.getProperty("bench.strategies", "process,context").split(","));
+        Map<String, Supplier<ChromeOptions>> variants = variants();
+        System.setProperty("platform", "web");
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        byte[] page = PAGE.getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(page);
+            }
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/login";
+        WebDriverManager.chromedriver().setup();
+
+        ObjectNode root = mapper.createObjectNode();
+        root.put("java", Runtime.version().toString());
+        root.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        root.put("cpus", Runtime.getRuntime().availableProcessors());
+        root.put("procfs", ProcFs.isAvailable());
+        root.put("trials", trials);
+        ArrayNode results = root.putArray("results");
+        try {
+            for (String strategy : strategies) {
+                strategy = strategy.trim();
+                if ("context".equals(strategy)) {
+                    results.add(run(strategy, "factory", null, url, trials));
+                    SharedBrowser.shutdown();
+                    continue;
+                }
+                for (Map.Entry<String, Supplier<ChromeOptions>> variant : variants.entrySet()) {
+                    results.add(run(strategy, variant.getKey(), variant.getValue(), url, trials));
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), root);
+        printSummary(results);
+        System.out.println();
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Built-in permutations of DriverFactory.getChromeOptions() plus bench.variant.NAME definitions
+     */
+    private static Map<String, Supplier<ChromeOptions>> variants() {
+        Map<String, Supplier<ChromeOptions>> all = new LinkedHashMap<>();
+        all.put("factory", DriverFactory::getChromeOptions);
+        all.put("headless-new", () -> derive(arg -> !arg.startsWith("--headless"), true, "--headless=new"));
+        all.put("headless-old", () -> derive(arg -> !arg.startsWith("--headless"), true, "--headless=old"));
+        all.put("no-dev-shm", () -> derive(arg -> !arg.equals("--disable-dev-shm-usage"), true));
+        all.put("no-temp-profile", () -> derive(arg -> !arg.startsWith("--user-data-dir") && !arg.startsWith("--profile-directory"), true));
+        all.put("no-anti-automation", () -> derive(arg -> !arg.startsWith("--disable-blink-features"), false));
+        all.put("minimal", () -> new ChromeOptions().addArguments("--headless=new", "--no-sandbox"));
+
+        Map<String, Supplier<ChromeOptions>> selected = new LinkedHashMap<>();
+        String names = System.getProperty("bench.variants");
+        if (names == null || names.isBlank()) {
+            selected.putAll(all);
+        } else {
+            for (String name : names.split(",")) {
+                Supplier<ChromeOptions> variant = all.get(name.trim());
+                if (variant == null) {
+                    throw new IllegalArgumentException("Unknown variant '" + name.trim() + "', known: " + all.keySet());
+                }
+                selected.put(name.trim(), variant);
+            }
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("bench.variant."))
+                .sorted()
+                .forEach(key -> selected.put(key.substring("bench.variant.".length()),
+                        () -> new ChromeOptions().addArguments(System.getProperty(key).trim().split("\\s+"))));
+        return selected;
+    }
+
+    /**
+     * Factory arguments filtered and extended; antiAutomation keeps the excludeSwitches/useAutomationExtension options
+     */
+    @SuppressWarnings("unchecked")
+    private static ChromeOptions derive(Predicate<String> keep, boolean antiAutomation, String... extraArgs) {
+        Map<String, Object> factory = (Map<String, Object>) DriverFactory.getChromeOptions().asMap().get(ChromeOptions.CAPABILITY);
+        ChromeOptions options = new ChromeOptions();
+        for (String arg : (List<String>) factory.getOrDefault("args", List.of())) {
+            if (keep.test(arg)) {
+                options.addArguments(arg);
+            } else if (arg.startsWith("--user-data-dir=")) {
+                deleteDirectory(Paths.get(arg.substring("--user-data-dir=".length())));
+            }
+        }
+        options.addArguments(extraArgs);
+        if (antiAutomation) {
+            options.setExperimentalOption("excludeSwitches", new String[]{"enable-automation"});
+            options.setExperimentalOption("useAutomationExtension", false);
+        }
+        return options;
+    }
+
+    private static ObjectNode run(String strategy, String variant, Supplier<ChromeOptions> options, String url, int trials) {
+        System.out.printf("Running %s / %s (%d trials)...%n", strategy, variant, trials);
+        ObjectNode result = mapper.createObjectNode();
+        result.put("strategy", strategy);
+        result.put("variant", variant);
+        ArrayNode samples = result.putArray("trials");
+        List<Map<String, Double>> warm = new ArrayList<>();
+        for (int trial = 0; trial < trials; trial++) {
+            try {
+                ChromeOptions chromeOptions = options == null ? null : options.get();
+                if (chromeOptions != null && trial == 0) {
+                    result.putPOJO("options", chromeOptions.asMap().get(ChromeOptions.CAPABILITY));
+                }
+                Map<String, Double> sample = trial(strategy, chromeOptions, url);
+                ObjectNode node = samples.addObject();
+                sample.forEach(node::put);
+                if (trial == 0) {
+                    result.set("cold", node);
+                } else {
+                    warm.add(sample);
+                }
+            } catch (Exception e) {
+                samples.addObject().put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+                System.out.printf("  trial %d failed: %s%n", trial + 1, e.getMessage());
+            }
+        }
+        ObjectNode stats = result.putObject("warm");
+        for (String metric : METRICS) {
+            double[] values = warm.stream().mapToDouble(s -> s.get(metric)).sorted().toArray();
+            if (values.length > 0) {
+                stats.set(metric, statistics(values));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Double> trial(String strategy, ChromeOptions chromeOptions, String url) {
+        ProcFs.Usage before = ProcFs.descendants();
+        long start = System.nanoTime();
+        WebDriver driver;
+        if ("context".equals(strategy)) {
+            driver = SharedBrowser.newContext(new CommandHook());
+        } else {
+            driver = new ChromeDriver(chromeOptions);
+        }
+        long started = System.nanoTime();
+        Map<String, Double> sample = new LinkedHashMap<>();
+        try {
+            driver.get(url);
+            driver.findElement(By.id("username"));
+            long navigated = System.nanoTime();
+            ProcFs.Usage after = ProcFs.descendants();
+            sample.put("startMs", (started - start) / 1e6);
+            sample.put("firstNavigationMs", (navigated - started) / 1e6);
+            sample.put("rssMb", after.getRssKb() / 1024.0);
+            sample.put("pssMb", after.getPssKb() / 1024.0);
+            sample.put("cpuMs", (double) after.cpuMsSince(before));
+        } finally {
+            long quitStart = System.nanoTime();
+            driver.quit();
+            if ("context".equals(strategy)) {
+                SharedBrowser.disposeContext(SharedBrowser.detachCurrentContext());
+            } else {
+                userDataDir(chromeOptions).ifPresent(DriverStartupBenchmark::deleteDirectory);
+            }
+            sample.put("quitMs", (System.nanoTime() - quitStart) / 1e6);
+        }
+        return sample;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Path> userDataDir(ChromeOptions options) {
+        Map<String, Object> chromeOptions = (Map<String, Object>) options.asMap().get(ChromeOptions.CAPABILITY);
+        return ((List<String>) chromeOptions.getOrDefault("args", List.of())).stream()
+                .filter(arg -> arg.startsWith("--user-data-dir="))
+                .map(arg -> Paths.get(arg.substring("--user-data-dir=".length())))
+                .findFirst();
+    }
+
+    private static void deleteDirectory(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static ObjectNode statistics(double[] sorted) {
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        double variance = Arrays.stream(sorted).map(v -> (v - mean) * (v - mean)).sum() / Math.max(1, sorted.length - 1);
+        ObjectNode stats = mapper.createObjectNode();
+        stats.put("n", sorted.length);
+        stats.put("min", round(sorted[0]));
+        stats.put("p50", round(percentile(sorted, 50)));
+        stats.put("mean", round(mean));
+        stats.put("p95", round(percentile(sorted, 95)));
+        stats.put("max", round(sorted[sorted.length - 1]));
+        stats.put("stddev", round(Math.sqrt(variance)));
+        return stats;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static double percentile(double[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static void printSummary(ArrayNode results) {
+        System.out.println();
+        System.out.printf("%-9s %-20s %9s %11s %11s %11s %11s %9s %9s%n", "strategy", "variant", "cold (ms)",
+                "start p50", "start p95", "nav p50", "quit p50", "PSS MB", "CPU ms");
+        for (JsonNode result : results) {
+            JsonNode warm = result.path("warm");
+            System.out.printf("%-9s %-20s %9.0f %11.0f %11.0f %11.0f %11.0f %9.1f %9.0f%n",
+                    result.get("strategy").asText(), result.get("variant").asText(),
+                    result.path("cold").path("startMs").asDouble(Double.NaN),
+                    warm.path("startMs").path("p50").asDouble(Double.NaN),
+                    warm.path("startMs").path("p95").asDouble(Double.NaN),
+                    warm.path("firstNavigationMs").path("p50").asDouble(Double.NaN),
+                    warm.path("quitMs").path("p50").asDouble(Double.NaN),
+                    warm.path("pssMb").path("p50").asDouble(Double.NaN),
+                    warm.path("cpuMs").path("p50").asDouble(Double.NaN));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import org.testng.Assert;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+import utils.EmailService;
+
+/**
+ * Email-bound TestNG test for EmailThroughputBenchmark: bench.tests instances, each fetching one verification code
+ * In the "virtual" group, so listeners.VirtualThreadExecutorFactory runs it on virtual threads when enabled.
+ */
+public class EmailBoundTest {
+    static final String CODE = "482913";
+
+    @Factory
+    public static Object[] instances() {
+        Object[] tests = new Object[Integer.getInteger("bench.tests", 10)];
+        for (int i = 0; i < tests.length; i++) {
+            tests[i] = new EmailBoundTest();
+        }
+        return tests;
+    }
+
+    @Test(groups = "virtual", description = "Fetch the verification code from the IMAP stand-in")
+    public void fetchVerificationCode() {
+        String code = new EmailService().fetchVerificationCode("bench@example.com", "app password",
+                "noreply-iam@booking.com", "", 30);
+        Assert.assertEquals(code, CODE);
+    }
+}
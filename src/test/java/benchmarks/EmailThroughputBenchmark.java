@@ -0,0 +1,122 @@
+package benchmarks;
+
+import core.ConfigReader;
+import listeners.VirtualThreadExecutorFactory;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.EmailService;
+import utils.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Throughput of email-bound tests on a platform thread pool vs virtual threads, through the real EmailService
+ * Every simulated test fetches its verification code with EmailService (Jakarta Mail IMAP client, connection cap,
+ * circuit breaker) from a local plain-text IMAP stand-in that answers each command after a fixed latency.
+ * EmailService holds at most email.imap.max.connections sessions, so beyond that cap more threads only queue;
+ * the peak column shows the sessions that were really open. Run on JDK 21+ to get the virtual thread numbers.
+ * The TestNG rows run the same fetch as EmailBoundTest methods of a parallel <test>: once on TestNG's pool of
+ * thread-count threads, once through VirtualThreadExecutorFactory (the opt-in virtual group mode).
+ *
+ * System properties: bench.concurrency (default 10,100,1000), bench.platform.threads (default 10),
+ * bench.latency.ms (per IMAP command, default 20), email.imap.max.connections (default: config.properties)
+ */
+public class EmailThroughputBenchmark {
+    private static final String CODE = EmailBoundTest.CODE;
+
+    public static void main(String[] args) throws Exception {
+        int platformThreads = Integer.getInteger("bench.platform.threads", 10);
+        long latencyMs = Long.getLong("bench.latency.ms", 20);
+        String[] levels = System.getProperty("bench.concurrency", "10,100,1000").split(",");
+        Configurator.setLevel("utils.EmailService", Level.WARN);
+
+        try (StubImapServer imap = new StubImapServer(CODE, latencyMs)) {
+            System.setProperty("email.imap.host", "127.0.0.1");
+            System.setProperty("email.imap.port", String.valueOf(imap.getPort()));
+            System.setProperty("email.imap.ssl", "false");
+
+            System.out.printf("Java %s, virtual threads supported: %s%n", Runtime.version(), VirtualThreads.isSupported());
+            System.out.printf("Stand-in latency %d ms per IMAP command, EmailService cap %d connections%n%n",
+                    latencyMs, ConfigReader.getEmailMaxConnections());
+            System.out.printf("%-8s %-22s %12s %10s %12s%n", "tests", "executor", "wall (ms)", "tests/s", "peak IMAP");
+            for (String level : levels) {
+                int tests = Integer.parseInt(level.trim());
+                run(imap, tests, "platform pool (" + platformThreads + ")", Executors.newFixedThreadPool(platformThreads));
+                run(imap, tests, VirtualThreads.isSupported() ? "virtual threads" : "platform per task",
+                        VirtualThreads.newExecutor("email-test-"));
+                runTestNg(imap, tests, "TestNG pool (" + platformThreads + ")", platformThreads, false);
+                runTestNg(imap, tests, "TestNG virtual group", platformThreads, true);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(StubImapServer imap, int tests, String name, ExecutorService executor) throws Exception {
+        imap.resetPeak();
+        long start = System.nanoTime();
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < tests; i++) {
+                futures.add(executor.submit(EmailThroughputBenchmark::emailBoundTest));
+            }
+            for (Future<String> future : futures) {
+                if (!CODE.equals(future.get())) {
+                    throw new IllegalStateException("Unexpected verification code: " + future.get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-8d %-22s %12d %10.1f %12d%n", tests, name, wallMs, tests * 1000.0 / Math.max(1, wallMs),
+                imap.getPeakConnections());
+    }
+
+    /**
+     * Run bench.tests EmailBoundTest methods as one parallel <test>, optionally in the virtual group mode
+     */
+    private static void runTestNg(StubImapServer imap, int tests, String name, int threadCount, boolean virtual) {
+        System.setProperty("bench.tests", String.valueOf(tests));
+        System.setProperty("virtual.threads.enabled", String.valueOf(virtual));
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Email throughput");
+        XmlTest test = new XmlTest(suite);
+        test.setName("Email-bound tests");
+        test.setParallel(XmlSuite.ParallelMode.METHODS);
+        test.setThreadCount(threadCount);
+        test.setXmlClasses(List.of(new XmlClass(EmailBoundTest.class)));
+        TestNG testng = new TestNG(false);
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(List.of(suite));
+        if (virtual) {
+            testng.setExecutorFactory(new VirtualThreadExecutorFactory());
+        }
+
+        imap.resetPeak();
+        long start = System.nanoTime();
+        testng.run();
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+        if (testng.hasFailure()) {
+            throw new IllegalStateException(name + ": some email-bound tests failed");
+        }
+        System.out.printf("%-8d %-22s %12d %10.1f %12d%n", tests, name, wallMs, tests * 1000.0 / Math.max(1, wallMs),
+                imap.getPeakConnections());
+    }
+
+    /**
+     * The email step of the OTP login: one EmailService fetch (the stand-in always has the code)
+     */
+    private static String emailBoundTest() {
+        return new EmailService().fetchVerificationCode("bench@example.com", "app password",
+                "noreply-iam@booking.com", "", 30);
+    }
+}
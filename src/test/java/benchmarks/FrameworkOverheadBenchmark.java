@@ -0,0 +1,172 @@
+package benchmarks;
+
+import core.ConfigReader;
+import core.DriverFactory;
+import enums.PlatformType;
+import factory.EmailServiceFactory;
+import factory.PageFactory;
+import fake.FakeDriver;
+import interfaces.IHomePage;
+import interfaces.ILoginPage;
+import io.appium.java_client.AppiumBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Framework overhead of the login flow, measured against the in-process FakeDriver
+ * The same flow (home, sign in, email, OTP, logged-in check) runs as raw driver calls and through DriverFactory and
+ * the page objects, without and with the session watchdog and command profiler listening on the command hook. With
+ * zero command latency and element delay, everything above the raw round is the cost of this framework.
+ *
+ * System properties: bench.platform (web or ios, default web), bench.iterations (default 300),
+ * fake.latency.distribution (default none), fake.element.delay.ms (default 0)
+ */
+public class FrameworkOverheadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String platform = System.getProperty("bench.platform", "web");
+        int iterations = Integer.getInteger("bench.iterations", 300);
+        System.setProperty("platform", platform);
+        System.setProperty("fake.driver.enabled", "true");
+        System.setProperty("fake.latency.distribution", System.getProperty("fake.latency.distribution", "none"));
+        System.setProperty("fake.element.delay.ms", System.getProperty("fake.element.delay.ms", "0"));
+        System.setProperty("fake.email.delay.ms", "0");
+        // Step screenshots are part of the flow, but not worth keeping
+        Path allureResults = Files.createTempDirectory("overhead-allure-results");
+        System.setProperty("allure.results.directory", allureResults.toString());
+        PlatformType platformType = PlatformType.fromString(platform);
+
+        // Commands per flow, counted on a session without watchdog and profiler
+        setListeners(false, false);
+        DriverFactory.initializeDriver();
+        FakeDriver counted = (FakeDriver) DriverFactory.getDriver();
+        pageSteps(platformType);
+        long commands = counted.getCommandCount();
+        DriverFactory.quitDriver();
+
+        System.out.printf("%s login flow, %d iterations, latency %s, element delay %s ms, %d commands per flow%n%n",
+                platform, iterations, ConfigReader.getFakeLatencyDistribution(), ConfigReader.getFakeElementDelayMs(),
+                commands);
+        System.out.printf("%-28s %10s %10s %10s %14s%n", "round", "p50 (us)", "p99 (us)", "mean (us)", "per cmd (us)");
+        long raw = round("raw driver calls", iterations, commands, () -> rawFlow(platformType), 0);
+        setListeners(false, false);
+        round("page objects", iterations, commands, () -> pageFlow(platformType), raw);
+        setListeners(true, false);
+        round("page objects + watchdog", iterations, commands, () -> pageFlow(platformType), raw);
+        setListeners(true, true);
+        round("  + command profiler", iterations, commands, () -> pageFlow(platformType), raw);
+        try (Stream<Path> files = Files.walk(allureResults)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        System.exit(0);
+    }
+
+    private static void setListeners(boolean watchdog, boolean profiler) {
+        System.setProperty("watchdog.enabled", String.valueOf(watchdog));
+        System.setProperty("profiler.enabled", String.valueOf(profiler));
+    }
+
+    /**
+     * Run a flow (after a warm-up of the same length) and print its latency; per cmd is the overhead over raw
+     * @return mean flow time in nanoseconds
+     */
+    private static long round(String name, int iterations, long commands, Runnable flow, long rawMeanNanos) {
+        for (int i = 0; i < iterations; i++) {
+            flow.run();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            flow.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long mean = Arrays.stream(nanos).sum() / iterations;
+        Arrays.sort(nanos);
+        String perCommand = rawMeanNanos == 0 ? "-" : String.format("%.1f", (mean - rawMeanNanos) / 1000.0 / commands);
+        System.out.printf("%-28s %10d %10d %10d %14s%n", name, nanos[iterations / 2] / 1000,
+                nanos[(int) (iterations * 0.99)] / 1000, mean / 1000, perCommand);
+        return mean;
+    }
+
+    /**
+     * The login flow as in LoginTest, through DriverFactory, PageFactory and the OTP inbox
+     */
+    private static void pageFlow(PlatformType platform) {
+        DriverFactory.initializeDriver();
+        pageSteps(platform);
+        DriverFactory.quitDriver();
+    }
+
+    private static void pageSteps(PlatformType platform) {
+        if (platform == PlatformType.WEB) {
+            DriverFactory.getDriver().get(ConfigReader.getBaseUrl());
+        }
+        IHomePage homePage = PageFactory.getHomePage();
+        ILoginPage loginPage = PageFactory.getLoginPage();
+        homePage.isPageLoaded();
+        homePage.clickSignInButton();
+        if (platform == PlatformType.IOS) {
+            loginPage.isPageLoaded();
+            loginPage.clickSignInOrRegister();
+        }
+        loginPage.enterEmail(ConfigReader.getLoginEmail());
+        loginPage.clickContinueWithEmail();
+        String code = EmailServiceFactory.getEmailService().fetchVerificationCode(ConfigReader.getLoginEmail(), "",
+                "", "", ConfigReader.getEmailTimeoutSeconds(), 0);
+        loginPage.enterVerificationCode(code);
+    }
+
+    /**
+     * The same clicks and keystrokes straight on a FakeDriver: no waits, screenshots, hook listeners or bookkeeping
+     */
+    private static void rawFlow(PlatformType platform) {
+        FakeDriver driver = new FakeDriver(platform);
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigReader.getImplicitWait()));
+        String code = EmailServiceFactory.getEmailService().fetchVerificationCode(ConfigReader.getLoginEmail(), "",
+                "", "", ConfigReader.getEmailTimeoutSeconds(), 0);
+        if (platform == PlatformType.WEB) {
+            driver.get(ConfigReader.getBaseUrl());
+            driver.findElement(By.cssSelector("[data-testid='header-sign-in-button']")).click();
+            type(driver.findElement(By.id("username")), ConfigReader.getLoginEmail());
+            driver.findElement(By.xpath("//button[.//span[normalize-space(text())='Continue with email']]|"
+                    + "//span[normalize-space(text())='Continue with email']/ancestor::button[1]")).click();
+            for (int i = 0; i < 6; i++) {
+                type(driver.findElement(By.cssSelector("input[name='code_" + i + "']")), code.substring(i, i + 1));
+            }
+            driver.findElement(By.xpath("//button[.//span[normalize-space(text())='Verify email']]|"
+                    + "//span[normalize-space(text())='Verify email']/ancestor::button[1]")).click();
+            driver.findElement(By.cssSelector("button[aria-label='Account menu'], [data-testid='header-profile']"));
+        } else {
+            driver.findElement(AppiumBy.accessibilityId("ai_tab_profile")).click();
+            driver.findElement(AppiumBy.accessibilityId("Sign in or register")).click();
+            driver.findElement(AppiumBy.accessibilityId("ai_email_authentication_button")).click();
+            type(driver.findElement(AppiumBy.accessibilityId("Email address")), ConfigReader.getLoginEmail());
+            driver.findElement(AppiumBy.accessibilityId("ai_sign_in_email_continue_button")).click();
+            List<WebElement> fields = driver.findElements(AppiumBy.iOSNsPredicateString(
+                    "type == 'XCUIElementTypeTextField' AND name BEGINSWITH 'code_'"));
+            for (int i = 0; i < 6; i++) {
+                type(fields.get(i), code.substring(i, i + 1));
+            }
+            driver.findElement(AppiumBy.accessibilityId("ai_sign_in_otp_continue_button")).click();
+            driver.findElement(AppiumBy.iOSNsPredicateString(
+                    "name CONTAINS 'Account' OR name CONTAINS 'Profile' OR label CONTAINS 'Account'"));
+        }
+        driver.getScreenshotAs(OutputType.BYTES);
+        driver.quit();
+    }
+
+    private static void type(WebElement field, String text) {
+        field.clear();
+        field.sendKeys(text);
+    }
+}
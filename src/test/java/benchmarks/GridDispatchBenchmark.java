@@ -0,0 +1,158 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import core.GridSlotDispatcher;
+import org.openqa.selenium.WebDriver;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Session start and queue time against a stub Selenium Grid: sessions requested directly (they wait in the Grid's
+ * new-session queue and time out there) vs through GridSlotDispatcher (they wait locally for a free slot)
+ * The stub serves a Grid 4 /status with bench.slots chrome slots and models session creation: a request waits for a
+ * free slot up to bench.queue.timeout.ms, then takes bench.start.ms; the session holds the slot for bench.test.ms.
+ *
+ * System properties: bench.slots (default 2), bench.threads (default 6), bench.sessions (default 24),
+ * bench.start.ms (default 200), bench.test.ms (default 500), bench.queue.timeout.ms (default 2000)
+ */
+public class GridDispatchBenchmark {
+    private static final int SLOTS = Integer.getInteger("bench.slots", 2);
+    private static final int START_MS = Integer.getInteger("bench.start.ms", 200);
+    private static final int TEST_MS = Integer.getInteger("bench.test.ms", 500);
+    private static final int QUEUE_TIMEOUT_MS = Integer.getInteger("bench.queue.timeout.ms", 2000);
+
+    private static final Semaphore slots = new Semaphore(SLOTS, true);
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("bench.threads", 6);
+        int sessions = Integer.getInteger("bench.sessions", 24);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/status", exchange -> {
+            byte[] body = status().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        System.setProperty("grid.status.url", "http://127.0.0.1:" + server.getAddress().getPort() + "/status");
+        // The first /status read pays for HTTP client start-up
+        GridSlotDispatcher.acquire("chrome");
+        GridSlotDispatcher.settle("chrome");
+
+        System.out.printf("%d slots, %d threads, %d sessions, start %d ms, test %d ms, Grid queue timeout %d ms%n%n",
+                SLOTS, threads, sessions, START_MS, TEST_MS, QUEUE_TIMEOUT_MS);
+        System.out.printf("%-10s %8s %10s %14s %14s %16s %16s%n", "mode", "failed", "wall (ms)",
+                "queue p50 (ms)", "queue max (ms)", "start p50 (ms)", "start max (ms)");
+        for (String mode : new String[]{"direct", "dispatch"}) {
+            run(mode, threads, sessions);
+        }
+        server.stop(0);
+    }
+
+    private static void run(String mode, int threads, int sessions) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long[] queueMs = new long[sessions];
+        long[] startMs = new long[sessions];
+        AtomicInteger failed = new AtomicInteger();
+        long begin = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                long queued = System.nanoTime();
+                boolean dispatch = mode.equals("dispatch");
+                if (dispatch) {
+                    GridSlotDispatcher.acquire("chrome");
+                }
+                long start = System.nanoTime();
+                boolean started = false;
+                // Stand-in for the created driver: the dispatcher only tracks sessions by identity
+                WebDriver session = sessionHandle();
+                try {
+                    started = newSession();
+                    if (started && dispatch) {
+                        GridSlotDispatcher.sessionStarted(session);
+                    }
+                } finally {
+                    if (dispatch) {
+                        GridSlotDispatcher.settle("chrome");
+                    }
+                }
+                queueMs[index] = (start - queued) / 1_000_000;
+                startMs[index] = (System.nanoTime() - start) / 1_000_000;
+                if (!started) {
+                    failed.incrementAndGet();
+                    return null;
+                }
+                Thread.sleep(TEST_MS);
+                slots.release();
+                if (dispatch) {
+                    // What DriverReaper reports after a remote quit
+                    GridSlotDispatcher.released(session);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        long wallMs = (System.nanoTime() - begin) / 1_000_000;
+        Arrays.sort(queueMs);
+        Arrays.sort(startMs);
+        System.out.printf("%-10s %8d %10d %14d %14d %16d %16d%n", mode, failed.get(), wallMs,
+                queueMs[(sessions - 1) / 2], queueMs[sessions - 1], startMs[(sessions - 1) / 2], startMs[sessions - 1]);
+    }
+
+    /**
+     * Driver handle that stands for one session; it is never called
+     */
+    private static WebDriver sessionHandle() {
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, arguments) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Stub session request: waits in the Grid queue for a slot, fails after the queue timeout
+     */
+    private static boolean newSession() throws InterruptedException {
+        if (!slots.tryAcquire(QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        Thread.sleep(START_MS);
+        return true;
+    }
+
+    /**
+     * Grid 4 /status with one node; the first slots carry a session while taken
+     */
+    private static String status() {
+        int busy = SLOTS - slots.availablePermits();
+        StringBuilder json = new StringBuilder("{\"value\":{\"ready\":true,\"message\":\"Selenium Grid ready.\",\"nodes\":[")
+                .append("{\"id\":\"stub-node\",\"uri\":\"http://127.0.0.1:5555\",\"maxSessions\":").append(SLOTS)
+                .append(",\"availability\":\"UP\",\"slots\":[");
+        for (int i = 0; i < SLOTS; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":{\"id\":\"slot-").append(i).append("\"},\"session\":")
+                    .append(i < busy ? "{\"sessionId\":\"s" + i + "\"}" : "null")
+                    .append(",\"stereotype\":{\"browserName\":\"chrome\",\"platformName\":\"linux\"}}");
+        }
+        return json.append("]}]}}").toString();
+    }
+}
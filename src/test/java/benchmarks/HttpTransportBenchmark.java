@@ -0,0 +1,164 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.HttpTransport;
+import core.RunMetrics;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command latency, connections and client threads of Selenium's default HTTP client (one per session) vs the shared
+ * pooled HttpTransport, against a local stub WebDriver server
+ * Each session is created, sends bench.commands getTitle commands and quits; bench.threads sessions run at a time.
+ * Connections are counted on the server side by client address and port.
+ *
+ * System properties: bench.threads (default 4), bench.sessions (default 40), bench.commands (default 50),
+ * bench.server.ms (stub latency per command, default 0)
+ */
+public class HttpTransportBenchmark {
+    private static final int SERVER_MS = Integer.getInteger("bench.server.ms", 0);
+
+    private static final Set<InetSocketAddress> clients = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger sessionIds = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("bench.threads", 4);
+        int sessions = Integer.getInteger("bench.sessions", 40);
+        int commands = Integer.getInteger("bench.commands", 50);
+        // Headers and body are written separately: without TCP_NODELAY every response waits for a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/wd/hub/session", HttpTransportBenchmark::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        URL hub = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub");
+
+        // Class loading and JIT for both transports
+        run("default", hub, 2, 4, 10, false);
+        run("pooled", hub, 2, 4, 10, false);
+
+        System.out.printf("%d threads, %d sessions x %d commands, stub latency %d ms%n%n", threads, sessions, commands, SERVER_MS);
+        System.out.printf("%-9s %10s %12s %12s %14s %12s %12s %16s%n", "transport", "wall (ms)", "cmd p50 (us)",
+                "cmd p99 (us)", "new sess (ms)", "quit (ms)", "connections", "threads started");
+        run("default", hub, threads, sessions, commands, true);
+        run("pooled", hub, threads, sessions, commands, true);
+        server.stop(0);
+        System.exit(0);
+    }
+
+    private static void run(String transport, URL hub, int threads, int sessions, int commands, boolean print)
+            throws Exception {
+        // The pool is sized for the sessions that run at once, as WatchdogListener does for a suite
+        HttpTransport.setParallelSessions(threads);
+        HttpClient.Factory factory = transport.equals("pooled") ? HttpTransport.factory() : HttpClient.Factory.createDefault();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Long> commandNanos = Collections.synchronizedList(new ArrayList<>());
+        long[] startNanos = new long[sessions];
+        long[] quitNanos = new long[sessions];
+        clients.clear();
+        long threadsBefore = threadBean.getTotalStartedThreadCount();
+        long begin = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                RemoteWebDriver driver = new RemoteWebDriver(new HttpCommandExecutor(Collections.emptyMap(), hub, factory),
+                        new ImmutableCapabilities("browserName", "chrome"));
+                startNanos[index] = System.nanoTime() - start;
+                long[] local = new long[commands];
+                for (int c = 0; c < commands; c++) {
+                    long sent = System.nanoTime();
+                    driver.getTitle();
+                    local[c] = System.nanoTime() - sent;
+                }
+                for (long nanos : local) {
+                    commandNanos.add(nanos);
+                }
+                long quit = System.nanoTime();
+                driver.quit();
+                quitNanos[index] = System.nanoTime() - quit;
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        long wallMs = (System.nanoTime() - begin) / 1_000_000;
+        // The benchmark's own worker threads are not transport threads
+        long started = threadBean.getTotalStartedThreadCount() - threadsBefore - threads;
+        if (!print) {
+            return;
+        }
+        long[] latencies = commandNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        Arrays.sort(startNanos);
+        Arrays.sort(quitNanos);
+        System.out.printf("%-9s %10d %12d %12d %14.1f %12.1f %12d %16d%n", transport, wallMs,
+                latencies[latencies.length / 2] / 1000, latencies[(int) (latencies.length * 0.99)] / 1000,
+                startNanos[sessions / 2] / 1e6, quitNanos[sessions / 2] / 1e6, clients.size(), started);
+        if (transport.equals("pooled")) {
+            System.out.printf("%npooled transport metrics: %d connections opened, %d reused, %d requests%n",
+                    RunMetrics.httpConnectionsOpened.sum(), RunMetrics.httpConnectionsReused(),
+                    RunMetrics.httpRequests.sum());
+        }
+    }
+
+    /**
+     * Minimal W3C endpoints: new session, quit, and a string value for every other command
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        clients.add(exchange.getRemoteAddress());
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        String path = exchange.getRequestURI().getPath().replaceAll("/+$", "");
+        String method = exchange.getRequestMethod();
+        String body;
+        if (method.equals("POST") && path.endsWith("/session")) {
+            body = "{\"value\":{\"sessionId\":\"stub-" + sessionIds.incrementAndGet()
+                    + "\",\"capabilities\":{\"browserName\":\"chrome\"}}}";
+        } else if (method.equals("DELETE") && path.matches(".*/session/[^/]+")) {
+            body = "{\"value\":null}";
+        } else {
+            if (SERVER_MS > 0) {
+                try {
+                    Thread.sleep(SERVER_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            body = "{\"value\":\"Booking.com stub\"}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
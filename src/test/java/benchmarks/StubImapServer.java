@@ -0,0 +1,168 @@
+package benchmarks;
+
+import utils.VirtualThreads;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain-text IMAP stand-in on the loopback interface: one INBOX holding one verification mail
+ * Answers just the commands Jakarta Mail sends for EmailService (CAPABILITY, LOGIN, EXAMINE, SEARCH, FETCH, LOGOUT),
+ * each after a fixed latency, so the real client and its connection handling are what gets measured.
+ */
+class StubImapServer implements Closeable {
+    private static final Pattern COMMAND = Pattern.compile("^(\\S+) (?:UID )?(\\S+)(?: (.*))?$");
+    private static final Pattern BODY_SECTION = Pattern.compile("BODY(?:\\.PEEK)?\\[([^\\]]*)\\](?:<(\\d+)\\.\\d+>)?");
+
+    private final ServerSocket server;
+    private final ExecutorService sessions = VirtualThreads.newExecutor("imap-stub-");
+    private final long latencyMs;
+    private final String subject;
+    private final String body;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger peakConnections = new AtomicInteger();
+
+    StubImapServer(String code, long latencyMs) throws IOException {
+        this.server = new ServerSocket(0, 4096, InetAddress.getLoopbackAddress());
+        this.latencyMs = latencyMs;
+        this.subject = "Your verification code";
+        this.body = "Use " + code + " to sign in.\r\n";
+        Thread acceptor = new Thread(this::acceptLoop, "imap-stub-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Most IMAP sessions that were open at the same time
+     */
+    int getPeakConnections() {
+        return peakConnections.get();
+    }
+
+    void resetPeak() {
+        peakConnections.set(connections.get());
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                sessions.submit(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private Void serve(Socket socket) {
+        peakConnections.accumulateAndGet(connections.incrementAndGet(), Math::max);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            write(out, "* OK [CAPABILITY IMAP4rev1] stub ready\r\n");
+            String line;
+            while ((line = in.readLine()) != null) {
+                Matcher command = COMMAND.matcher(line);
+                if (!command.matches()) {
+                    write(out, "* BAD unparsable command\r\n");
+                    continue;
+                }
+                Thread.sleep(latencyMs);
+                String tag = command.group(1);
+                String arguments = command.group(3) == null ? "" : command.group(3);
+                switch (command.group(2).toUpperCase(Locale.ROOT)) {
+                    case "CAPABILITY":
+                        write(out, "* CAPABILITY IMAP4rev1\r\n" + tag + " OK CAPABILITY completed\r\n");
+                        break;
+                    case "SELECT":
+                    case "EXAMINE":
+                        write(out, "* FLAGS (\\Seen)\r\n* 1 EXISTS\r\n* 0 RECENT\r\n* OK [UIDVALIDITY 1] UIDs valid\r\n"
+                                + "* OK [UIDNEXT 2] predicted next UID\r\n" + tag + " OK [READ-ONLY] EXAMINE completed\r\n");
+                        break;
+                    case "SEARCH":
+                        write(out, "* SEARCH 1\r\n" + tag + " OK SEARCH completed\r\n");
+                        break;
+                    case "FETCH":
+                        write(out, fetch(arguments) + tag + " OK FETCH completed\r\n");
+                        break;
+                    case "LOGOUT":
+                        write(out, "* BYE logging out\r\n" + tag + " OK LOGOUT completed\r\n");
+                        return null;
+                    default:
+                        write(out, tag + " OK " + command.group(2) + " completed\r\n");
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            connections.decrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * FETCH response for message 1 with the requested items
+     */
+    private String fetch(String arguments) {
+        String items = arguments.toUpperCase(Locale.ROOT);
+        ZonedDateTime now = ZonedDateTime.now();
+        String from = "((\"Booking\" NIL \"noreply-iam\" \"booking.com\"))";
+        StringBuilder response = new StringBuilder("* 1 FETCH (UID 1");
+        if (items.contains("FLAGS")) {
+            response.append(" FLAGS (\\Seen)");
+        }
+        if (items.contains("INTERNALDATE")) {
+            response.append(" INTERNALDATE \"")
+                    .append(now.format(DateTimeFormatter.ofPattern("dd-MMM-yyyy HH:mm:ss Z", Locale.ENGLISH))).append('"');
+        }
+        if (items.contains("RFC822.SIZE")) {
+            response.append(" RFC822.SIZE ").append(body.length());
+        }
+        if (items.contains("ENVELOPE")) {
+            response.append(" ENVELOPE (\"").append(now.format(DateTimeFormatter.RFC_1123_DATE_TIME)).append("\" \"")
+                    .append(subject).append("\" ").append(from).append(' ').append(from).append(' ').append(from)
+                    .append(" ((NIL NIL \"test\" \"example.com\")) NIL NIL NIL \"<1@stub>\")");
+        }
+        if (items.contains("BODYSTRUCTURE")) {
+            response.append(" BODYSTRUCTURE (\"TEXT\" \"PLAIN\" (\"CHARSET\" \"US-ASCII\") NIL NIL \"7BIT\" ")
+                    .append(body.length()).append(" 1 NIL NIL NIL)");
+        }
+        Matcher section = BODY_SECTION.matcher(items);
+        if (section.find()) {
+            String origin = section.group(2);
+            String content = origin == null ? body : body.substring(Math.min(body.length(), Integer.parseInt(origin)));
+            response.append(" BODY[").append(section.group(1)).append(']')
+                    .append(origin == null ? "" : "<" + origin + ">")
+                    .append(" {").append(content.length()).append("}\r\n").append(content);
+        }
+        return response.append(")\r\n").toString();
+    }
+
+    private static void write(OutputStream out, String response) throws IOException {
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        sessions.shutdownNow();
+    }
+}
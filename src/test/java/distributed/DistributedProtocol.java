@@ -0,0 +1,42 @@
+package distributed;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line based protocol between WorkCoordinator and WorkerNode
+ * Worker: HELLO id | NEXT | RESULT testId status durationMs message
+ * Coordinator: RUN testId | WAIT (nothing to run yet, ask again) | DONE
+ * testId has the form "fully.qualified.Class#method".
+ */
+final class DistributedProtocol {
+    static final String HELLO = "HELLO";
+    static final String NEXT = "NEXT";
+    static final String RESULT = "RESULT";
+    static final String RUN = "RUN";
+    static final String WAIT = "WAIT";
+    static final String DONE = "DONE";
+
+    static final String PASS = "PASS";
+    static final String FAIL = "FAIL";
+    static final String SKIP = "SKIP";
+
+    private DistributedProtocol() {}
+
+    /**
+     * Socket read timeout of both sides: a worker must report within it, so it has to exceed the longest test
+     */
+    static int readTimeoutMillis() {
+        return (int) TimeUnit.SECONDS.toMillis(Integer.getInteger("dist.read.timeout.seconds", 1800));
+    }
+
+    static String testId(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    /**
+     * Keep messages on a single protocol line
+     */
+    static String oneLine(String message) {
+        return message == null ? "" : message.replaceAll("[\\r\\n]+", " ");
+    }
+}
@@ -0,0 +1,399 @@
+package distributed;
+
+import listeners.TestDurationHistory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.testng.xml.internal.Parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Coordinator of a distributed run: holds the queue of TestNG methods and hands them out to workers
+ * Workers pull one test at a time, so a worker that finishes early simply takes the remaining work.
+ * Tests of a disconnected worker are put back at the head of the queue.
+ *
+ * System properties:
+ *   dist.port (default 0 = any free port), dist.bind (default 127.0.0.1),
+ *   dist.local.workers (worker JVMs to spawn on this host, default 0),
+ *   dist.classes (comma separated test classes, default: the <test>s of testng.xml with their group filters),
+ *   dist.groups (optional comma separated group filter), dist.max.attempts (default 2),
+ *   dist.read.timeout.seconds (longest silence of a worker while it runs a test, default 1800),
+ *   dist.idle.timeout.seconds (fail the run after this long without any connected worker, default 300)
+ * Local workers inherit every -D override of the coordinator (except JVM, Maven and dist.* settings).
+ */
+public class WorkCoordinator {
+    private static final Logger logger = LogManager.getLogger(WorkCoordinator.class);
+    /** System property prefixes not passed on to local workers */
+    private static final List<String> NOT_FORWARDED = List.of("java.", "jdk.", "sun.", "os.", "user.", "file.",
+            "line.", "path.", "native.", "stdout.", "stderr.", "awt.", "maven.", "exec.", "classworlds.", "library.",
+            "jansi.", "guice.", "dist.");
+
+    private final LinkedBlockingDeque<String> queue = new LinkedBlockingDeque<>();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final CountDownLatch remaining;
+    private final int maxAttempts;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    public WorkCoordinator(List<String> testIds, int maxAttempts) {
+        this.queue.addAll(testIds);
+        this.remaining = new CountDownLatch(testIds.size());
+        this.maxAttempts = maxAttempts;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> tests = orderLongestFirst(discoverTests());
+        if (tests.isEmpty()) {
+            logger.warn("No tests found for distributed run");
+            return;
+        }
+        WorkCoordinator coordinator = new WorkCoordinator(tests, Integer.getInteger("dist.max.attempts", 2));
+        boolean passed = coordinator.run(Integer.getInteger("dist.port", 0), Integer.getInteger("dist.local.workers", 0));
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Serve the queue until every test has a final result
+     * @return true when no test failed
+     */
+    public boolean run(int port, int localWorkers) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        InetAddress bind = InetAddress.getByName(System.getProperty("dist.bind", "127.0.0.1"));
+        List<Process> workers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, 50, bind)) {
+            logger.info("Coordinator listening on {}:{} with {} tests", bind.getHostAddress(), server.getLocalPort(), queue.size());
+            Thread acceptor = new Thread(() -> acceptLoop(server), "dist-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            for (int i = 0; i < localWorkers; i++) {
+                workers.add(spawnLocalWorker(server.getLocalPort(), "local-" + i));
+            }
+            awaitResults(Long.getLong("dist.idle.timeout.seconds", 300));
+        } finally {
+            for (Process worker : workers) {
+                if (remaining.getCount() > 0 || !worker.waitFor(30, TimeUnit.SECONDS)) {
+                    worker.destroy();
+                }
+            }
+        }
+        TestDurationHistory.save();
+        return summarize(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Wait for all results; with no worker connected for idleTimeoutSeconds, fail the tests still queued
+     */
+    private void awaitResults(long idleTimeoutSeconds) throws InterruptedException {
+        long idleSince = System.nanoTime();
+        while (!remaining.await(1, TimeUnit.SECONDS)) {
+            if (activeWorkers.get() > 0) {
+                idleSince = System.nanoTime();
+            } else if (System.nanoTime() - idleSince > TimeUnit.SECONDS.toNanos(idleTimeoutSeconds)) {
+                logger.error("No worker connected for {} s, failing {} unfinished tests", idleTimeoutSeconds, remaining.getCount());
+                String testId;
+                while ((testId = queue.pollFirst()) != null) {
+                    results.put(testId, DistributedProtocol.FAIL);
+                    remaining.countDown();
+                }
+                return;
+            }
+        }
+    }
+
+    private void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serveWorker(socket), "dist-worker-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    logger.warn("Accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serveWorker(Socket socket) {
+        String workerId = String.valueOf(socket.getRemoteSocketAddress());
+        String inFlight = null;
+        activeWorkers.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            socket.setSoTimeout(DistributedProtocol.readTimeoutMillis());
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ", 5);
+                switch (parts[0]) {
+                    case DistributedProtocol.HELLO:
+                        workerId = parts.length > 1 ? parts[1] : workerId;
+                        logger.info("Worker connected: {}", workerId);
+                        break;
+                    case DistributedProtocol.NEXT:
+                        inFlight = nextTest();
+                        if (inFlight == null) {
+                            out.println(remaining.getCount() > 0 ? DistributedProtocol.WAIT : DistributedProtocol.DONE);
+                        } else {
+                            out.println(DistributedProtocol.RUN + " " + inFlight);
+                            attempts.merge(inFlight, 1, Integer::sum);
+                            logger.info("Dispatched {} to {} ({} queued)", inFlight, workerId, queue.size());
+                        }
+                        break;
+                    case DistributedProtocol.RESULT:
+                        onResult(workerId, parts);
+                        inFlight = null;
+                        break;
+                    default:
+                        logger.warn("Unknown message from {}: {}", workerId, line);
+                }
+            }
+        } catch (IOException e) {
+            // Includes the read timeout of a worker that stopped reporting
+            logger.warn("Worker {} connection lost: {}", workerId, e.getMessage());
+        } finally {
+            activeWorkers.decrementAndGet();
+            if (inFlight != null) {
+                requeue(inFlight, workerId);
+            }
+        }
+    }
+
+    /**
+     * Take the next test; while other workers still run tests, wait a while in case one of them is re-queued
+     * @return null when nothing is queued (the worker gets WAIT, or DONE once all results are in)
+     */
+    private String nextTest() {
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (remaining.getCount() > 0 && System.nanoTime() < deadline) {
+                String testId = queue.pollFirst(1, TimeUnit.SECONDS);
+                if (testId != null) {
+                    return testId;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void onResult(String workerId, String[] parts) {
+        String testId = parts[1];
+        String status = parts[2];
+        long duration = Long.parseLong(parts[3]);
+        String message = parts.length > 4 ? parts[4] : "";
+        results.put(testId, status);
+        if (!DistributedProtocol.SKIP.equals(status)) {
+            TestDurationHistory.record(testId.replace('#', '.'), duration);
+        }
+        if (DistributedProtocol.FAIL.equals(status)) {
+            logger.error("❌ {} FAILED on {} ({} ms): {}", testId, workerId, duration, message);
+        } else {
+            logger.info("{} {} on {} ({} ms)", DistributedProtocol.PASS.equals(status) ? "✅" : "⏭️", testId, workerId, duration);
+        }
+        remaining.countDown();
+    }
+
+    private void requeue(String testId, String workerId) {
+        if (attempts.getOrDefault(testId, 0) < maxAttempts) {
+            logger.warn("Re-queueing {} after losing worker {}", testId, workerId);
+            queue.addFirst(testId);
+        } else {
+            logger.error("Giving up on {} after {} attempts (last worker {})", testId, maxAttempts, workerId);
+            results.put(testId, DistributedProtocol.FAIL);
+            remaining.countDown();
+        }
+        if (activeWorkers.get() == 0 && !queue.isEmpty()) {
+            logger.warn("No connected workers left, {} tests waiting", queue.size());
+        }
+    }
+
+    private boolean summarize(long durationMs) {
+        Map<String, Long> counts = results.values().stream()
+                .collect(Collectors.groupingBy(s -> s, Collectors.counting()));
+        logger.info("=================================================================");
+        logger.info("DISTRIBUTED RUN FINISHED in {} ms: passed={}, failed={}, skipped={}", durationMs,
+                counts.getOrDefault(DistributedProtocol.PASS, 0L),
+                counts.getOrDefault(DistributedProtocol.FAIL, 0L),
+                counts.getOrDefault(DistributedProtocol.SKIP, 0L));
+        results.forEach((test, status) -> {
+            if (DistributedProtocol.FAIL.equals(status)) {
+                logger.error("     - {}", test);
+            }
+        });
+        logger.info("=================================================================");
+        return !counts.containsKey(DistributedProtocol.FAIL);
+    }
+
+    /**
+     * Start a worker JVM on this host with the coordinator's classpath
+     */
+    private Process spawnLocalWorker(int port, String workerId) throws IOException {
+        Path logDir = Paths.get("reports", "distributed");
+        Files.createDirectories(logDir);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (NOT_FORWARDED.stream().noneMatch(key::startsWith)) {
+                command.add("-D" + key + "=" + System.getProperty(key));
+            }
+        }
+        command.add("-Ddist.read.timeout.seconds=" + DistributedProtocol.readTimeoutMillis() / 1000);
+        command.addAll(List.of("-cp", currentClasspath(), WorkerNode.class.getName(), "127.0.0.1", String.valueOf(port), workerId));
+        File log = logDir.resolve(workerId + ".log").toFile();
+        logger.info("Spawning local worker {} (log: {})", workerId, log);
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+    }
+
+    private static String currentClasspath() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader instanceof URLClassLoader) {
+            // e.g. exec:java, where java.class.path is Maven's own classpath
+            return Arrays.stream(((URLClassLoader) loader).getURLs())
+                    .map(WorkCoordinator::toPath)
+                    .collect(Collectors.joining(File.pathSeparator));
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static String toPath(URL url) {
+        try {
+            return Paths.get(url.toURI()).toString();
+        } catch (Exception e) {
+            return url.getPath();
+        }
+    }
+
+    /**
+     * Enabled test methods of dist.classes, or of the <test>s in testng.xml (packages expanded, each <test>'s
+     * include/exclude groups applied), filtered by dist.groups. Groups of the class-level @Test count too.
+     */
+    static List<String> discoverTests() throws IOException {
+        Set<String> groups = csv(System.getProperty("dist.groups", ""));
+        Set<String> tests = new LinkedHashSet<>();
+        String configured = System.getProperty("dist.classes", "");
+        if (!configured.isBlank()) {
+            for (String className : csv(configured)) {
+                addTests(tests, className, groups, List.of(), List.of());
+            }
+            return new ArrayList<>(tests);
+        }
+        Parser parser = new Parser("testng.xml");
+        parser.setLoadClasses(false);
+        for (XmlSuite suite : parser.parseToList()) {
+            for (XmlTest test : suite.getTests()) {
+                for (String className : classesOf(test)) {
+                    addTests(tests, className, groups, test.getIncludedGroups(), test.getExcludedGroups());
+                }
+            }
+        }
+        return new ArrayList<>(tests);
+    }
+
+    private static List<String> classesOf(XmlTest test) {
+        List<String> classes = new ArrayList<>();
+        test.getXmlClasses().forEach(xmlClass -> classes.add(xmlClass.getName()));
+        for (XmlPackage xmlPackage : test.getXmlPackages()) {
+            xmlPackage.getXmlClasses().forEach(xmlClass -> classes.add(xmlClass.getName()));
+        }
+        return classes;
+    }
+
+    private static void addTests(Set<String> tests, String className, Set<String> distGroups,
+                                 List<String> included, List<String> excluded) {
+        Class<?> testClass;
+        try {
+            testClass = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            logger.warn("Skipping unknown test class: {}", className);
+            return;
+        }
+        if (Modifier.isAbstract(testClass.getModifiers())) {
+            return;
+        }
+        Test classTest = testClass.getAnnotation(Test.class);
+        for (Method method : testClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            Test test = method.getAnnotation(Test.class);
+            // A class-level @Test makes the class's own public methods tests, except configuration methods
+            boolean isTest = test != null || (classTest != null && method.getDeclaringClass() == testClass
+                    && Arrays.stream(method.getAnnotations()).noneMatch(WorkCoordinator::isTestNgAnnotation));
+            if (!isTest || (test != null && !test.enabled()) || (classTest != null && !classTest.enabled())) {
+                continue;
+            }
+            Set<String> groups = new LinkedHashSet<>();
+            if (classTest != null) {
+                groups.addAll(Arrays.asList(classTest.groups()));
+            }
+            if (test != null) {
+                groups.addAll(Arrays.asList(test.groups()));
+            }
+            if ((!distGroups.isEmpty() && Collections.disjoint(groups, distGroups))
+                    || (!included.isEmpty() && Collections.disjoint(groups, included))
+                    || !Collections.disjoint(groups, excluded)) {
+                continue;
+            }
+            tests.add(DistributedProtocol.testId(className, method.getName()));
+        }
+    }
+
+    private static boolean isTestNgAnnotation(Annotation annotation) {
+        return annotation.annotationType().getPackageName().equals(Test.class.getPackageName());
+    }
+
+    static List<String> orderLongestFirst(List<String> tests) {
+        List<String> ordered = new ArrayList<>(tests);
+        ordered.sort(Comparator.comparingLong(WorkCoordinator::estimate).reversed().thenComparing(t -> t));
+        return ordered;
+    }
+
+    private static long estimate(String testId) {
+        return TestDurationHistory.getEstimate(testId.replace('#', '.'));
+    }
+
+    private static Set<String> csv(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,350 @@
+package distributed;
+
+import io.qameta.allure.testng.AllureTestNg;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IConfigurationListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.testng.xml.internal.Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker of a distributed run: pulls tests from WorkCoordinator, runs each one with TestNG in this JVM
+ * (own DriverFactory sessions) and streams the result back.
+ * Tests run with the listeners of testng.xml, created once per worker: test events reach them on every run, suite
+ * start and finish (reports, attachment store, timings) once per worker. Method interceptors are not applied, the
+ * coordinator orders and distributes the tests. Suite reports go to reports/distributed/<workerId>/.
+ * Usage: WorkerNode <coordinatorHost> <coordinatorPort> [workerId]
+ */
+public class WorkerNode {
+    private static final Logger logger = LogManager.getLogger(WorkerNode.class);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: WorkerNode <coordinatorHost> <coordinatorPort> [workerId]");
+            System.exit(2);
+        }
+        System.setProperty("dist.worker", "true");
+        String workerId = args.length > 2 ? args[2] : "worker-" + ProcessHandle.current().pid();
+        separateReports(workerId);
+        new WorkerNode().run(args[0], Integer.parseInt(args[1]), workerId);
+    }
+
+    /**
+     * Workers on one host would overwrite each other's suite reports; explicit -D settings are kept
+     */
+    private static void separateReports(String workerId) {
+        Path dir = Paths.get("reports", "distributed", workerId);
+        setDefault("extent.report.path", dir.resolve("extent-report.html"));
+        setDefault("timings.report.dir", dir.resolve("timings"));
+        setDefault("event.log.file", dir.resolve("events.jsonl"));
+    }
+
+    private static void setDefault(String key, Path value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value.toString());
+        }
+    }
+
+    public void run(String host, int port, String workerId) throws IOException {
+        SuiteEvents events = new SuiteEvents(suiteListeners());
+        try (Socket socket = connect(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println(DistributedProtocol.HELLO + " " + workerId);
+            int executed = 0;
+            while (true) {
+                out.println(DistributedProtocol.NEXT);
+                String reply = in.readLine();
+                if (reply == null || reply.startsWith(DistributedProtocol.DONE)) {
+                    break;
+                }
+                if (reply.startsWith(DistributedProtocol.WAIT)) {
+                    continue;
+                }
+                String testId = reply.substring(DistributedProtocol.RUN.length() + 1);
+                logger.info("Worker {} running {}", workerId, testId);
+                out.println(runTest(testId, workerId, events));
+                executed++;
+            }
+            logger.info("Worker {} finished after {} tests", workerId, executed);
+        } finally {
+            events.finish();
+        }
+    }
+
+    /**
+     * Listeners of testng.xml, except AllureTestNg which keeps per-suite state and is created for every run
+     */
+    private static List<ITestNGListener> suiteListeners() {
+        List<ITestNGListener> listeners = new ArrayList<>();
+        Parser parser = new Parser("testng.xml");
+        parser.setLoadClasses(false);
+        try {
+            for (XmlSuite suite : parser.parseToList()) {
+                for (String className : suite.getListeners()) {
+                    Class<?> type = Class.forName(className);
+                    if (!AllureTestNg.class.isAssignableFrom(type) && listeners.stream().noneMatch(type::isInstance)) {
+                        listeners.add((ITestNGListener) type.getDeclaredConstructor().newInstance());
+                    }
+                }
+            }
+        } catch (IOException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not load the listeners of testng.xml", e);
+        }
+        return listeners;
+    }
+
+    /**
+     * Connect with a read timeout: a coordinator that stops answering ends the worker instead of hanging it
+     */
+    private static Socket connect(String host, int port) throws IOException {
+        Socket socket = new Socket(host, port);
+        socket.setSoTimeout(DistributedProtocol.readTimeoutMillis());
+        return socket;
+    }
+
+    /**
+     * Run a single test method and build its RESULT line
+     */
+    private String runTest(String testId, String workerId, SuiteEvents events) {
+        String className = testId.substring(0, testId.indexOf('#'));
+        String methodName = testId.substring(testId.indexOf('#') + 1);
+
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Distributed " + workerId);
+        XmlTest test = new XmlTest(suite);
+        test.setName(methodName);
+        XmlClass xmlClass = new XmlClass(className, false);
+        xmlClass.setIncludedMethods(List.of(new XmlInclude(methodName)));
+        test.setXmlClasses(List.of(xmlClass));
+
+        ResultCollector collector = new ResultCollector();
+        long start = System.currentTimeMillis();
+        try {
+            TestNG testng = new TestNG(false);
+            testng.setXmlSuites(List.of(suite));
+            testng.setUseDefaultListeners(false);
+            testng.addListener(events);
+            testng.addListener(new AllureTestNg());
+            testng.addListener(collector);
+            testng.run();
+        } catch (Exception e) {
+            collector.status = DistributedProtocol.FAIL;
+            collector.message = e.toString();
+        }
+        long duration = collector.duration >= 0 ? collector.duration : System.currentTimeMillis() - start;
+        return String.join(" ", DistributedProtocol.RESULT, testId, collector.status,
+                String.valueOf(duration), DistributedProtocol.oneLine(collector.message));
+    }
+
+    /**
+     * Captures the outcome of the single test run by this worker; a failed configuration method fails the test, as
+     * it does under Surefire, even though TestNG then reports the test itself as skipped
+     */
+    private static class ResultCollector implements ITestListener, IConfigurationListener {
+        private String status = DistributedProtocol.SKIP;
+        private String message = "not executed";
+        private long duration = -1;
+        private boolean configurationFailed;
+
+        @Override
+        public void onConfigurationFailure(ITestResult result) {
+            record(DistributedProtocol.FAIL, result);
+            message = result.getMethod().getMethodName() + " failed: " + message;
+            configurationFailed = true;
+        }
+
+        @Override
+        public void onTestSuccess(ITestResult result) {
+            record(DistributedProtocol.PASS, result);
+        }
+
+        @Override
+        public void onTestFailure(ITestResult result) {
+            record(DistributedProtocol.FAIL, result);
+        }
+
+        @Override
+        public void onTestSkipped(ITestResult result) {
+            record(DistributedProtocol.SKIP, result);
+        }
+
+        private void record(String status, ITestResult result) {
+            if (configurationFailed) {
+                return;
+            }
+            this.status = status;
+            this.duration = result.getEndMillis() - result.getStartMillis();
+            this.message = result.getThrowable() != null ? String.valueOf(result.getThrowable().getMessage()) : "";
+        }
+    }
+
+    /**
+     * Forwards the events of every run to the worker's listeners, suite start only for the first run; suite finish
+     * is sent once by finish() when the worker is done
+     */
+    private static class SuiteEvents implements ISuiteListener, ITestListener, IInvokedMethodListener,
+            IConfigurationListener {
+        private final List<ITestNGListener> listeners;
+        private boolean started;
+        private ISuite lastSuite;
+
+        SuiteEvents(List<ITestNGListener> listeners) {
+            this.listeners = listeners;
+        }
+
+        void finish() {
+            if (lastSuite != null) {
+                each(ISuiteListener.class).forEach(l -> l.onFinish(lastSuite));
+            }
+        }
+
+        private <T> List<T> each(Class<T> type) {
+            List<T> matching = new ArrayList<>();
+            for (ITestNGListener listener : listeners) {
+                if (type.isInstance(listener)) {
+                    matching.add(type.cast(listener));
+                }
+            }
+            return matching;
+        }
+
+        @Override
+        public void onStart(ISuite suite) {
+            if (!started) {
+                started = true;
+                each(ISuiteListener.class).forEach(l -> l.onStart(suite));
+            }
+        }
+
+        @Override
+        public void onFinish(ISuite suite) {
+            lastSuite = suite;
+        }
+
+        @Override
+        public void onStart(ITestContext context) {
+            each(ITestListener.class).forEach(l -> l.onStart(context));
+        }
+
+        @Override
+        public void onFinish(ITestContext context) {
+            each(ITestListener.class).forEach(l -> l.onFinish(context));
+        }
+
+        @Override
+        public void onTestStart(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestStart(result));
+        }
+
+        @Override
+        public void onTestSuccess(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestSuccess(result));
+        }
+
+        @Override
+        public void onTestFailure(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestFailure(result));
+        }
+
+        @Override
+        public void onTestSkipped(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestSkipped(result));
+        }
+
+        @Override
+        public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestFailedButWithinSuccessPercentage(result));
+        }
+
+        @Override
+        public void onTestFailedWithTimeout(ITestResult result) {
+            each(ITestListener.class).forEach(l -> l.onTestFailedWithTimeout(result));
+        }
+
+        // TestNG calls both variants of the invocation and configuration callbacks, so both are forwarded
+        @Override
+        public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+            each(IInvokedMethodListener.class).forEach(l -> l.beforeInvocation(method, result));
+        }
+
+        @Override
+        public void afterInvocation(IInvokedMethod method, ITestResult result) {
+            each(IInvokedMethodListener.class).forEach(l -> l.afterInvocation(method, result));
+        }
+
+        @Override
+        public void beforeInvocation(IInvokedMethod method, ITestResult result, ITestContext context) {
+            each(IInvokedMethodListener.class).forEach(l -> l.beforeInvocation(method, result, context));
+        }
+
+        @Override
+        public void afterInvocation(IInvokedMethod method, ITestResult result, ITestContext context) {
+            each(IInvokedMethodListener.class).forEach(l -> l.afterInvocation(method, result, context));
+        }
+
+        @Override
+        public void beforeConfiguration(ITestResult result) {
+            each(IConfigurationListener.class).forEach(l -> l.beforeConfiguration(result));
+        }
+
+        @Override
+        public void onConfigurationSuccess(ITestResult result) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationSuccess(result));
+        }
+
+        @Override
+        public void onConfigurationFailure(ITestResult result) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationFailure(result));
+        }
+
+        @Override
+        public void onConfigurationSkip(ITestResult result) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationSkip(result));
+        }
+
+        @Override
+        public void beforeConfiguration(ITestResult result, ITestNGMethod method) {
+            each(IConfigurationListener.class).forEach(l -> l.beforeConfiguration(result, method));
+        }
+
+        @Override
+        public void onConfigurationSuccess(ITestResult result, ITestNGMethod method) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationSuccess(result, method));
+        }
+
+        @Override
+        public void onConfigurationFailure(ITestResult result, ITestNGMethod method) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationFailure(result, method));
+        }
+
+        @Override
+        public void onConfigurationSkip(ITestResult result, ITestNGMethod method) {
+            each(IConfigurationListener.class).forEach(l -> l.onConfigurationSkip(result, method));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package listeners;
+
+import core.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import utils.AttachmentStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * At suite end: moves the Allure attachments written by the suite into the AttachmentStore, checks that every result
+ * still finds its attachments, applies retention and reports the dedup figures
+ */
+public class AttachmentStoreListener implements ISuiteListener {
+    private static final Logger logger = LogManager.getLogger(AttachmentStoreListener.class);
+    private Instant suiteStart = Instant.now();
+
+    @Override
+    public void onStart(ISuite suite) {
+        suiteStart = Instant.now();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (!ConfigReader.isAttachmentStoreEnabled()) {
+            return;
+        }
+        try {
+            Path results = AttachmentStore.allureResultsDir();
+            AttachmentStore.deduplicateAllureResults(results, suiteStart);
+            List<String> missing = AttachmentStore.missingAllureAttachments(results, suiteStart);
+            if (!missing.isEmpty()) {
+                logger.error("{} Allure attachments referenced by results are missing, e.g. {}", missing.size(), missing.get(0));
+            }
+            Path screenshots = Paths.get(ConfigReader.getProperty("screenshot.path", "reports/screenshots/"));
+            int deleted = AttachmentStore.applyRetention(ConfigReader.getAttachmentStoreRetentionDays(),
+                    List.of(screenshots), ConfigReader.isAttachmentStoreAllureRetentionEnabled() ? results : null);
+            Properties report = AttachmentStore.report();
+            report.setProperty("retention.deleted.objects", String.valueOf(deleted));
+            report.setProperty("allure.missing.attachments", String.valueOf(missing.size()));
+            Path file = Paths.get(ConfigReader.getAttachmentStoreDir()).resolve("dedup-report.properties");
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                report.store(out, "Attachment store dedup report");
+            }
+            logger.info("Attachment store: {}", AttachmentStore.getRunStats());
+            logger.info("Attachment store totals: {} objects, dedup ratio {}, {} bytes saved ({} expired objects removed)",
+                    report.getProperty("store.objects"), report.getProperty("store.dedup.ratio"),
+                    report.getProperty("store.bytes.saved"), deleted);
+        } catch (IOException e) {
+            logger.warn("Attachment store report/retention failed: {}", e.getMessage());
+        }
+    }
+}
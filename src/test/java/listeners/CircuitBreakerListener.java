@@ -0,0 +1,43 @@
+package listeners;
+
+import core.CircuitBreaker;
+import core.InfrastructureUnavailableException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+/**
+ * Reports tests stopped by an open circuit breaker as skipped (not failed) and summarizes breaker state
+ */
+public class CircuitBreakerListener implements IInvokedMethodListener, ISuiteListener {
+    private static final Logger logger = LogManager.getLogger(CircuitBreakerListener.class);
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        for (Throwable t = testResult.getThrowable(); t != null; t = t.getCause()) {
+            if (t instanceof InfrastructureUnavailableException) {
+                logger.warn("⏭️ Marking {} as skipped: {}", testResult.getMethod().getMethodName(), t.getMessage());
+                testResult.setStatus(ITestResult.SKIP);
+                testResult.setThrowable(t);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        CircuitBreaker.getAll().forEach((type, breaker) -> {
+            if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                logger.error("CIRCUIT {} at suite end: {} ({} consecutive failures)",
+                        breaker.getState(), type.getDisplayName(), breaker.getConsecutiveFailures());
+            }
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package listeners;
+
+import core.ConfigReader;
+import core.PhaseTimer;
+import core.TestTimings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Writes the HTML report (extent.report.path) incrementally: one table row per finished test, flushed immediately
+ * Nothing is kept in memory besides counters, screenshots are linked from disk instead of embedded, and the
+ * page computes its summary in the browser, so a partially written report (killed run) still opens and is complete
+ * up to the last finished test.
+ */
+public class HtmlReportListener implements ITestListener, ISuiteListener {
+    private static final Logger logger = LogManager.getLogger(HtmlReportListener.class);
+    private static final int MAX_STACK_LINES = 40;
+
+    private Writer writer;
+    private Path reportDir;
+    private int openSuites;
+    private long startMillis;
+    private int passed;
+    private int failed;
+    private int skipped;
+
+    @Override
+    public synchronized void onStart(ISuite suite) {
+        if (openSuites++ > 0 || !ConfigReader.isExtentReportEnabled()) {
+            return;
+        }
+        Path report = Paths.get(ConfigReader.getExtentReportPath()).toAbsolutePath();
+        try {
+            Files.createDirectories(report.getParent());
+            writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8);
+            reportDir = report.getParent();
+            startMillis = System.currentTimeMillis();
+            passed = failed = skipped = 0;
+            writeHeader(suite.getName());
+            logger.info("HTML report: {}", report);
+        } catch (IOException e) {
+            logger.warn("HTML report disabled, could not open {}: {}", report, e.getMessage());
+            writer = null;
+        }
+    }
+
+    @Override
+    public synchronized void onFinish(ISuite suite) {
+        if (openSuites == 0 || --openSuites > 0 || writer == null) {
+            return;
+        }
+        try {
+            writer.write("</tbody></table>\n<p class=\"footer\">Finished " + timestamp(System.currentTimeMillis())
+                    + " &middot; " + passed + " passed, " + failed + " failed, " + skipped + " skipped in "
+                    + formatDuration(System.currentTimeMillis() - startMillis) + "</p>\n</body></html>\n");
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Could not finish HTML report: {}", e.getMessage());
+        }
+        writer = null;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        writeRow(result, "pass");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        writeRow(result, "fail");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        writeRow(result, "skip");
+    }
+
+    private synchronized void writeRow(ITestResult result, String status) {
+        if (writer == null) {
+            return;
+        }
+        switch (status) {
+            case "pass":
+                passed++;
+                break;
+            case "fail":
+                failed++;
+                break;
+            default:
+                skipped++;
+        }
+        StringBuilder row = new StringBuilder(512);
+        row.append("<tr class=\"").append(status).append("\"><td class=\"status\">").append(status.toUpperCase())
+                .append("</td><td>").append(escape(testName(result)));
+        String description = result.getMethod().getDescription();
+        if (description != null && !description.isEmpty()) {
+            row.append("<div class=\"desc\">").append(escape(description)).append("</div>");
+        }
+        row.append("</td><td>").append(escape(result.getTestContext().getName()))
+                .append("</td><td>").append(timestamp(result.getStartMillis()))
+                .append("</td><td class=\"num\">").append(formatDuration(result.getEndMillis() - result.getStartMillis()))
+                .append("</td><td>").append(escape(Thread.currentThread().getName()))
+                .append("</td><td>");
+        appendDetails(row, result);
+        row.append("</td></tr>\n");
+        try {
+            writer.write(row.toString());
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Could not write HTML report row: {}", e.getMessage());
+        }
+    }
+
+    private void appendDetails(StringBuilder row, ITestResult result) {
+        Object screenshot = result.getAttribute(ScreenshotListener.SCREENSHOT_ATTR);
+        if (screenshot != null) {
+            String href = escape(relativeLink(screenshot.toString()));
+            row.append("<a href=\"").append(href).append("\"><img loading=\"lazy\" src=\"").append(href)
+                    .append("\" alt=\"screenshot\"></a>");
+        }
+        TestTimings timings = PhaseTimer.current();
+        if (timings != null && !timings.getSteps().isEmpty()) {
+            row.append("<details><summary>").append(timings.getSteps().size()).append(" steps</summary><ol>");
+            for (TestTimings.Step step : timings.getSteps()) {
+                row.append("<li>").append(escape(step.getName())).append(" <span class=\"num\">")
+                        .append(step.getDurationMs()).append(" ms</span></li>");
+            }
+            row.append("</ol></details>");
+        }
+        Throwable throwable = result.getThrowable();
+        if (throwable != null) {
+            row.append("<details><summary>").append(escape(String.valueOf(throwable.getMessage()).lines()
+                    .findFirst().orElse(throwable.getClass().getName()))).append("</summary><pre>")
+                    .append(escape(throwable.toString()));
+            StackTraceElement[] stack = throwable.getStackTrace();
+            for (int i = 0; i < Math.min(stack.length, MAX_STACK_LINES); i++) {
+                row.append("\n    at ").append(escape(stack[i].toString()));
+            }
+            if (stack.length > MAX_STACK_LINES) {
+                row.append("\n    ... ").append(stack.length - MAX_STACK_LINES).append(" more");
+            }
+            row.append("</pre></details>");
+        }
+    }
+
+    private void writeHeader(String suiteName) throws IOException {
+        writer.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>" + escape(suiteName) + "</title>\n"
+                + "<style>body{font-family:sans-serif;margin:1em}table{border-collapse:collapse;width:100%}"
+                + "th,td{border-bottom:1px solid #ddd;padding:4px 8px;text-align:left;vertical-align:top;font-size:13px}"
+                + "th{background:#f4f4f4;position:sticky;top:0}.num{text-align:right;white-space:nowrap}"
+                + ".status{font-weight:bold}.pass .status{color:#2e7d32}.fail .status{color:#c62828}"
+                + ".skip .status{color:#ef6c00}.desc{color:#666}img{max-width:240px;display:block}"
+                + "pre{white-space:pre-wrap;font-size:12px}#summary button{margin-right:6px}.footer{color:#666}"
+                + "</style>\n<script>document.addEventListener('DOMContentLoaded',function(){"
+                + "var rows=document.querySelectorAll('tbody tr'),c={pass:0,fail:0,skip:0};"
+                + "rows.forEach(function(r){c[r.className]++;});"
+                + "document.getElementById('summary').innerHTML=['all','pass','fail','skip'].map(function(s){"
+                + "return '<button data-s=\"'+s+'\">'+s+' ('+(s==='all'?rows.length:c[s])+')</button>';}).join('');"
+                + "document.querySelectorAll('#summary button').forEach(function(b){b.onclick=function(){"
+                + "rows.forEach(function(r){r.style.display=b.dataset.s==='all'||r.className===b.dataset.s?'':'none';});};});"
+                + "});</script>\n</head><body>\n<h2>" + escape(suiteName) + "</h2>\n<p>Started "
+                + timestamp(startMillis) + " &middot; environment " + escape(ConfigReader.getEnvironment())
+                + " &middot; platform " + escape(ConfigReader.getPlatform()) + "</p>\n<div id=\"summary\"></div>\n"
+                + "<table><thead><tr><th>Status</th><th>Test</th><th>Context</th><th>Started</th><th>Duration</th>"
+                + "<th>Thread</th><th>Details</th></tr></thead><tbody>\n");
+        writer.flush();
+    }
+
+    private String relativeLink(String file) {
+        Path target = Paths.get(file).toAbsolutePath();
+        try {
+            return reportDir.relativize(target).toString().replace('\\', '/');
+        } catch (IllegalArgumentException e) {
+            return target.toUri().toString();
+        }
+    }
+
+    private static String testName(ITestResult result) {
+        String name = TestDurationHistory.key(result.getMethod());
+        Object[] parameters = result.getParameters();
+        return parameters == null || parameters.length == 0 ? name : name + Arrays.toString(parameters);
+    }
+
+    private static String timestamp(long millis) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(millis));
+    }
+
+    private static String formatDuration(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format("%.1f s", millis / 1000.0);
+    }
+
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
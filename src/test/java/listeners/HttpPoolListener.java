@@ -0,0 +1,36 @@
+package listeners;
+
+import core.HttpTransport;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Sizes the shared HTTP transport for the suite's parallel sessions
+ * Registered through META-INF/services rather than testng.xml, so it also runs for -Dtest= runs and distributed workers
+ */
+public class HttpPoolListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        HttpTransport.setParallelSessions(parallelSessions(suite.getXmlSuite()));
+    }
+
+    /**
+     * Highest thread-count of the suite or of its <test> tags that run in parallel (1 when nothing runs in parallel)
+     */
+    static int parallelSessions(XmlSuite suite) {
+        int sessions = 1;
+        // Surefire's -Dparallel/-DthreadCount set these on the suite itself
+        if (suite.getParallel() != null && suite.getParallel().isParallel()) {
+            sessions = suite.getThreadCount();
+        }
+        for (XmlTest test : suite.getTests()) {
+            if (test.getParallel() != null && test.getParallel().isParallel()) {
+                sessions = Math.max(sessions, test.getThreadCount());
+            }
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,79 @@
+package listeners;
+
+import core.TestLogAppender;
+import io.qameta.allure.Allure;
+import org.testng.IConfigurationListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+/**
+ * Captures each test's full (DEBUG) log in the TestLogBuffer appender and attaches it to Allure when it fails
+ * Capture starts with @BeforeMethod, so a failing setup is attached to its Allure fixture. A test is attached on
+ * failure and on a skip with a cause (e.g. a retried attempt); passing and plainly skipped tests discard it.
+ * The @AfterMethod methods of an attached test run after onTestFailure/onTestSkipped: their log is captured anew
+ * and attached to each teardown fixture as "Teardown log".
+ */
+public class LogBufferListener implements IInvokedMethodListener, ITestListener, IConfigurationListener {
+    // Set once a test's log is attached, until the next test starts: its teardown log is attached too
+    private static final ThreadLocal<Boolean> attachTeardown = ThreadLocal.withInitial(() -> false);
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.getTestMethod().isBeforeMethodConfiguration() || method.isTestMethod()) {
+            attachTeardown.remove();
+        }
+        if (method.getTestMethod().isBeforeMethodConfiguration() || !TestLogAppender.isCapturing()) {
+            TestLogAppender.startCapture();
+        }
+    }
+
+    /**
+     * A failed configuration method is attached here: AllureTestNg closes its fixture in onConfigurationFailure
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isConfigurationMethod() && testResult.getStatus() == ITestResult.FAILURE) {
+            attach("Test log");
+        } else if (method.getTestMethod().isAfterMethodConfiguration() && attachTeardown.get()) {
+            attach("Teardown log");
+        }
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        attach("Test log");
+        attachTeardown.set(true);
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        if (result.getThrowable() != null) {
+            attach("Test log");
+            attachTeardown.set(true);
+        } else {
+            TestLogAppender.discard();
+        }
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        TestLogAppender.discard();
+    }
+
+    @Override
+    public void onConfigurationSuccess(ITestResult result) {
+        // A @BeforeMethod capture runs on into its test; other configuration methods only matter when they fail
+        if (!result.getMethod().isBeforeMethodConfiguration()) {
+            TestLogAppender.discard();
+        }
+    }
+
+    private static void attach(String name) {
+        String log = TestLogAppender.drain();
+        if (log != null) {
+            Allure.addAttachment(name, "text/plain", log, ".log");
+        }
+    }
+}
@@ -1,24 +1,34 @@
 package listeners;
 
+import core.EventLog;
+import core.LocatorStats;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.*;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * TestNG listener for enhanced logging
  */
 public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMethodListener {
     private static final Logger logger = LogManager.getLogger(LoggerListener.class);
-    private long testStartTime;
     private long suiteStartTime;
+    // Test plus its @BeforeMethod/@AfterMethod time, recorded to the duration history when its context finishes
+    // (@AfterMethod runs after onTestSuccess/onTestFailure, on the test's thread)
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
 
     // Suite level methods
     @Override
     public void onStart(ISuite suite) {
         suiteStartTime = System.currentTimeMillis();
+        EventLog.open();
+        EventLog.emit("suite_start", "suite", suite.getName());
         logger.info("=================================================================");
         logger.info("SUITE STARTED: {} at {}", suite.getName(), getCurrentTimestamp());
         logger.info("=================================================================");
@@ -27,16 +37,31 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
     @Override
     public void onFinish(ISuite suite) {
         long duration = System.currentTimeMillis() - suiteStartTime;
+        TestDurationHistory.save();
+        LocatorStats.flush();
+        EventLog.emit("suite_finish", "suite", suite.getName(), "durationMs", duration);
+        EventLog.close();
         logger.info("=================================================================");
         logger.info("SUITE FINISHED: {} at {}", suite.getName(), getCurrentTimestamp());
         logger.info("SUITE DURATION: {} ms ({} seconds)", duration, duration / 1000.0);
+        // Each context is scheduled on its own threads, so its prediction is compared with its own wall time
+        suite.getResults().values().forEach(r -> {
+            ITestContext context = r.getTestContext();
+            Object predicted = context.getAttribute(LongestFirstInterceptor.PREDICTED_MAKESPAN_ATTR);
+            if (predicted != null) {
+                logger.info("CONTEXT MAKESPAN: {} predicted {} ms, actual {} ms", context.getName(), predicted,
+                    context.getEndDate().getTime() - context.getStartDate().getTime());
+            }
+        });
         logger.info("=================================================================");
     }
 
     // Test level methods
     @Override
     public void onTestStart(ITestResult result) {
-        testStartTime = System.currentTimeMillis();
+        EventLog.setCurrentTest(TestDurationHistory.key(result.getMethod()));
+        EventLog.emit("test_start", "context", result.getTestContext().getName(),
+            "groups", String.join(",", result.getMethod().getGroups()));
         logger.info("▶️ TEST STARTED: {} - {}", 
             result.getTestClass().getName(), 
             result.getMethod().getMethodName());
@@ -49,7 +74,9 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        long duration = System.currentTimeMillis() - testStartTime;
+        long duration = result.getEndMillis() - result.getStartMillis();
+        markForHistory();
+        EventLog.emit("test_finish", "status", "PASS", "durationMs", duration);
         logger.info("✅ TEST PASSED: {} - {} (Duration: {} ms)", 
             result.getTestClass().getName(), 
             result.getMethod().getMethodName(), 
@@ -58,7 +85,10 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
 
     @Override
     public void onTestFailure(ITestResult result) {
-        long duration = System.currentTimeMillis() - testStartTime;
+        long duration = result.getEndMillis() - result.getStartMillis();
+        markForHistory();
+        EventLog.emit("test_finish", "status", "FAIL", "durationMs", duration,
+            "error", result.getThrowable() != null ? String.valueOf(result.getThrowable().getMessage()) : null);
         logger.error("❌ TEST FAILED: {} - {} (Duration: {} ms)", 
             result.getTestClass().getName(), 
             result.getMethod().getMethodName(), 
@@ -80,7 +110,9 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        long duration = System.currentTimeMillis() - testStartTime;
+        long duration = result.getEndMillis() - result.getStartMillis();
+        EventLog.emit("test_finish", "status", "SKIP", "durationMs", duration,
+            "error", result.getThrowable() != null ? String.valueOf(result.getThrowable().getMessage()) : null);
         logger.warn("⏭️ TEST SKIPPED: {} - {} (Duration: {} ms)", 
             result.getTestClass().getName(), 
             result.getMethod().getMethodName(), 
@@ -103,6 +135,17 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
     // Configuration methods (for @BeforeMethod, @AfterMethod, etc.)
     @Override
     public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        ITestNGMethod invoked = method.getTestMethod();
+        Span span = currentSpan.get();
+        // A @BeforeMethod or a test after a finished test starts the next span
+        if ((invoked.isBeforeMethodConfiguration() || method.isTestMethod()) && (span == null || span.test != null)) {
+            span = new Span(testResult.getTestContext().getName(), testResult.getStartMillis());
+            currentSpan.set(span);
+        }
+        if (method.isTestMethod() && span != null) {
+            span.test = TestDurationHistory.key(invoked);
+            spans.add(span);
+        }
         if (method.isConfigurationMethod()) {
             logger.debug("🔧 CONFIG METHOD STARTED: {} - {}", 
                 method.getTestMethod().getTestClass().getName(),
@@ -112,8 +155,16 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
 
     @Override
     public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        ITestNGMethod invoked = method.getTestMethod();
+        Span span = currentSpan.get();
+        if (span != null && (method.isTestMethod() || invoked.isBeforeMethodConfiguration()
+                || invoked.isAfterMethodConfiguration())) {
+            span.end = testResult.getEndMillis();
+        }
         if (method.isConfigurationMethod()) {
             if (testResult.getStatus() == ITestResult.FAILURE) {
+                EventLog.emit("config_failure", "method", method.getTestMethod().getMethodName(),
+                    "error", testResult.getThrowable() != null ? String.valueOf(testResult.getThrowable().getMessage()) : null);
                 logger.error("🔧❌ CONFIG METHOD FAILED: {} - {}", 
                     method.getTestMethod().getTestClass().getName(),
                     method.getTestMethod().getMethodName());
@@ -134,6 +185,7 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
     @Override
     public void onStart(ITestContext context) {
         logger.info("📋 TEST CONTEXT STARTED: {}", context.getName());
+        EventLog.emit("context_start", "context", context.getName());
         logger.info("   Included Methods: {}", context.getIncludedGroups().length);
         logger.info("   Excluded Methods: {}", context.getExcludedGroups().length);
         logger.info("   Parallel Mode: {}", context.getCurrentXmlTest().getParallel());
@@ -143,6 +195,8 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
     @Override
     public void onFinish(ITestContext context) {
         logger.info("📋 TEST CONTEXT FINISHED: {}", context.getName());
+        EventLog.emit("context_finish", "context", context.getName(), "passed", context.getPassedTests().size(),
+            "failed", context.getFailedTests().size(), "skipped", context.getSkippedTests().size());
         logger.info("   Tests Run: {}", 
             context.getPassedTests().size() + 
             context.getFailedTests().size() + 
@@ -150,6 +204,12 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
         logger.info("   Passed: {}", context.getPassedTests().size());
         logger.info("   Failed: {}", context.getFailedTests().size());
         logger.info("   Skipped: {}", context.getSkippedTests().size());
+        recordDurations(context.getName());
+        Object predicted = context.getAttribute(LongestFirstInterceptor.PREDICTED_MAKESPAN_ATTR);
+        if (predicted != null) {
+            logger.info("   Makespan: predicted {} ms, actual {} ms", predicted,
+                context.getEndDate().getTime() - context.getStartDate().getTime());
+        }
         
         // Log failed test names
         if (context.getFailedTests().size() > 0) {
@@ -161,6 +221,44 @@ public class LoggerListener implements ITestListener, ISuiteListener, IInvokedMe
         }
     }
 
+    /**
+     * Passed and failed tests go into the duration history, skipped ones did not really run
+     */
+    private void markForHistory() {
+        Span span = currentSpan.get();
+        if (span != null) {
+            span.recorded = true;
+        }
+    }
+
+    /**
+     * Record the finished spans of a context, setup and teardown included
+     */
+    private void recordDurations(String contextName) {
+        for (Iterator<Span> it = spans.iterator(); it.hasNext(); ) {
+            Span span = it.next();
+            if (span.context.equals(contextName)) {
+                it.remove();
+                if (span.recorded && span.end >= span.start) {
+                    TestDurationHistory.record(span.test, span.end - span.start);
+                }
+            }
+        }
+    }
+
+    private static final class Span {
+        final String context;
+        final long start;
+        volatile String test;
+        volatile long end;
+        volatile boolean recorded;
+
+        Span(String context, long start) {
+            this.context = context;
+            this.start = start;
+        }
+    }
+
     /**
      * Get current timestamp as formatted string
      */
@@ -0,0 +1,74 @@
+package listeners;
+
+import core.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.xml.XmlSuite;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * TestNG method interceptor ordering tests longest-first by historical duration
+ * Only parallel tests declared with preserve-order="false" are reordered. With a thread pool
+ * taking tests in order this gives LPT scheduling; the predicted makespan is stored on the
+ * context and compared with the actual one by LoggerListener.
+ */
+public class LongestFirstInterceptor implements IMethodInterceptor {
+    private static final Logger logger = LogManager.getLogger(LongestFirstInterceptor.class);
+    public static final String PREDICTED_MAKESPAN_ATTR = "schedule.predictedMakespanMs";
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!ConfigReader.isLongestFirstScheduling()) {
+            return methods;
+        }
+        // Declared order is kept where the suite asks for it, and one thread runs in the same time in any order
+        int threads = getThreadCount(context);
+        if (threads == 1 || Boolean.TRUE.equals(context.getCurrentXmlTest().getPreserveOrder())) {
+            return methods;
+        }
+        List<IMethodInstance> ordered = new ArrayList<>(methods);
+        ordered.sort(Comparator
+                .comparingLong((IMethodInstance m) -> TestDurationHistory.getEstimate(m.getMethod())).reversed()
+                .thenComparing(m -> TestDurationHistory.key(m.getMethod())));
+
+        long makespan = predictMakespan(ordered, threads);
+        context.setAttribute(PREDICTED_MAKESPAN_ATTR, makespan);
+        logger.info("Longest-first schedule for '{}': {} tests, {} threads, predicted makespan {} ms",
+                context.getName(), ordered.size(), threads, makespan);
+        ordered.forEach(m -> logger.debug("   {} (estimate {} ms)",
+                TestDurationHistory.key(m.getMethod()), TestDurationHistory.getEstimate(m.getMethod())));
+        return ordered;
+    }
+
+    /**
+     * Simulate greedy assignment of ordered tests to the least loaded thread
+     */
+    static long predictMakespan(List<IMethodInstance> ordered, int threads) {
+        PriorityQueue<Long> loads = new PriorityQueue<>();
+        for (int i = 0; i < threads; i++) {
+            loads.add(0L);
+        }
+        long makespan = 0;
+        for (IMethodInstance m : ordered) {
+            long finish = loads.poll() + TestDurationHistory.getEstimate(m.getMethod());
+            loads.add(finish);
+            makespan = Math.max(makespan, finish);
+        }
+        return makespan;
+    }
+
+    private int getThreadCount(ITestContext context) {
+        XmlSuite.ParallelMode parallel = context.getCurrentXmlTest().getParallel();
+        if (parallel == null || !parallel.isParallel()) {
+            return 1;
+        }
+        return Math.max(1, context.getCurrentXmlTest().getThreadCount());
+    }
+}
@@ -0,0 +1,118 @@
+package listeners;
+
+import com.sun.net.httpserver.HttpServer;
+import core.ConfigReader;
+import core.RunMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves live run metrics at http://<metrics.bind>:<metrics.port>/metrics in Prometheus text format
+ * (opt-in via metrics.enabled) and keeps the test counters of RunMetrics up to date
+ */
+public class MetricsListener implements ISuiteListener, ITestListener {
+    private static final Logger logger = LogManager.getLogger(MetricsListener.class);
+    private static final String STARTED_ATTR = "metrics.started";
+    private static final String SERVER_ATTR = "metrics.server";
+    private static HttpServer server;
+    private static int openSuites;
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (ConfigReader.isMetricsEnabled() && startServer()) {
+            suite.setAttribute(SERVER_ATTR, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        // Suites whose bind failed never counted as holding the server
+        if (suite.removeAttribute(SERVER_ATTR) != null) {
+            stopServer();
+        }
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        RunMetrics.testsRunning.increment();
+        result.setAttribute(STARTED_ATTR, Boolean.TRUE);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        finished(result);
+        RunMetrics.testsPassed.increment();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        finished(result);
+        RunMetrics.testsFailed.increment();
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        finished(result);
+        RunMetrics.testsSkipped.increment();
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        finished(result);
+        RunMetrics.testsPassed.increment();
+    }
+
+    private void finished(ITestResult result) {
+        // Tests skipped before starting (e.g. failed @BeforeMethod) were never counted as running
+        if (result.getAttribute(STARTED_ATTR) != null) {
+            result.removeAttribute(STARTED_ATTR);
+            RunMetrics.testsRunning.decrement();
+        }
+    }
+
+    /**
+     * Start the endpoint unless it is running and count the suite as holding it
+     * @return false when the endpoint could not be started
+     */
+    private static synchronized boolean startServer() {
+        if (server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(ConfigReader.getMetricsBind(), ConfigReader.getMetricsPort()), 0);
+                server.createContext("/metrics", exchange -> {
+                    byte[] body = RunMetrics.render().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+                server.start();
+                logger.info("Metrics endpoint: http://{}:{}/metrics", ConfigReader.getMetricsBind(), server.getAddress().getPort());
+            } catch (IOException e) {
+                logger.warn("Could not start metrics endpoint on port {}: {}", ConfigReader.getMetricsPort(), e.getMessage());
+                server = null;
+                return false;
+            }
+        }
+        openSuites++;
+        return true;
+    }
+
+    private static synchronized void stopServer() {
+        if (server == null || --openSuites > 0) {
+            return;
+        }
+        server.stop(0);
+        server = null;
+        logger.info("Metrics endpoint stopped");
+    }
+}
@@ -2,7 +2,10 @@ package listeners;
 
 import core.ConfigReader;
 import core.DriverFactory;
-import org.apache.commons.io.FileUtils;
+import core.EventLog;
+import core.PhaseTimer;
+import core.RunMetrics;
+import enums.TimingPhase;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.OutputType;
@@ -10,10 +13,13 @@ import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
+import utils.AttachmentStore;
 import io.qameta.allure.Attachment;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -22,6 +28,7 @@ import java.util.Date;
  */
 public class ScreenshotListener implements ITestListener {
     private static final Logger logger = LogManager.getLogger(ScreenshotListener.class);
+    public static final String SCREENSHOT_ATTR = "screenshot";
 
     @Override
     public void onTestFailure(ITestResult result) {
@@ -29,11 +36,16 @@ public class ScreenshotListener implements ITestListener {
         
         WebDriver driver = DriverFactory.getDriver();
         if (driver != null) {
-            // Capture screenshot for Allure report
-            captureScreenshotForAllure(result.getMethod().getMethodName());
-            
-            // Save screenshot to file system
-            saveScreenshotToFile(result.getMethod().getMethodName());
+            PhaseTimer.time(TimingPhase.SCREENSHOT, () -> {
+                // Capture screenshot for Allure report
+                captureScreenshotForAllure(result.getMethod().getMethodName());
+
+                // Save screenshot to file system
+                String screenshotPath = saveScreenshotToFile(result.getMethod().getMethodName());
+                if (screenshotPath != null) {
+                    result.setAttribute(SCREENSHOT_ATTR, screenshotPath);
+                }
+            });
         } else {
             logger.warn("WebDriver is null, cannot capture screenshot");
         }
@@ -63,6 +75,8 @@ public class ScreenshotListener implements ITestListener {
             WebDriver driver = DriverFactory.getDriver();
             if (driver instanceof TakesScreenshot) {
                 byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                RunMetrics.recordScreenshot(screenshot.length);
+                EventLog.emit("attachment", "name", "Screenshot on Failure", "bytes", screenshot.length);
                 logger.info("Screenshot captured for Allure report: {}", testName);
                 return screenshot;
             }
@@ -74,8 +88,9 @@ public class ScreenshotListener implements ITestListener {
 
     /**
      * Save screenshot to file system
+     * @return absolute path of the saved screenshot, null when none was taken
      */
-    public void saveScreenshotToFile(String testName) {
+    public String saveScreenshotToFile(String testName) {
         try {
             WebDriver driver = DriverFactory.getDriver();
             if (driver instanceof TakesScreenshot) {
@@ -92,20 +107,34 @@ public class ScreenshotListener implements ITestListener {
                     testName, timestamp, Thread.currentThread().getId());
                 
                 File screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+                RunMetrics.recordScreenshot(screenshotFile.length());
                 File destinationFile = new File(directory, fileName);
                 
-                FileUtils.copyFile(screenshotFile, destinationFile);
+                storeScreenshot(screenshotFile, destinationFile);
                 logger.info("Screenshot saved to: {}", destinationFile.getAbsolutePath());
+                EventLog.emit("attachment", "name", fileName, "path", destinationFile.getPath(), "bytes", destinationFile.length());
                 
                 // Set system property for ExtentReports (if used)
                 System.setProperty("screenshot.path", destinationFile.getAbsolutePath());
-                
+                return destinationFile.getAbsolutePath();
             }
         } catch (IOException e) {
             logger.error("Failed to save screenshot to file: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error while saving screenshot: {}", e.getMessage());
         }
+        return null;
+    }
+
+    /**
+     * Move the driver's temp screenshot into the attachment store (identical screens are kept once)
+     */
+    private void storeScreenshot(File screenshotFile, File destinationFile) throws IOException {
+        try (InputStream in = Files.newInputStream(screenshotFile.toPath())) {
+            AttachmentStore.store(in, destinationFile.toPath());
+        } finally {
+            Files.deleteIfExists(screenshotFile.toPath());
+        }
     }
 
     /**
@@ -125,10 +154,12 @@ public class ScreenshotListener implements ITestListener {
                 String fileName = String.format("%s_%s.png", customName, timestamp);
                 
                 File screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+                RunMetrics.recordScreenshot(screenshotFile.length());
                 File destinationFile = new File(directory, fileName);
                 
-                FileUtils.copyFile(screenshotFile, destinationFile);
+                storeScreenshot(screenshotFile, destinationFile);
                 logger.info("Custom screenshot saved: {}", destinationFile.getAbsolutePath());
+                EventLog.emit("attachment", "name", fileName, "path", destinationFile.getPath(), "bytes", destinationFile.length());
                 
                 return destinationFile.getAbsolutePath();
             }
@@ -0,0 +1,163 @@
+package listeners;
+
+import core.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects this JVM's share of test methods when -Dshard.index/-Dshard.count are given
+ * Every test has a home shard by rendezvous hashing (its highest-scored shard), which depends on nothing but its own
+ * name. A shard whose home tests exceed the duration budget (total / count plus shard.balance.slack) keeps the tests
+ * that score highest for it; only the rest are moved, longest first, to their next-ranked shard with budget left.
+ * Adding a test therefore moves at most the tests it pushes out of its home shard's budget, and a drifting
+ * duration history only moves tests at a budget limit.
+ * Limits: the shards are disjoint only when every executor sees the same test list and the same duration history
+ * (distribute the file merged by utils.AllureResultsMerger; the history fingerprint is logged to compare executors).
+ */
+public class ShardInterceptor implements IMethodInterceptor {
+    private static final Logger logger = LogManager.getLogger(ShardInterceptor.class);
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        int count = ConfigReader.getShardCount();
+        int index = ConfigReader.getShardIndex();
+        if (count <= 1) {
+            return methods;
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard.index " + index + " for shard.count " + count);
+        }
+
+        List<String> keys = new ArrayList<>();
+        long[] estimates = new long[methods.size()];
+        for (int i = 0; i < methods.size(); i++) {
+            keys.add(shardKey(context, methods.get(i)));
+            estimates[i] = TestDurationHistory.getEstimate(methods.get(i).getMethod());
+        }
+        int[] shards = assign(keys, estimates, count, ConfigReader.getShardBalanceSlack());
+
+        // Keep original relative order; ordering is left to LongestFirstInterceptor
+        List<IMethodInstance> result = new ArrayList<>();
+        long load = 0;
+        for (int i = 0; i < methods.size(); i++) {
+            if (shards[i] == index) {
+                result.add(methods.get(i));
+                load += estimates[i];
+            }
+        }
+        logger.info("Shard {}/{} of '{}': {} of {} tests, estimated load {} ms (budget {} ms), history fingerprint {}",
+                index, count, context.getName(), result.size(), methods.size(), load,
+                budget(estimates, count, ConfigReader.getShardBalanceSlack()), fingerprint(keys, estimates));
+        return result;
+    }
+
+    /**
+     * Shard of every test: its home shard while that shard's budget allows, otherwise the next-ranked shard with
+     * budget left (the least loaded one when none has)
+     * @param keys test keys, unique
+     * @param estimates estimated duration per test, same order as keys
+     */
+    static int[] assign(List<String> keys, long[] estimates, int count, double slack) {
+        long budget = budget(estimates, count, slack);
+        int[] shards = new int[keys.size()];
+        List<List<Integer>> homes = new ArrayList<>();
+        for (int shard = 0; shard < count; shard++) {
+            homes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            shards[i] = ranking(keys.get(i), count)[0];
+            homes.get(shards[i]).add(i);
+        }
+
+        long[] loads = new long[count];
+        List<Integer> overflow = new ArrayList<>();
+        for (int shard = 0; shard < count; shard++) {
+            int home = shard;
+            List<Integer> tests = homes.get(shard);
+            tests.sort(Comparator.comparingLong((Integer i) -> score(keys.get(i), home)).reversed()
+                    .thenComparing(keys::get));
+            for (int i : tests) {
+                if (loads[shard] > 0 && loads[shard] + estimates[i] > budget) {
+                    overflow.add(i);
+                } else {
+                    loads[shard] += estimates[i];
+                }
+            }
+        }
+
+        overflow.sort(Comparator.comparingLong((Integer i) -> estimates[i]).reversed().thenComparing(keys::get));
+        for (int i : overflow) {
+            int target = -1;
+            int leastLoaded = 0;
+            for (int shard : ranking(keys.get(i), count)) {
+                if (target < 0 && loads[shard] + estimates[i] <= budget) {
+                    target = shard;
+                }
+                if (loads[shard] < loads[leastLoaded]) {
+                    leastLoaded = shard;
+                }
+            }
+            shards[i] = target >= 0 ? target : leastLoaded;
+            loads[shards[i]] += estimates[i];
+        }
+        return shards;
+    }
+
+    private static long budget(long[] estimates, int count, double slack) {
+        long total = 0;
+        for (long estimate : estimates) {
+            total += estimate;
+        }
+        return (long) Math.ceil((double) total / count * (1 + slack));
+    }
+
+    /**
+     * Shards in descending rendezvous score for a key
+     */
+    private static Integer[] ranking(String key, int count) {
+        Integer[] shards = new Integer[count];
+        for (int shard = 0; shard < count; shard++) {
+            shards[shard] = shard;
+        }
+        Arrays.sort(shards, Comparator.comparingLong((Integer shard) -> score(key, shard)).reversed());
+        return shards;
+    }
+
+    private static long score(String key, int shard) {
+        return mix(key.hashCode() * 31L + shard);
+    }
+
+    /**
+     * Hash of the tests and estimates the split was computed from: differs between executors that would overlap
+     */
+    private static String fingerprint(List<String> keys, long[] estimates) {
+        long h = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            // Summed, so the order TestNG lists the methods in does not matter
+            h += mix(keys.get(i).hashCode() * 31L + estimates[i]);
+        }
+        return String.format("%016x", h);
+    }
+
+    private static String shardKey(ITestContext context, IMethodInstance m) {
+        return context.getName() + "/" + TestDurationHistory.key(m.getMethod());
+    }
+
+    // 64-bit finalizer (MurmurHash3 fmix64) for well spread, JVM independent scores
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
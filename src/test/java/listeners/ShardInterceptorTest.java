@@ -0,0 +1,97 @@
+package listeners;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Stability and balance of ShardInterceptor's test placement
+ */
+public class ShardInterceptorTest {
+    private static final int SHARDS = 4;
+    private static final double SLACK = 0.05;
+
+    @Test(groups = "unit", description = "Adding one test moves only a few of the others")
+    public void addingATestMovesFewOthers() {
+        List<String> keys = keys(200);
+        long[] estimates = estimates(201, 7);
+        int[] before = ShardInterceptor.assign(keys, Arrays.copyOf(estimates, 200), SHARDS, SLACK);
+
+        List<String> grown = new ArrayList<>(keys);
+        grown.add("Regression Tests/tests.ui.NewTest.testAdded");
+        int[] after = ShardInterceptor.assign(grown, estimates, SHARDS, SLACK);
+
+        int moved = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != after[i]) {
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved <= 5, moved + " of 200 tests changed shard after adding one test");
+    }
+
+    @Test(groups = "unit", description = "A drifting duration history moves only tests at a budget limit")
+    public void smallDurationDriftMovesFewTests() {
+        List<String> keys = keys(200);
+        long[] estimates = estimates(200, 7);
+        long[] drifted = estimates.clone();
+        Random random = new Random(11);
+        for (int i = 0; i < drifted.length; i++) {
+            drifted[i] = Math.round(drifted[i] * (0.95 + random.nextDouble() * 0.1));
+        }
+        int[] before = ShardInterceptor.assign(keys, estimates, SHARDS, SLACK);
+        int[] after = ShardInterceptor.assign(keys, drifted, SHARDS, SLACK);
+
+        int moved = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != after[i]) {
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved <= 20, moved + " of 200 tests changed shard after a +/-5% duration drift");
+    }
+
+    @Test(groups = "unit", description = "Every test gets one shard and no shard exceeds the budget")
+    public void shardsStayWithinBudget() {
+        List<String> keys = keys(200);
+        long[] estimates = estimates(200, 3);
+        int[] shards = ShardInterceptor.assign(keys, estimates, SHARDS, SLACK);
+
+        long total = Arrays.stream(estimates).sum();
+        long budget = (long) Math.ceil((double) total / SHARDS * (1 + SLACK));
+        long[] loads = new long[SHARDS];
+        for (int i = 0; i < shards.length; i++) {
+            Assert.assertTrue(shards[i] >= 0 && shards[i] < SHARDS, "shard " + shards[i]);
+            loads[shards[i]] += estimates[i];
+        }
+        // The last overflowing test may exceed the budget by at most its own duration
+        long longest = Arrays.stream(estimates).max().orElse(0);
+        for (long load : loads) {
+            Assert.assertTrue(load <= budget + longest, "load " + load + " over budget " + budget);
+        }
+    }
+
+    private static List<String> keys(int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add("Regression Tests/tests.ui.Suite" + (i % 10) + ".test" + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Durations between 5 s and 2 min, a few long tests dominating as in a UI suite
+     */
+    private static long[] estimates(int count, long seed) {
+        Random random = new Random(seed);
+        long[] estimates = new long[count];
+        for (int i = 0; i < count; i++) {
+            estimates[i] = 5_000 + (long) (115_000 * Math.pow(random.nextDouble(), 3));
+        }
+        return estimates;
+    }
+}
@@ -0,0 +1,138 @@
+package listeners;
+
+import core.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestNGMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Historical test durations (ms) keyed by "class.method", persisted between runs
+ * Recorded by LoggerListener and used to schedule/shard tests longest-first. Values are stored as
+ * "durationMs@recordedAtEpochMs" so merged shard histories keep the newest sample of each test
+ * (plain "durationMs" values of older files count as recorded at 0).
+ */
+public final class TestDurationHistory {
+    private static final Logger logger = LogManager.getLogger(TestDurationHistory.class);
+    // Weight of the newest sample in the smoothed duration
+    private static final double SMOOTHING = 0.5;
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Properties durations = new Properties();
+    private static boolean loaded;
+
+    private TestDurationHistory() {}
+
+    public static String key(ITestNGMethod method) {
+        return method.getRealClass().getName() + "." + method.getMethodName();
+    }
+
+    /**
+     * Get historical duration, or -1 when the test has no history
+     */
+    public static long getDuration(String testKey) {
+        lock.lock();
+        try {
+            ensureLoaded();
+            return parseDuration(durations.getProperty(testKey, "-1"));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get historical duration, or the configured default estimate for unknown tests
+     */
+    public static long getEstimate(ITestNGMethod method) {
+        return getEstimate(key(method));
+    }
+
+    public static long getEstimate(String testKey) {
+        long known = getDuration(testKey);
+        return known >= 0 ? known : ConfigReader.getScheduleDefaultEstimateMs();
+    }
+
+    /**
+     * Record a finished test duration (smoothed with previous history)
+     */
+    public static void record(String testKey, long durationMs) {
+        lock.lock();
+        try {
+            ensureLoaded();
+            long previous = parseDuration(durations.getProperty(testKey, "-1"));
+            long smoothed = previous < 0 ? durationMs : Math.round(SMOOTHING * durationMs + (1 - SMOOTHING) * previous);
+            durations.setProperty(testKey, smoothed + "@" + System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Persist recorded durations to test.duration.history.file
+     */
+    public static void save() {
+        if (Boolean.getBoolean("dist.worker")) {
+            // Distributed workers report durations to the coordinator, which owns the history file
+            return;
+        }
+        lock.lock();
+        try {
+            ensureLoaded();
+            Path file = Paths.get(ConfigReader.getTestDurationHistoryFile());
+            try {
+                Path dir = file.toAbsolutePath().getParent();
+                Files.createDirectories(dir);
+                Path tmp = Files.createTempFile(dir, "test-durations", ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    durations.store(out, "Smoothed test durations in ms (class.method=durationMs@recordedAtEpochMs)");
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.debug("Saved {} test durations to {}", durations.size(), file);
+            } catch (IOException e) {
+                logger.warn("Failed to save test durations to {}: {}", file, e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Duration part of a stored value ("durationMs" or "durationMs@recordedAtEpochMs")
+     */
+    public static long parseDuration(String value) {
+        int at = value.indexOf('@');
+        return Long.parseLong(at < 0 ? value : value.substring(0, at));
+    }
+
+    /**
+     * Recording time of a stored value, 0 when it has none
+     */
+    public static long parseRecordedAt(String value) {
+        int at = value.indexOf('@');
+        return at < 0 ? 0L : Long.parseLong(value.substring(at + 1));
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        Path file = Paths.get(ConfigReader.getTestDurationHistoryFile());
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            durations.load(in);
+        } catch (IOException e) {
+            logger.warn("Failed to load test durations from {}: {}", file, e.getMessage());
+        }
+    }
+}
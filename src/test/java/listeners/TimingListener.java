@@ -0,0 +1,269 @@
+package listeners;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import core.AdmissionController;
+import core.ConfigReader;
+import core.PhaseTimer;
+import core.ResourceSampler;
+import core.ResourceUsage;
+import core.TestTimings;
+import enums.TimingPhase;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects per-test phase timings (setup + test + teardown) and browser resource usage on the test thread and writes
+ * reports/timings/test-timings.jsonl plus a suite-level p50/p95/max aggregate per phase
+ * Tests that never reach their method (a failed @BeforeMethod, or skipped after an earlier configuration failure)
+ * get an entry too, with whatever setup time they had.
+ */
+public class TimingListener implements IInvokedMethodListener, ISuiteListener, ITestListener {
+    private static final Logger logger = LogManager.getLogger(TimingListener.class);
+    public static final String TIMINGS_ATTR = "timings";
+    public static final String RESOURCES_ATTR = "resources";
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        entries.clear();
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        TestTimings current = PhaseTimer.current();
+        if (method.getTestMethod().isBeforeMethodConfiguration()
+                || (method.isTestMethod() && (current == null || current.getTestName() != null))) {
+            PhaseTimer.begin();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            PhaseTimer.endStep();
+            TestTimings timings = PhaseTimer.current();
+            if (timings != null) {
+                timings.setTestName(testName(testResult));
+                // Browser usage of setup + test body; the session is still open here
+                ResourceUsage resources = ResourceSampler.collect();
+                if (resources != null) {
+                    timings.setResources(resources);
+                    testResult.setAttribute(RESOURCES_ATTR, resources);
+                }
+                testResult.setAttribute(TIMINGS_ATTR, timings);
+                entries.add(new Entry(testResult, timings));
+            }
+        } else if (method.getTestMethod().isAfterMethodConfiguration()) {
+            TestTimings timings = PhaseTimer.finish();
+            if (timings != null) {
+                timings.setTotalMs(System.currentTimeMillis() - timings.getStartMillis());
+            }
+        }
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        recordWithoutTestMethod(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        recordWithoutTestMethod(result);
+    }
+
+    /**
+     * Entry of a test whose method did not run: the setup record of this thread when its @BeforeMethod ran,
+     * otherwise an empty one
+     */
+    private void recordWithoutTestMethod(ITestResult result) {
+        if (result.getAttribute(TIMINGS_ATTR) != null) {
+            return;
+        }
+        TestTimings timings = PhaseTimer.current();
+        if (timings == null || timings.getTestName() != null) {
+            timings = new TestTimings();
+        }
+        timings.setTestName(testName(result));
+        result.setAttribute(TIMINGS_ATTR, timings);
+        entries.add(new Entry(result, timings));
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Entry> finished = new ArrayList<>(entries);
+        for (Entry entry : finished) {
+            // Tests without @AfterMethod are closed at the end of the test method
+            if (entry.timings.getTotalMs() == 0) {
+                entry.timings.setTotalMs(Math.max(0, entry.result.getEndMillis() - entry.timings.getStartMillis()));
+            }
+            entry.timings.setStatus(status(entry.result.getStatus()));
+        }
+        try {
+            Path dir = Paths.get(ConfigReader.getTimingsReportDir());
+            Files.createDirectories(dir);
+            writeTestTimings(dir.resolve("test-timings.jsonl"), finished);
+            ObjectNode aggregate = aggregate(suite.getName(), finished);
+            mapper.writerWithDefaultPrettyPrinter().writeValue(dir.resolve("suite-timings.json").toFile(), aggregate);
+            logSummary(aggregate);
+            AdmissionController.writeSummary(dir.resolve("concurrency-timeline.json"));
+            logger.info("Phase timings written to: {}", dir.toAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Could not write phase timings: {}", e.getMessage());
+        }
+    }
+
+    private void writeTestTimings(Path file, List<Entry> finished) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry entry : finished) {
+                TestTimings t = entry.timings;
+                ObjectNode node = mapper.createObjectNode();
+                node.put("test", t.getTestName());
+                node.put("context", entry.result.getTestContext().getName());
+                node.put("status", t.getStatus());
+                node.put("thread", t.getThreadName());
+                node.put("startMillis", t.getStartMillis());
+                node.put("totalMs", t.getTotalMs());
+                ObjectNode phases = node.putObject("phases");
+                for (TimingPhase phase : TimingPhase.values()) {
+                    if (t.getPhaseCount(phase) > 0) {
+                        ObjectNode p = phases.putObject(phase.getPhaseName());
+                        p.put("ms", t.getPhaseMs(phase));
+                        p.put("count", t.getPhaseCount(phase));
+                    }
+                }
+                if (!t.getCommandCounts().isEmpty()) {
+                    ObjectNode commands = node.putObject("commands");
+                    t.getCommandCounts().forEach(commands::put);
+                }
+                ResourceUsage resources = t.getResources();
+                if (resources != null) {
+                    node.putObject("resources")
+                            .put("samples", resources.getSamples())
+                            .put("peakProcesses", resources.getPeakProcesses())
+                            .put("peakRssKb", resources.getPeakRssKb())
+                            .put("avgRssKb", resources.getAvgRssKb())
+                            .put("cpuMs", resources.getCpuMs())
+                            .put("avgCpuPercent", resources.getAvgCpuPercent())
+                            .put("peakCpuPercent", resources.getPeakCpuPercent())
+                            .put("ioReadKb", resources.getIoReadKb())
+                            .put("ioWriteKb", resources.getIoWriteKb())
+                            .put("overLimit", resources.isOverLimit());
+                }
+                ArrayNode steps = node.putArray("steps");
+                for (TestTimings.Step step : t.getSteps()) {
+                    steps.addObject().put("name", step.getName()).put("ms", step.getDurationMs());
+                }
+                writer.write(mapper.writeValueAsString(node));
+                writer.newLine();
+            }
+        }
+    }
+
+    private ObjectNode aggregate(String suiteName, List<Entry> finished) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("suite", suiteName);
+        root.put("tests", finished.size());
+        ObjectNode phases = root.putObject("phases");
+        putStats(phases, "total", finished, TestTimings::getTotalMs, t -> true);
+        for (TimingPhase phase : TimingPhase.values()) {
+            putStats(phases, phase.getPhaseName(), finished, t -> t.getPhaseMs(phase), t -> t.getPhaseCount(phase) > 0);
+        }
+        ObjectNode resources = mapper.createObjectNode();
+        Predicate<TestTimings> sampled = t -> t.getResources() != null;
+        putStats(resources, "peakRssKb", finished, t -> t.getResources().getPeakRssKb(), sampled);
+        putStats(resources, "cpuMs", finished, t -> t.getResources().getCpuMs(), sampled);
+        putStats(resources, "ioWriteKb", finished, t -> t.getResources().getIoWriteKb(), sampled);
+        if (resources.size() > 0) {
+            root.set("resources", resources);
+        }
+        return root;
+    }
+
+    private void putStats(ObjectNode phases, String name, List<Entry> finished,
+                          ToLongFunction<TestTimings> value, Predicate<TestTimings> present) {
+        long[] values = finished.stream().map(e -> e.timings).filter(present).mapToLong(value).sorted().toArray();
+        if (values.length == 0) {
+            return;
+        }
+        ObjectNode stats = phases.putObject(name);
+        stats.put("tests", values.length);
+        stats.put("p50", percentile(values, 50));
+        stats.put("p95", percentile(values, 95));
+        stats.put("max", values[values.length - 1]);
+        stats.put("sum", Arrays.stream(values).sum());
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private void logSummary(ObjectNode aggregate) {
+        logger.info("PHASE TIMINGS ({} tests):", aggregate.get("tests").asInt());
+        aggregate.get("phases").fields().forEachRemaining(e -> logger.info("   {}: p50={} ms, p95={} ms, max={} ms",
+                e.getKey(), e.getValue().get("p50").asLong(), e.getValue().get("p95").asLong(), e.getValue().get("max").asLong()));
+        if (aggregate.has("resources")) {
+            aggregate.get("resources").fields().forEachRemaining(e -> logger.info("   browser {}: p50={}, p95={}, max={}",
+                    e.getKey(), e.getValue().get("p50").asLong(), e.getValue().get("p95").asLong(), e.getValue().get("max").asLong()));
+        }
+    }
+
+    private static String testName(ITestResult result) {
+        String name = TestDurationHistory.key(result.getMethod());
+        Object[] parameters = result.getParameters();
+        return parameters == null || parameters.length == 0 ? name : name + Arrays.toString(parameters);
+    }
+
+    private static String status(int status) {
+        switch (status) {
+            case ITestResult.SUCCESS:
+                return "PASS";
+            case ITestResult.FAILURE:
+                return "FAIL";
+            case ITestResult.SKIP:
+                return "SKIP";
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    private static class Entry {
+        private final ITestResult result;
+        private final TestTimings timings;
+
+        Entry(ITestResult result, TestTimings timings) {
+            this.result = result;
+            this.timings = timings;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package listeners;
+
+import core.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IDynamicGraph;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+import org.testng.internal.thread.graph.GraphThreadPoolExecutor;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+import org.testng.thread.IWorker;
+import utils.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TestNG executor factory running I/O-bound tests on virtual threads (JDK 21+, opt-in via virtual.threads.enabled)
+ * A parallel <test> whose methods all belong to virtual.threads.group (default "virtual") gets its own executor:
+ * every method runs on a fresh virtual thread, up to virtual.threads.max.concurrency at a time, instead of on
+ * TestNG's pool of thread-count platform threads. Other <test> tags keep TestNG's GraphThreadPoolExecutor.
+ * A method and its @BeforeMethod/@AfterMethod share that thread, so thread-locals such as DriverFactory's session
+ * are per test. Surefire cannot pass an executor factory, so run through TestNG directly:
+ *   org.testng.TestNG -threadpoolfactoryclass listeners.VirtualThreadExecutorFactory testng.xml
+ */
+public class VirtualThreadExecutorFactory implements IExecutorFactory {
+    private static final Logger logger = LogManager.getLogger(VirtualThreadExecutorFactory.class);
+
+    @Override
+    public ITestNGThreadPoolExecutor newSuiteExecutor(String name, IDynamicGraph<ISuite> graph,
+                                                      IThreadWorkerFactory<ISuite> factory, int corePoolSize,
+                                                      int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                                      BlockingQueue<Runnable> workQueue, Comparator<ISuite> comparator) {
+        return new GraphThreadPoolExecutor<>(name, graph, factory, corePoolSize, maximumPoolSize,
+                keepAliveTime, unit, workQueue, comparator);
+    }
+
+    @Override
+    public ITestNGThreadPoolExecutor newTestMethodExecutor(String name, IDynamicGraph<ITestNGMethod> graph,
+                                                           IThreadWorkerFactory<ITestNGMethod> factory, int corePoolSize,
+                                                           int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                                           BlockingQueue<Runnable> workQueue, Comparator<ITestNGMethod> comparator) {
+        if (isVirtualGroup(graph)) {
+            if (VirtualThreads.isSupported()) {
+                int concurrency = ConfigReader.getVirtualThreadMaxConcurrency();
+                logger.info("Running '{}' on virtual threads (max concurrency {}, thread-count {} ignored)",
+                        name, concurrency, maximumPoolSize);
+                return new VirtualThreadMethodExecutor<>(graph, factory, comparator, concurrency);
+            }
+            logger.warn("Virtual threads requested for '{}' but Java {} does not support them", name, Runtime.version());
+        }
+        return new GraphThreadPoolExecutor<>(name, graph, factory, corePoolSize, maximumPoolSize,
+                keepAliveTime, unit, workQueue, comparator);
+    }
+
+    /**
+     * True when virtual threads are enabled and every method of the <test> is in the virtual group
+     */
+    private static boolean isVirtualGroup(IDynamicGraph<ITestNGMethod> graph) {
+        if (!ConfigReader.isVirtualThreadsEnabled()) {
+            return false;
+        }
+        String group = ConfigReader.getVirtualThreadGroup();
+        List<ITestNGMethod> methods = new ArrayList<>();
+        for (IDynamicGraph.Status status : IDynamicGraph.Status.values()) {
+            methods.addAll(graph.getNodesWithStatus(status));
+        }
+        return !methods.isEmpty() && methods.stream().allMatch(m -> Arrays.asList(m.getGroups()).contains(group));
+    }
+
+    /**
+     * Runs each free node of the method graph on a new virtual thread, bounded only by a semaphore
+     * Scheduling follows GraphThreadPoolExecutor: nodes become RUNNING when handed out, FINISHED when their worker
+     * returns, and the nodes freed by that are started under the graph's lock.
+     */
+    static class VirtualThreadMethodExecutor<T> extends AbstractExecutorService implements ITestNGThreadPoolExecutor {
+        private final IDynamicGraph<T> graph;
+        private final IThreadWorkerFactory<T> factory;
+        private final Comparator<T> comparator;
+        private final Semaphore permits;
+        private final ThreadFactory threads = VirtualThreads.factory("testng-vt-");
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean shutdown;
+
+        VirtualThreadMethodExecutor(IDynamicGraph<T> graph, IThreadWorkerFactory<T> factory,
+                                    Comparator<T> comparator, int concurrency) {
+            this.graph = graph;
+            this.factory = factory;
+            this.comparator = comparator;
+            this.permits = new Semaphore(Math.max(1, concurrency), true);
+        }
+
+        @Override
+        public void run() {
+            synchronized (graph) {
+                startFreeNodes();
+            }
+        }
+
+        // Caller holds the graph lock
+        private void startFreeNodes() {
+            if (graph.getNodeCount() == graph.getNodeCountWithStatus(IDynamicGraph.Status.FINISHED)) {
+                shutdown();
+                return;
+            }
+            List<T> free = new ArrayList<>(graph.getFreeNodes());
+            if (comparator != null) {
+                free.sort(comparator);
+            }
+            for (IWorker<T> worker : factory.createWorkers(free)) {
+                graph.setStatus(worker.getTasks(), IDynamicGraph.Status.RUNNING);
+                execute(worker);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void execute(Runnable command) {
+            threads.newThread(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } catch (RuntimeException | Error e) {
+                    logger.error("Test worker failed: {}", e.getMessage(), e);
+                } finally {
+                    permits.release();
+                    synchronized (graph) {
+                        graph.setStatus(((IWorker<T>) command).getTasks(), IDynamicGraph.Status.FINISHED);
+                        startFreeNodes();
+                    }
+                }
+            }).start();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            finished.countDown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return finished.getCount() == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+    }
+}
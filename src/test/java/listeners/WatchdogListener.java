@@ -0,0 +1,21 @@
+package listeners;
+
+import core.SessionWatchdog;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Reaps browser processes orphaned by crashed runs before and after the suite
+ */
+public class WatchdogListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        SessionWatchdog.reapOrphans();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        SessionWatchdog.reapOrphans();
+    }
+}
@@ -1,13 +1,31 @@
 package tests.ui;
 
+import core.AdmissionController;
+import core.CircuitBreaker;
 import core.ConfigReader;
 import core.DriverFactory;
+import core.EventLog;
+import core.InfrastructureUnavailableException;
+import core.PhaseTimer;
+import core.RunMetrics;
+import core.SessionSnapshot;
+import enums.InfrastructureType;
+import enums.TimingPhase;
+import factory.EmailServiceFactory;
+import factory.PageFactory;
+import interfaces.ILoginPage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.testng.SkipException;
 import org.testng.annotations.*;
 import io.qameta.allure.Attachment;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import pages.web.WebLocators;
+
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Base test class with common setup and teardown methods
@@ -28,17 +46,32 @@ public class BaseTest {
             System.setProperty("environment", environment);
         }
 
-        // Initialize WebDriver
-        DriverFactory.initializeDriver();
-        
-        // Navigate to base URL only for web platform
-        String platform = ConfigReader.getPlatform();
-        if ("web".equals(platform)) {
-            String baseUrl = ConfigReader.getBaseUrl();
-            DriverFactory.getDriver().get(baseUrl);
-            logger.info("Navigated to: {}", baseUrl);
-        } else {
-            logger.info("iOS platform - App already launched, skipping URL navigation");
+        try {
+            // Wait for headroom on this machine before starting another browser
+            PhaseTimer.time(TimingPhase.ADMISSION, AdmissionController::acquire);
+
+            // Initialize WebDriver
+            DriverFactory.initializeDriver();
+
+            // Navigate to base URL only for web platform
+            String platform = ConfigReader.getPlatform();
+            if ("web".equals(platform)) {
+                // Saved session goes in before the first navigation so the site loads already logged in
+                boolean restored = requiresLogin() && DriverFactory.restoreSession(ConfigReader.getLoginEmail());
+                String baseUrl = ConfigReader.getBaseUrl();
+                PhaseTimer.time(TimingPhase.NAVIGATION,
+                        () -> CircuitBreaker.of(InfrastructureType.TARGET_SITE).run(() -> navigateTo(baseUrl)));
+                logger.info("Navigated to: {}", baseUrl);
+                if (requiresLogin()) {
+                    ensureLoggedIn(restored);
+                }
+            } else {
+                logger.info("iOS platform - App already launched, skipping URL navigation");
+            }
+        } catch (InfrastructureUnavailableException e) {
+            // Breaker is open: skip immediately instead of waiting for driver retries and timeouts
+            logger.warn("Skipping test: {}", e.getMessage());
+            throw new SkipException(e.getMessage(), e);
         }
         
         logger.info("Test setup completed successfully");
@@ -48,26 +81,128 @@ public class BaseTest {
     public void tearDown() {
         logger.info("Starting test cleanup...");
         
-        // Take screenshot on failure (handled by listener as well)
-        if (DriverFactory.getDriver() != null) {
-            takeScreenshot();
+        try {
+            PhaseTimer.time(TimingPhase.TEARDOWN, () -> {
+                // Take screenshot on failure (handled by listener as well)
+                if (DriverFactory.getDriver() != null) {
+                    takeScreenshot();
+                }
+
+                // Quit WebDriver
+                DriverFactory.quitDriver();
+            });
+        } finally {
+            AdmissionController.release();
         }
-        
-        // Quit WebDriver
-        DriverFactory.quitDriver();
         logger.info("Test cleanup completed");
     }
 
+    /**
+     * Open url; Chromium does not fail get() on DNS/connection errors but shows its error page, so treat that as a failure
+     */
+    private static void navigateTo(String url) {
+        WebDriver driver = DriverFactory.getDriver();
+        driver.get(url);
+        String current = driver.getCurrentUrl();
+        if (current != null && current.startsWith("chrome-error://")) {
+            throw new WebDriverException("Target site unreachable: " + url + " opened the browser error page (" + current + ")");
+        }
+    }
+
+    /**
+     * Override to start every test of the class logged in with the configured account
+     */
+    protected boolean requiresLogin() {
+        return false;
+    }
+
+    /**
+     * Make sure the configured account is logged in (web): reuse a valid session snapshot, otherwise do the
+     * full OTP login once per account (parallel tests wait and share it) and save a new snapshot
+     */
+    protected void ensureLoggedIn() {
+        ensureLoggedIn(true);
+    }
+
+    private void ensureLoggedIn(boolean checkCurrentSession) {
+        if (!"web".equals(ConfigReader.getPlatform())) {
+            logger.info("iOS platform - app keeps its login between sessions (noReset), skipping session check");
+            return;
+        }
+        WebDriver driver = DriverFactory.getDriver();
+        String account = ConfigReader.getLoginEmail();
+        if (checkCurrentSession && SessionSnapshot.isLoggedIn(driver, WebLocators.ACCOUNT_AVATAR)) {
+            logInfo("Logged in from session snapshot");
+            return;
+        }
+        SessionSnapshot.invalidateRestored(account);
+
+        ReentrantLock lock = SessionSnapshot.lockFor(account);
+        lock.lock();
+        try {
+            // Another test may have logged in while this one was waiting
+            if (DriverFactory.restoreSession(account)) {
+                driver.navigate().refresh();
+                if (SessionSnapshot.isLoggedIn(driver, WebLocators.ACCOUNT_AVATAR)) {
+                    logInfo("Logged in from session snapshot");
+                    return;
+                }
+                SessionSnapshot.invalidateRestored(account);
+            }
+            performLogin(account);
+            if (!SessionSnapshot.isLoggedIn(driver, WebLocators.ACCOUNT_AVATAR)) {
+                throw new RuntimeException("Login failed for " + account + ": account avatar not visible");
+            }
+            SessionSnapshot.capture(driver, account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Full web login: sign in, email, continue, OTP from the inbox, verify
+     */
+    private void performLogin(String account) {
+        logStep("Logging in with email verification: " + account);
+        ILoginPage loginPage = PageFactory.getLoginPage();
+        PageFactory.getHomePage().clickSignInButton();
+        loginPage.enterEmail(account);
+        loginPage.clickContinueWithEmail();
+        String code = EmailServiceFactory.getEmailService().fetchVerificationCode(
+                ConfigReader.getWebEmailAccount(),
+                ConfigReader.getWebEmailAppPassword(),
+                ConfigReader.getEmailFromFilter(),
+                ConfigReader.getEmailSubjectFilter(),
+                ConfigReader.getEmailTimeoutSeconds(),
+                10
+        );
+        loginPage.enterVerificationCode(code);
+    }
+
+    /**
+     * Save the current (logged-in) web session so later tests can skip the OTP login
+     */
+    protected void saveSessionSnapshot() {
+        WebDriver driver = DriverFactory.getDriver();
+        if ("web".equals(ConfigReader.getPlatform()) && SessionSnapshot.isLoggedIn(driver, WebLocators.ACCOUNT_AVATAR)) {
+            SessionSnapshot.capture(driver, ConfigReader.getLoginEmail());
+        }
+    }
+
     /**
      * Take screenshot and attach to Allure report
      */
     @Attachment(value = "Screenshot", type = "image/png")
     public byte[] takeScreenshot() {
         try {
-            TakesScreenshot screenshot = (TakesScreenshot) DriverFactory.getDriver();
-            byte[] screenshotBytes = screenshot.getScreenshotAs(OutputType.BYTES);
-            logger.info("Screenshot captured successfully");
-            return screenshotBytes;
+            return PhaseTimer.time(TimingPhase.SCREENSHOT, () -> {
+                TakesScreenshot screenshot = (TakesScreenshot) DriverFactory.getDriver();
+                byte[] screenshotBytes = screenshot.getScreenshotAs(OutputType.BYTES);
+                RunMetrics.recordScreenshot(screenshotBytes.length);
+                EventLog.emit("attachment", "name", "Screenshot", "bytes", screenshotBytes.length);
+                logger.info("Screenshot captured successfully");
+                return screenshotBytes;
+            });
         } catch (Exception e) {
             logger.error("Failed to capture screenshot: {}", e.getMessage());
             return new byte[0];
@@ -98,6 +233,7 @@ public class BaseTest {
      */
     protected void logStep(String stepDescription) {
         logger.info("TEST STEP: {}", stepDescription);
+        PhaseTimer.step(stepDescription);
     }
 
     /**
@@ -71,7 +71,7 @@ public class LoginTest extends BaseTest {
         boolean emailEnabled = "ios".equals(currentPlatform) ? core.ConfigReader.isIOSEmailVerificationEnabled() : core.ConfigReader.isWebEmailVerificationEnabled();
         if (emailEnabled) {
             logStep("Email verification enabled - fetching code from inbox");
-            utils.EmailService emailService = new utils.EmailService();
+            interfaces.IEmailService emailService = factory.EmailServiceFactory.getEmailService();
             String emailAccount = "ios".equals(currentPlatform) ? core.ConfigReader.getIOSEmailAccount() : core.ConfigReader.getWebEmailAccount();
             String appPassword = "ios".equals(currentPlatform) ? core.ConfigReader.getIOSEmailAppPassword() : core.ConfigReader.getWebEmailAppPassword();
             String code = emailService.fetchVerificationCode(
@@ -82,12 +82,12 @@ public class LoginTest extends BaseTest {
                     core.ConfigReader.getEmailTimeoutSeconds(),
                     10
             );
-            // Mask OTP at info level
+            // The code itself is never logged
             logInfo("Verification code received: ******");
-            // Debug full code
-            logWarning("[DEBUG_ONLY] OTP=" + code);
             logStep("Entering verification code");
             loginPage.enterVerificationCode(code);
+            // Reused by tests that only need a logged-in user (BaseTest.ensureLoggedIn)
+            saveSessionSnapshot();
         }
 
         // Step 7: Basic assertion to ensure flow did not error